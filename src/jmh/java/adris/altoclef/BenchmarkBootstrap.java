@@ -0,0 +1,17 @@
+package adris.altoclef;
+
+import net.minecraft.Bootstrap;
+
+/**
+ * Benchmarks run on a plain JVM with no client, but still need the item/block registries filled in.
+ */
+public class BenchmarkBootstrap {
+
+    private static boolean _initialized = false;
+
+    public static synchronized void init() {
+        if (_initialized) return;
+        Bootstrap.initialize();
+        _initialized = true;
+    }
+}
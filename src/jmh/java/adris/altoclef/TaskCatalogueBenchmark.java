@@ -0,0 +1,80 @@
+package adris.altoclef;
+
+import adris.altoclef.tasksystem.Task;
+import net.minecraft.item.Item;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name and item lookups that tasks do every tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskCatalogueBenchmark {
+
+    private static final int LOOKUPS = 256;
+
+    private String[] _names;
+    private Item[] _items;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.init();
+        List<String> names = new ArrayList<>(TaskCatalogue.resourceNames());
+        names.sort(String::compareTo);
+        List<Item> items = new ArrayList<>();
+        for (String name : names) {
+            Item[] matches = TaskCatalogue.getItemMatches(name);
+            if (matches != null && matches.length != 0) {
+                items.add(matches[0]);
+            }
+        }
+        // Same lookups every run
+        Random random = new Random(1234);
+        _names = new String[LOOKUPS];
+        _items = new Item[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; ++i) {
+            _names[i] = names.get(random.nextInt(names.size()));
+            _items[i] = items.get(random.nextInt(items.size()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getItemMatches(Blackhole blackhole) {
+        for (String name : _names) {
+            blackhole.consume(TaskCatalogue.getItemMatches(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void taskExists(Blackhole blackhole) {
+        for (String name : _names) {
+            blackhole.consume(TaskCatalogue.taskExists(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void isObtainable(Blackhole blackhole) {
+        for (Item item : _items) {
+            blackhole.consume(TaskCatalogue.isObtainable(item));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getItemTask(Blackhole blackhole) {
+        for (String name : _names) {
+            Task task = TaskCatalogue.getItemTask(name, 4);
+            blackhole.consume(task);
+        }
+    }
+}
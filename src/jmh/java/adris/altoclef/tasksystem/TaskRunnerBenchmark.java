@@ -0,0 +1,46 @@
+package adris.altoclef.tasksystem;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The TaskRunner's tick loop on its own, with scripted stand-in chains and a fake environment instead of a client.
+ *
+ * The script plays out like a normal session (see ScriptedEnvironment). Stand-in chains mirror the real ones
+ * (priorities and triggers), so this measures what choosing a chain costs per tick. TaskRunnerTest checks that the
+ * same script picks the right chain every tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskRunnerBenchmark {
+
+    private static final int TICKS = 1000;
+
+    // Chains that never want to run, on top of the stand-ins for the real ones.
+    @Param({"0", "16"})
+    public int idleChains;
+
+    private ScriptedEnvironment _environment;
+    private TaskRunner _runner;
+
+    @Setup
+    public void setup() {
+        _environment = new ScriptedEnvironment();
+        _runner = new TaskRunner(null, _environment);
+        ScriptedChain.createStandIns(_runner, idleChains);
+        _runner.enable();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public void tick(Blackhole blackhole) {
+        for (int i = 0; i < TICKS; ++i) {
+            _environment.step();
+            _runner.tick();
+            blackhole.consume(_runner.getCurrentTaskChain());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.BenchmarkBootstrap;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BlockTracker's position cache over a synthetic "world": ores scattered over a square of chunks around the origin.
+ *
+ * PosCache.getNearest checks its result against the live world, so nearest queries go straight to the index it uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BlockTrackerBenchmark {
+
+    private static final Block[] BLOCKS = new Block[] {Blocks.COAL_ORE, Blocks.IRON_ORE, Blocks.DIAMOND_ORE, Blocks.CRAFTING_TABLE};
+
+    private static final int QUERIES = 32;
+
+    // How many blocks we know about in total
+    @Param({"1000", "20000"})
+    public int trackedBlocks;
+
+    // Chunk radius the blocks are scattered over
+    @Param({"8", "32"})
+    public int chunkRadius;
+
+    private BlockTracker.PosCache _cache;
+    private BlockPosIndex _index;
+    private BlockPos[] _positions;
+    private Block[] _positionBlocks;
+    private Vec3d[] _queries;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.init();
+        Random random = new Random(42);
+        int range = chunkRadius * 16;
+        _positions = new BlockPos[trackedBlocks];
+        _positionBlocks = new Block[trackedBlocks];
+        // Never purged, we want every block to stick around.
+        _cache = new BlockTracker.PosCache(Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+        _index = new BlockPosIndex();
+        for (int i = 0; i < trackedBlocks; ++i) {
+            BlockPos pos = new BlockPos(random.nextInt(range * 2) - range, random.nextInt(64), random.nextInt(range * 2) - range);
+            Block block = BLOCKS[random.nextInt(BLOCKS.length)];
+            _positions[i] = pos;
+            _positionBlocks[i] = block;
+            _cache.addBlock(block, pos);
+            _index.add(pos);
+        }
+        _queries = new Vec3d[QUERIES];
+        for (int i = 0; i < QUERIES; ++i) {
+            _queries[i] = new Vec3d(random.nextInt(range * 2) - range, 64, random.nextInt(range * 2) - range);
+        }
+    }
+
+    @Benchmark
+    public BlockTracker.PosCache addBlocks() {
+        BlockTracker.PosCache cache = new BlockTracker.PosCache(Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < _positions.length; ++i) {
+            cache.addBlock(_positionBlocks[i], _positions[i]);
+        }
+        return cache;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void getNearest(Blackhole blackhole) {
+        for (Vec3d query : _queries) {
+            blackhole.consume(_index.getNearest(query, pos -> false));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void getNearestWithinRange(Blackhole blackhole) {
+        for (Vec3d query : _queries) {
+            blackhole.consume(_index.getNearestWithinRange(query, 64, pos -> false));
+        }
+    }
+
+    @Benchmark
+    public void anyFound(Blackhole blackhole) {
+        blackhole.consume(_cache.anyFound(pos -> pos.getY() > 100, Blocks.DIAMOND_ORE));
+    }
+
+    @Benchmark
+    public void getKnownLocations(Blackhole blackhole) {
+        blackhole.consume(_cache.getKnownLocations(Blocks.IRON_ORE));
+    }
+
+    @Benchmark
+    public void loadAndUnloadChunk(Blackhole blackhole) {
+        // What happens to the cache when a chunk full of tracked blocks loads in and then unloads again.
+        ChunkPos chunk = new ChunkPos(0, 0);
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int i = 0; i < 64; ++i) {
+            pos.set(chunk.getStartX() + (i & 15), i, chunk.getStartZ() + (i >> 4));
+            _cache.addBlock(Blocks.COAL_ORE, pos.toImmutable());
+        }
+        _cache.removeChunk(chunk);
+        blackhole.consume(_cache.getBlockTrackCount());
+    }
+}
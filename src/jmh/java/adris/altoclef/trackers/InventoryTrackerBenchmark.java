@@ -0,0 +1,90 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.BenchmarkBootstrap;
+import adris.altoclef.util.CraftingRecipe;
+import adris.altoclef.util.ItemTarget;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import net.minecraft.util.registry.Registry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recipe matching against a synthetic inventory, with no player involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InventoryTrackerBenchmark {
+
+    // Indexed by raw item id, same as InventoryTracker keeps it.
+    private int[] _counts;
+    private final int[] _assignment = new int[9];
+
+    private CraftingRecipe _pickaxe;
+    private CraftingRecipe _planks;
+    private CraftingRecipe _missing;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.init();
+        // A messy mid game inventory, materials split over several stacks.
+        Item[] inventory = new Item[] {
+                Items.DIAMOND_SWORD, Items.IRON_PICKAXE, Items.COBBLESTONE, Items.COBBLESTONE, Items.DIRT, Items.OAK_LOG,
+                Items.STICK, Items.COOKED_BEEF, Items.TORCH, Items.OAK_PLANKS, Items.COBBLESTONE, Items.STICK,
+                Items.IRON_INGOT, Items.IRON_INGOT, Items.GRAVEL, Items.FLINT, Items.OAK_PLANKS, Items.COAL,
+                Items.DIRT, Items.DIRT, Items.ANDESITE, Items.DIORITE, Items.GRANITE, Items.BREAD,
+                Items.OAK_SAPLING, Items.APPLE, Items.STRING, Items.BONE, Items.ROTTEN_FLESH, Items.ARROW,
+                Items.COBBLESTONE, Items.STICK, Items.OAK_LOG, Items.WATER_BUCKET, Items.SAND, Items.AIR
+        };
+        int[] counts = new int[] {
+                1, 1, 64, 12, 30, 7,
+                1, 9, 40, 3, 64, 1,
+                5, 2, 16, 3, 1, 11,
+                64, 64, 20, 14, 6, 2,
+                4, 3, 7, 9, 22, 31,
+                2, 1, 8, 1, 19, 0
+        };
+        _counts = new int[Registry.ITEM.getIds().size()];
+        for (int slot = 0; slot < inventory.length; ++slot) {
+            _counts[Registry.ITEM.getRawId(inventory[slot])] += counts[slot];
+        }
+
+        ItemTarget c = new ItemTarget(Items.COBBLESTONE, 1);
+        ItemTarget s = new ItemTarget(Items.STICK, 1);
+        ItemTarget l = new ItemTarget(Items.OAK_LOG, 1);
+        ItemTarget d = new ItemTarget(Items.DIAMOND, 1);
+        ItemTarget o = null;
+        _pickaxe = CraftingRecipe.newShapedRecipe("stone_pickaxe", new ItemTarget[]{c, c, c, o, s, o, o, s, o}, 1);
+        _planks = CraftingRecipe.newShapedRecipe("planks", new ItemTarget[]{l, o, o, o}, 4);
+        _missing = CraftingRecipe.newShapedRecipe("diamond_pickaxe", new ItemTarget[]{d, d, d, o, s, o, o, s, o}, 1);
+    }
+
+    @Benchmark
+    public void mapSmallRecipe(Blackhole blackhole) {
+        blackhole.consume(_planks.getCompiled().getSlotAssignment(_counts, 1, _assignment));
+    }
+
+    @Benchmark
+    public void mapBigRecipe(Blackhole blackhole) {
+        blackhole.consume(_pickaxe.getCompiled().getSlotAssignment(_counts, 1, _assignment));
+    }
+
+    @Benchmark
+    public void mapBigRecipeMany(Blackhole blackhole) {
+        // Crafting a stack's worth, which has to spread over several stacks.
+        blackhole.consume(_pickaxe.getCompiled().canCraft(_counts, 16));
+    }
+
+    @Benchmark
+    public void mapMissingRecipe(Blackhole blackhole) {
+        blackhole.consume(_missing.getCompiled().getSlotAssignment(_counts, 1, _assignment));
+    }
+
+    @Benchmark
+    public void maxCraftable(Blackhole blackhole) {
+        blackhole.consume(_pickaxe.getCompiled().getMaxCraftable(_counts));
+    }
+}
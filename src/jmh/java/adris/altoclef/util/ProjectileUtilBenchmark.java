@@ -0,0 +1,67 @@
+package adris.altoclef.util;
+
+import adris.altoclef.BenchmarkBootstrap;
+import net.minecraft.util.math.Vec3d;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arrow approach math, as run by projectile dodging for every arrow in the air every tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectileUtilBenchmark {
+
+    private static final int PROJECTILES = 64;
+
+    // Arrows, in blocks/tick^2
+    private static final double GRAVITY = 0.05;
+
+    @Param({"0", "1"})
+    public int seed;
+
+    private Vec3d[] _origins;
+    private Vec3d[] _velocities;
+    private Vec3d _player;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.init();
+        Random random = new Random(seed);
+        _player = new Vec3d(0, 64, 0);
+        _origins = new Vec3d[PROJECTILES];
+        _velocities = new Vec3d[PROJECTILES];
+        for (int i = 0; i < PROJECTILES; ++i) {
+            // Skeletons shooting at us from up to 30 blocks away, roughly aimed our way.
+            Vec3d origin = new Vec3d(random.nextDouble() * 60 - 30, 60 + random.nextDouble() * 10, random.nextDouble() * 60 - 30);
+            Vec3d aim = _player.subtract(origin).normalize().multiply(1.6 + random.nextDouble());
+            Vec3d spread = new Vec3d(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).multiply(0.1);
+            _origins[i] = origin;
+            _velocities[i] = aim.add(spread).add(0, 0.3, 0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROJECTILES)
+    public void getClosestApproachTime(Blackhole blackhole) {
+        for (int i = 0; i < PROJECTILES; ++i) {
+            Vec3d origin = _origins[i], velocity = _velocities[i];
+            blackhole.consume(ProjectileUtil.getClosestApproachTime(origin.x, origin.y, origin.z, velocity.x, velocity.y, velocity.z,
+                    GRAVITY, ProjectileUtil.DRAG_AIR, _player.x, _player.y, _player.z));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROJECTILES)
+    public void getClosestApproachTimeNoDrag(Blackhole blackhole) {
+        for (int i = 0; i < PROJECTILES; ++i) {
+            Vec3d origin = _origins[i], velocity = _velocities[i];
+            blackhole.consume(ProjectileUtil.getClosestApproachTime(origin.x, origin.y, origin.z, velocity.x, velocity.y, velocity.z,
+                    GRAVITY, 1, _player.x, _player.y, _player.z));
+        }
+    }
+}
@@ -13,6 +13,7 @@ import adris.altoclef.ui.CommandStatusOverlay;
 import adris.altoclef.ui.MessageSender;
 import adris.altoclef.util.Dimension;
 import adris.altoclef.util.PlayerExtraController;
+import adris.altoclef.util.TickProfiler;
 import adris.altoclef.util.baritone.BaritoneCustom;
 import adris.altoclef.util.csharpisbetter.Action;
 import adris.altoclef.util.csharpisbetter.ActionListener;
@@ -42,6 +43,7 @@ public class AltoClef implements ModInitializer {
     private ConfigState _configState;
     private BaritoneCustom _baritoneCustom;
     private PlayerExtraController _extraController;
+    private TickProfiler _tickProfiler;
 
     // Task chains
     private UserTaskChain _userTaskChain;
@@ -54,6 +56,8 @@ public class AltoClef implements ModInitializer {
     private EntityTracker _entityTracker;
     private BlockTracker _blockTracker;
     private ContainerTracker _containerTracker;
+    private ExploredChunkTracker _exploredChunkTracker;
+    private DangerTracker _dangerTracker;
     private SimpleChunkTracker _chunkTracker;
 
     // Renderers
@@ -92,6 +96,8 @@ public class AltoClef implements ModInitializer {
         _settings = adris.altoclef.Settings.load();
 
         // Central Managers
+        _tickProfiler = new TickProfiler(_settings.getTickProfilerWindowTicks());
+        _tickProfiler.setEnabled(_settings.isTickProfilerEnabled());
         _commandExecutor = new CommandExecutor(this, "@");
         _taskRunner = new TaskRunner(this);
         _trackerManager = new TrackerManager(this);
@@ -113,6 +119,8 @@ public class AltoClef implements ModInitializer {
         _entityTracker = new EntityTracker(_trackerManager);
         _blockTracker = new BlockTracker(this, _trackerManager);
         _containerTracker = new ContainerTracker(this, _trackerManager);
+        _exploredChunkTracker = new ExploredChunkTracker(_trackerManager);
+        _dangerTracker = new DangerTracker(_trackerManager);
         _chunkTracker = new SimpleChunkTracker(this);
 
         // Renderers
@@ -141,13 +149,19 @@ public class AltoClef implements ModInitializer {
     // Client tick
     public void onClientTick() {
         // TODO: should this go here?
+        _tickProfiler.beginTick();
+
         _containerTracker.onServerTick();
 
         _trackerManager.tick();
         _taskRunner.tick();
 
+        _tickProfiler.push("Butler");
         _butler.tick();
+        _tickProfiler.pop();
         _messageSender.tick();
+
+        _tickProfiler.endTick();
     }
 
     public void onClientRenderOverlay(MatrixStack matrixStack) {
@@ -156,10 +170,13 @@ public class AltoClef implements ModInitializer {
 
     public void onChunkLoad(WorldChunk chunk) {
         _chunkTracker.onLoad(chunk.getPos());
+        _blockTracker.onChunkLoad(chunk);
+        _containerTracker.onChunkLoad(chunk.getPos());
         _onChunkLoad.invoke(chunk);
     }
     public void onChunkUnload(ChunkPos chunkPos) {
         _chunkTracker.onUnload(chunkPos);
+        _blockTracker.onChunkUnload(chunkPos);
     }
 
     private void initializeBaritoneSettings() {
@@ -226,7 +243,11 @@ public class AltoClef implements ModInitializer {
     public EntityTracker getEntityTracker() { return _entityTracker; }
     public BlockTracker getBlockTracker() { return _blockTracker; }
     public ContainerTracker getContainerTracker() {return _containerTracker;}
+    public ExploredChunkTracker getExploredChunkTracker() {return _exploredChunkTracker;}
+    public DangerTracker getDangerTracker() {return _dangerTracker;}
     public SimpleChunkTracker getChunkTracker() {return _chunkTracker;}
+    public TrackerManager getTrackerManager() {return _trackerManager;}
+    public TickProfiler getTickProfiler() {return _tickProfiler;}
 
     // Baritone access
     public Baritone getClientBaritone() {
@@ -249,6 +270,11 @@ public class AltoClef implements ModInitializer {
         adris.altoclef.Settings result = adris.altoclef.Settings.load();
         if (result != null) {
             _settings = result;
+            _tickProfiler.setWindowTicks(_settings.getTickProfilerWindowTicks());
+            _taskRunner.invalidatePriorities();
+            if (_settings.isTickProfilerEnabled()) {
+                _tickProfiler.setEnabled(true);
+            }
         }
         // If we weren't running anything and are now "idling", idle.
         if (getModSettings().shouldIdleWhenNotActive()) {
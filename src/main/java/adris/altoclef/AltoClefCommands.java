@@ -367,7 +367,9 @@ public class AltoClefCommands extends CommandList {
             new FoodCommand(),
             new ReloadSettingsCommand(),
             new GamerCommand(),
-            new PunkCommand()
+            new PunkCommand(),
+            new TrackersCommand(),
+            new ProfileCommand()
             //new TestMoveInventoryCommand(),
             //    new TestSwapInventoryCommand()
         );
@@ -39,6 +39,14 @@ public class Settings {
      */
     private float containerItemMoveDelay = 0.08f;
 
+    /**
+     * When moving lots of items in/out of chests, how many whole stacks we shift-click at once
+     * (no delay between them) before waiting containerItemMoveDelay again.
+     *
+     * Lower this if a server kicks you for clicking too fast.
+     */
+    private int containerShiftClicksPerMove = 9;
+
     /**
      * If a dropped resource item is further than this from the player, don't pick it up.
      *
@@ -135,6 +143,15 @@ public class Settings {
      */
     private boolean dodgeProjectiles = true;
 
+    /**
+     * Only applies if mobDefense is on.
+     *
+     * While we're vulnerable (low health/armor), baritone treats blocks near angry hostiles, creepers and incoming
+     * projectiles as up to (1 + this) times as expensive to walk through, so we path around them instead of through them.
+     * Set to 0 to turn it off.
+     */
+    private double dangerPathCostCoefficient = 2;
+
     /**
      * Skeletons and large groups of mobs are a huge pain.
      *
@@ -164,6 +181,61 @@ public class Settings {
      */
     private boolean autoMLGBucket = true;
 
+    /**
+     * If true, tracked blocks are found by scanning each chunk once when it loads
+     * and updating whenever a block changes, instead of rescanning the whole world every few seconds.
+     *
+     * WARNING: Blocks in unloaded chunks are FORGOTTEN in this mode, so we won't remember (and head back to)
+     * blocks we saw far away. Off by default for that reason.
+     */
+    private boolean incrementalBlockTracking = false;
+
+    /**
+     * Roughly how many microseconds our trackers (inventory, entities, blocks, containers) may spend updating each tick.
+     * When we go over, low priority trackers are left a few ticks out of date.
+     *
+     * Use the @trackers command to see what each tracker actually costs.
+     *
+     * Set to 0 or less to disable.
+     */
+    private int trackerUpdateBudgetMicros = 4000;
+
+    /**
+     * If true, chest contents are saved to disk (under altoclef_containers, per server and dimension)
+     * so we still know what's in our chests after relogging.
+     *
+     * Disable if you'd rather start fresh every session.
+     */
+    private boolean persistContainerCache = true;
+
+    /**
+     * If true, the chunks our searches (nether fortress, biomes, stronghold) have already covered are saved to disk
+     * (under altoclef_explored, per server and dimension), so a new search doesn't walk over the same ground again.
+     */
+    private boolean persistExploredChunks = true;
+
+    /**
+     * When going for the closest of something (logs, mobs, drops), work out real path costs to this many of the
+     * closest candidates in the background and go for the quickest to reach, instead of the closest in a straight line.
+     *
+     * Set to 1 or less to only use straight line distance.
+     */
+    private int closestObjectPathCandidates = 3;
+
+    /**
+     * If true, time is measured for every chain, task and tracker update each tick.
+     * Use the @profile command to dump the results as flame graph data (collapsed stacks).
+     *
+     * This adds a bit of overhead, so leave it off unless you're looking for something.
+     * The @profile command can also turn it on and off without touching this setting.
+     */
+    private boolean tickProfiler = false;
+
+    /**
+     * How many of the most recent ticks the tick profiler keeps around.
+     */
+    private int tickProfilerWindowTicks = 400;
+
     /**
      * If true, will automatically reconnect to the last open server if you get disconnected.
      *
@@ -361,6 +433,10 @@ public class Settings {
         return containerItemMoveDelay;
     }
 
+    public int getContainerShiftClicksPerMove() {
+        return containerShiftClicksPerMove;
+    }
+
     public boolean isMobDefense() {
         return mobDefense;
     }
@@ -428,6 +504,22 @@ public class Settings {
 
     public boolean shouldAvoidSearchingForDungeonChests() {return avoidSearchingDungeonChests;}
 
+    public boolean shouldUseIncrementalBlockTracking() {return incrementalBlockTracking;}
+
+    public int getTrackerUpdateBudgetMicros() {return trackerUpdateBudgetMicros;}
+
+    public boolean shouldPersistContainerCache() {return persistContainerCache;}
+
+    public boolean shouldPersistExploredChunks() {return persistExploredChunks;}
+
+    public int getClosestObjectPathCandidates() {return closestObjectPathCandidates;}
+
+    public double getDangerPathCostCoefficient() {return dangerPathCostCoefficient;}
+
+    public boolean isTickProfilerEnabled() {return tickProfiler;}
+
+    public int getTickProfilerWindowTicks() {return tickProfilerWindowTicks;}
+
     public boolean isThrowaway(Item item) {
         return idArrayContainsItem(item, throwawayItems);
     }
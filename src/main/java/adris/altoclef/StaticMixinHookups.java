@@ -2,6 +2,7 @@ package adris.altoclef;
 
 import adris.altoclef.commandsystem.CommandException;
 import baritone.api.event.events.ChatEvent;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.util.math.MatrixStack;
@@ -78,6 +79,10 @@ public class StaticMixinHookups {
         _mod.getControllerExtras().onBlockPlaced(pos, state);
     }
 
+    public static void onBlockChanged(BlockPos pos, BlockState oldState, BlockState newState) {
+        _mod.getBlockTracker().onBlockChanged(pos, oldState, newState);
+    }
+
     public static void onScreenOpenBegin(Screen screen) {
         if (screen == null) {
             _mod.getContainerTracker().onScreenClose();
@@ -112,4 +117,10 @@ public class StaticMixinHookups {
     }
 
     public static void onGameOverlayMessage(String message) {_mod.onGameOverlayMessage.invoke(message);}
+
+    // Baritone is about to start a path, this is where it keeps its per block cost multipliers.
+    public static void onPathFavoringCreated(Long2DoubleOpenHashMap favorings) {
+        if (_mod == null || !_mod.inGame()) return;
+        _mod.getDangerTracker().applyTo(favorings);
+    }
 }
@@ -26,6 +26,20 @@ public class TaskCatalogue {
     private static final HashMap<String, Item[]> _nameToItemMatches = new HashMap<>();
     private static final HashMap<String, CataloguedResource> _nameToResourceTask = new HashMap<>();
     private static final HashSet<Item> _resourcesObtainable = new HashSet<>();
+    // How catalogued resources are made, for planning (see CraftingPlanner)
+    private static final HashMap<String, CraftingRecipe> _nameToRecipe = new HashMap<>();
+    private static final HashMap<String, String> _nameToSmeltMaterial = new HashMap<>();
+
+    // Built once everything's defined, see buildIndex.
+    // Every catalogue entry that gives an item, most specific first ("oak_planks" before "planks").
+    private static final HashMap<Item, String[]> _itemToNames = new HashMap<>();
+    private static final HashSet<String> _aliases = new HashSet<>();
+    private static List<String> _sortedNames = Collections.emptyList();
+    // Recipes ask for the same few resources over and over, so each name is only resolved once. See t().
+    private static final HashMap<String, ItemTarget> _templates = new HashMap<>();
+    // Nothing gets added after the static block, so the indexes can't go stale.
+    private static boolean _frozen = false;
+
     static {
         /// DEFINE RESOURCE TASKS HERE
         {
@@ -423,9 +437,36 @@ public class TaskCatalogue {
                 shapedRecipe3x3("beetroot_soup", Items.BEETROOT_SOUP, 1, b,b,b, b,b,b, o,"bowl",o);
             }
         }
+        buildIndex();
+    }
+
+    private static void buildIndex() {
+        HashMap<Item, List<String>> itemToNames = new HashMap<>();
+        for (Map.Entry<String, Item[]> entry : _nameToItemMatches.entrySet()) {
+            if (entry.getValue() == null) continue;
+            for (Item item : entry.getValue()) {
+                itemToNames.computeIfAbsent(item, k -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        // Fewest matches first, real names before aliases, then alphabetical so it's the same every run.
+        Comparator<String> specificFirst = Comparator.comparingInt((String name) -> _nameToItemMatches.get(name).length)
+                .thenComparing(_aliases::contains)
+                .thenComparing(Comparator.naturalOrder());
+        for (Map.Entry<Item, List<String>> entry : itemToNames.entrySet()) {
+            entry.getValue().sort(specificFirst);
+            _itemToNames.put(entry.getKey(), entry.getValue().toArray(new String[0]));
+        }
+
+        List<String> sortedNames = new ArrayList<>(_nameToResourceTask.keySet());
+        sortedNames.sort(Comparator.naturalOrder());
+        _sortedNames = Collections.unmodifiableList(sortedNames);
+        _frozen = true;
     }
 
     private static CataloguedResource put(String name, Item[] matches, Function<Integer, ResourceTask> getTask) {
+        if (_frozen) {
+            throw new IllegalStateException("Tried to add \"" + name + "\" to the task catalogue after it was built.");
+        }
         CataloguedResource result = new CataloguedResource(matches, getTask);
         Block[] blocks = Util.itemsToBlocks(matches);
         // DEFAULT BEHAVIOUR: Mine if present & assume overworld is required!
@@ -443,11 +484,24 @@ public class TaskCatalogue {
         put(name, new Item[]{match}, factory);
     }*/
 
-    /*
-    static ResourceTask getItemTask(Item item, int count) {
-        return getItemTask(ItemTarget.trimItemName(item.getTranslationKey()), count);
+    /**
+     * @return The most specific catalogue entry that gives us `item` ("oak_planks" rather than "planks"), or null if it's not catalogued.
+     */
+    public static String getCatalogueName(Item item) {
+        String[] names = _itemToNames.get(item);
+        return names != null ? names[0] : null;
+    }
+
+    /**
+     * @return The catalogue entry for `target`: its own if it was made from a name, otherwise the entry that gives its
+     * item (for targets made from a single item). Null if there is none.
+     */
+    public static String getCatalogueName(ItemTarget target) {
+        if (target.isCatalogueItem()) return target.getCatalogueName();
+        Item[] matches = target.getMatches();
+        if (matches == null || matches.length != 1) return null;
+        return getCatalogueName(matches[0]);
     }
-    */
 
     // This is here so that we can use strings for item targets (optionally) and stuff like that.
     public static Item[] getItemMatches(String name) {
@@ -457,6 +511,20 @@ public class TaskCatalogue {
         return _nameToItemMatches.get(name);
     }
 
+    /**
+     * @return The recipe this resource is crafted with, or null if it isn't a plain crafting recipe.
+     */
+    public static CraftingRecipe getRecipe(String name) {
+        return _nameToRecipe.get(name);
+    }
+
+    /**
+     * @return The catalogue name of what this resource is smelted from, or null if it isn't smelted.
+     */
+    public static String getSmeltMaterial(String name) {
+        return _nameToSmeltMaterial.get(name);
+    }
+
     public static boolean isObtainable(Item item) {
         return _resourcesObtainable.contains(item);
     }
@@ -481,15 +549,18 @@ public class TaskCatalogue {
     }
 
     public static ResourceTask getItemTask(ItemTarget target) {
-        return getItemTask(target.getCatalogueName(), target.targetCount);
+        return getItemTask(getCatalogueName(target), target.targetCount);
     }
 
     public static boolean taskExists(String name) {
         return _nameToResourceTask.containsKey(name);
     }
 
-    public static Collection<String> resourceNames() {
-        return _nameToResourceTask.keySet();
+    /**
+     * @return Every catalogue name (aliases included), sorted.
+     */
+    public static List<String> resourceNames() {
+        return _sortedNames;
     }
 
     private static <T> CataloguedResource simple(String name, Item[] matches, Function<Integer, ResourceTask> getTask) {
@@ -525,10 +596,12 @@ public class TaskCatalogue {
 
     private static CataloguedResource shapedRecipe2x2(String name, Item[] matches, int outputCount, String s0, String s1, String s2, String s3) {
         CraftingRecipe recipe = CraftingRecipe.newShapedRecipe(name, new ItemTarget[] {t(s0), t(s1), t(s2), t(s3)}, outputCount);
+        _nameToRecipe.put(name, recipe);
         return put(name, matches, count -> new CraftInInventoryTask(new ItemTarget(matches, count), recipe));
     }
     private static CataloguedResource shapedRecipe3x3(String name, Item[] matches, int outputCount, String s0, String s1, String s2, String s3, String s4, String s5, String s6, String s7, String s8) {
         CraftingRecipe recipe = CraftingRecipe.newShapedRecipe(name, new ItemTarget[] {t(s0), t(s1), t(s2), t(s3), t(s4), t(s5), t(s6), t(s7), t(s8)}, outputCount);
+        _nameToRecipe.put(name, recipe);
         return put(name, matches, count -> new CraftInTableTask(new ItemTarget(matches, count), recipe));
     }
     private static CataloguedResource shapedRecipe2x2(String name, Item match, int craftCount, String s0, String s1, String s2, String s3) {
@@ -551,6 +624,7 @@ public class TaskCatalogue {
     }
 
     private static CataloguedResource smelt(String name, Item[] matches, String materials) {
+        _nameToSmeltMaterial.put(name, materials);
         return put(name, matches, count -> new SmeltInFurnaceTask(new SmeltTarget(new ItemTarget(matches, count), new ItemTarget(materials, count))));
     }
     private static CataloguedResource smelt(String name, Item match, String materials) {
@@ -575,7 +649,7 @@ public class TaskCatalogue {
     private static CataloguedResource crop(String name, Item[] matches, Block[] cropBlocks, Item[] cropSeeds) {
         return put(name, matches, count -> new CollectCropTask(new ItemTarget(matches, count), cropBlocks, cropSeeds));
     }
-    public static CataloguedResource crop(String name, Item match, Block cropBlock, Item cropSeed) {
+    private static CataloguedResource crop(String name, Item match, Block cropBlock, Item cropSeed) {
         return crop(name, new Item[]{match}, new Block[]{cropBlock}, new Item[]{cropSeed});
     }
 
@@ -629,12 +703,15 @@ public class TaskCatalogue {
     }
 
     private static void alias(String newName, String original) {
+        _aliases.add(newName);
         _nameToResourceTask.put(newName, _nameToResourceTask.get(original));
         _nameToItemMatches.put(newName, _nameToItemMatches.get(original));
     }
 
     private static ItemTarget t(String cataloguedName) {
-        return new ItemTarget(cataloguedName);
+        if (cataloguedName == null) return new ItemTarget((String) null);
+        // Copy, targetCount is public and recipes shouldn't be able to change each other's slots.
+        return new ItemTarget(_templates.computeIfAbsent(cataloguedName, ItemTarget::new));
     }
 
     private static class CataloguedResource {
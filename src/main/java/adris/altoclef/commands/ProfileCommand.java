@@ -0,0 +1,60 @@
+package adris.altoclef.commands;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.commandsystem.Arg;
+import adris.altoclef.commandsystem.ArgParser;
+import adris.altoclef.commandsystem.Command;
+import adris.altoclef.commandsystem.CommandException;
+import adris.altoclef.ui.MessagePriority;
+import adris.altoclef.util.TickProfiler;
+
+import java.io.File;
+import java.util.Map;
+
+public class ProfileCommand extends Command {
+    public ProfileCommand() throws CommandException {
+        super("profile", "Tick profiler. \"start\", \"stop\", \"reset\", \"dump\" (writes flame graph data), or nothing to print the heaviest frames.", new Arg(String.class, "action", null, 0));
+    }
+
+    @Override
+    protected void Call(AltoClef mod, ArgParser parser) throws CommandException {
+        String action = parser.Get(String.class);
+        TickProfiler profiler = mod.getTickProfiler();
+        if (action == null) {
+            if (!profiler.isEnabled() && profiler.getWindowSize() == 0) {
+                mod.log("Profiler is off. Start it with \"profile start\".");
+            } else {
+                mod.log("HEAVIEST FRAMES over the last " + profiler.getWindowSize() + " ticks:", MessagePriority.OPTIONAL);
+                for (Map.Entry<String, Double> frame : profiler.getHeaviestFrames(10)) {
+                    mod.log(String.format("%s: %.2fms", frame.getKey(), frame.getValue()), MessagePriority.OPTIONAL);
+                }
+            }
+            finish();
+            return;
+        }
+        switch (action.toLowerCase()) {
+            case "start":
+                profiler.setEnabled(true);
+                mod.log("Profiler started.");
+                break;
+            case "stop":
+                profiler.setEnabled(false);
+                mod.log("Profiler stopped. Its data is kept until \"profile reset\".");
+                break;
+            case "reset":
+                profiler.reset();
+                mod.log("Profiler reset.");
+                break;
+            case "dump":
+                File file = profiler.dump();
+                if (file != null) {
+                    mod.log("Wrote flame graph data to \"" + file.getAbsolutePath() + "\"");
+                }
+                break;
+            default:
+                mod.logWarning("Unknown action \"" + action + "\". Options are: start, stop, reset, dump");
+                break;
+        }
+        finish();
+    }
+}
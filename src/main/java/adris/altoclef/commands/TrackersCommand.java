@@ -0,0 +1,56 @@
+package adris.altoclef.commands;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.commandsystem.Arg;
+import adris.altoclef.commandsystem.ArgParser;
+import adris.altoclef.commandsystem.Command;
+import adris.altoclef.commandsystem.CommandException;
+import adris.altoclef.trackers.Tracker;
+import adris.altoclef.trackers.TrackerTimings;
+import adris.altoclef.ui.MessagePriority;
+
+public class TrackersCommand extends Command {
+    public TrackersCommand() throws CommandException {
+        super("trackers", "Prints how long each tracker takes to update. Pass \"reset\" to clear the timings.", new Arg(String.class, "reset", null, 0));
+    }
+
+    @Override
+    protected void Call(AltoClef mod, ArgParser parser) throws CommandException {
+        String arg = parser.Get(String.class);
+        if (arg != null) {
+            if (arg.equalsIgnoreCase("reset")) {
+                for (Tracker tracker : mod.getTrackerManager().getTrackers()) {
+                    tracker.getTimings().reset();
+                }
+                mod.log("Tracker timings reset.");
+            } else {
+                mod.logWarning("Unknown argument \"" + arg + "\". The only option is \"reset\".");
+            }
+            finish();
+            return;
+        }
+
+        int budget = mod.getModSettings().getTrackerUpdateBudgetMicros();
+        mod.log("TRACKERS (budget: " + (budget > 0 ? budget + "us/tick" : "none") + "):", MessagePriority.OPTIONAL);
+        for (Tracker tracker : mod.getTrackerManager().getTrackers()) {
+            TrackerTimings timings = tracker.getTimings();
+            String policy = tracker.getUpdatePolicy().toString().toLowerCase();
+            if (tracker.getUpdatePolicy() == Tracker.UpdatePolicy.EVERY_N_TICKS) {
+                policy += " (" + tracker.getUpdateInterval() + ")";
+            }
+            if (tracker.isLowPriority()) {
+                policy += ", low priority";
+            }
+            mod.log(String.format("%s [%s]: %d updates, avg %.1fus, p50 <%dus, p99 <%dus, max %.1fus, total %.1fms, deferred %d ticks",
+                    tracker.getName(), policy,
+                    timings.getCount(), timings.getAverageMicros(),
+                    timings.getPercentileMicros(0.5), timings.getPercentileMicros(0.99),
+                    timings.getMaxMicros(), timings.getTotalMillis(), timings.getDeferredTicks()), MessagePriority.OPTIONAL);
+            String histogram = timings.getHistogramString();
+            if (!histogram.isEmpty()) {
+                mod.log("    " + histogram, MessagePriority.OPTIONAL);
+            }
+        }
+        finish();
+    }
+}
@@ -0,0 +1,31 @@
+package adris.altoclef.mixins;
+
+import adris.altoclef.StaticMixinHookups;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.utils.IPlayerContext;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// Baritone's own mob avoidance lives in here, so this is where we add ours.
+@Mixin(value = Favoring.class, remap = false)
+public class FavoringMixin {
+
+    @Shadow
+    @Final
+    private Long2DoubleOpenHashMap favorings;
+
+    @Inject(
+            method = "<init>(Lbaritone/api/utils/IPlayerContext;Lbaritone/api/pathing/calc/IPath;Lbaritone/pathing/movement/CalculationContext;)V",
+            at = @At("RETURN")
+    )
+    private void onCreate(IPlayerContext ctx, IPath previous, CalculationContext context, CallbackInfo ci) {
+        StaticMixinHookups.onPathFavoringCreated(favorings);
+    }
+}
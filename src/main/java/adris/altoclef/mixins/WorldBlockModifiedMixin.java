@@ -21,6 +21,10 @@ public class WorldBlockModifiedMixin {
         if (!hasBlock(oldBlock, pos) && hasBlock(newBlock, pos)) {
             StaticMixinHookups.onBlockPlaced(pos, newBlock);
         }
+        // Singleplayer has a server world too, we only care about what our client sees.
+        if (((World) (Object) this).isClient) {
+            StaticMixinHookups.onBlockChanged(pos, oldBlock, newBlock);
+        }
     }
 
     private static boolean hasBlock(BlockState state, BlockPos pos) {
@@ -4,10 +4,13 @@ import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
 import adris.altoclef.tasks.misc.TimeoutWanderTask;
 import adris.altoclef.tasksystem.Task;
+import adris.altoclef.util.baritone.PathCostRanker;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalNear;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 
-import java.util.HashMap;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * https://www.notion.so/Closest-threshold-ing-system-utility-c3816b880402494ba9209c9f9b62b8bf
@@ -16,10 +19,17 @@ import java.util.Optional;
  */
 public abstract class AbstractDoToClosestObjectTask<T> extends Task {
 
+    // How long a real path cost is good for. Targets move and the world changes.
+    private static final double PATH_COST_TTL = 5;
+    // Only switch to another target if its path is at least this many ticks shorter, so we don't flip flop.
+    private static final double PATH_COST_SWITCH_MARGIN = 20;
+
     private T _currentlyPursuing = null;
 
     private final HashMap<T, Double> _heuristicMap = new HashMap<>();
 
+    private final PathCostRanker<T> _ranker = new PathCostRanker<>(PATH_COST_TTL);
+
     protected abstract Vec3d getPos(AltoClef mod, T obj);
     protected abstract T getClosestTo(AltoClef mod, Vec3d pos);
     protected abstract Vec3d getOriginPos(AltoClef mod);
@@ -33,11 +43,23 @@ public abstract class AbstractDoToClosestObjectTask<T> extends Task {
         return new TimeoutWanderTask(true);
     }
 
+    // Virtual: the closest few objects, closest first. By default we only know the closest one.
+    protected List<T> getClosestCandidates(AltoClef mod, Vec3d pos, int count) {
+        T closest = getClosestTo(mod, pos);
+        return closest == null ? Collections.emptyList() : Collections.singletonList(closest);
+    }
+
+    // Virtual: where we path to when working out the real cost of getting to an object.
+    protected Goal getPathCostGoal(AltoClef mod, T obj) {
+        return new GoalNear(new BlockPos(getPos(mod, obj)), 1);
+    }
+
     private Task _goalTask = null;
 
     public void resetSearch() {
         _currentlyPursuing = null;
         _heuristicMap.clear();
+        _ranker.clear();
         _goalTask = null;
     }
     public boolean wasWandering() {return _wasWandering;}
@@ -51,6 +73,45 @@ public abstract class AbstractDoToClosestObjectTask<T> extends Task {
         return _goalTask != null;// && _goalTask.isActive() && !_goalTask.isFinished(mod);
     }
 
+    /**
+     * Picks whichever candidate has the cheapest real path, out of the ones we know the cost of.
+     *
+     * @return null if we don't know enough yet (or there's nothing to choose between), in which case we go off of
+     * straight line distance like before.
+     */
+    private T getCheapestToReach(AltoClef mod) {
+        int count = mod.getModSettings().getClosestObjectPathCandidates();
+        if (count <= 1) return null;
+        List<T> candidates = new ArrayList<>(getClosestCandidates(mod, getOriginPos(mod), count));
+        if (_currentlyPursuing != null && !candidates.contains(_currentlyPursuing)) {
+            candidates.add(_currentlyPursuing);
+        }
+        if (candidates.size() <= 1) return null;
+
+        BlockPos from = mod.getPlayer().getBlockPos();
+        T best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (T candidate : candidates) {
+            Double cost = _ranker.getCost(candidate, from);
+            if (cost == null) {
+                _ranker.request(mod, candidate, getPathCostGoal(mod, candidate));
+                continue;
+            }
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = candidate;
+            }
+        }
+        if (best == null) return null;
+        if (_currentlyPursuing != null && !best.equals(_currentlyPursuing)) {
+            Double currentCost = _ranker.getCost(_currentlyPursuing, from);
+            // Wait until we know what we're giving up.
+            if (currentCost == null) return null;
+            if (currentCost - bestCost < PATH_COST_SWITCH_MARGIN) return _currentlyPursuing;
+        }
+        return best;
+    }
+
     @Override
     protected Task onTick(AltoClef mod) {
 
@@ -66,6 +127,16 @@ public abstract class AbstractDoToClosestObjectTask<T> extends Task {
         // Get closest object
         T newClosest = getClosestTo(mod, getOriginPos(mod));
 
+        // If we know real path costs, they beat straight line distance.
+        T cheapest = getCheapestToReach(mod);
+        if (cheapest != null) {
+            if (!cheapest.equals(_currentlyPursuing)) {
+                setDebugState("Going for the cheapest path");
+            }
+            _currentlyPursuing = cheapest;
+            newClosest = cheapest;
+        }
+
         // Receive closest object and position
         if (newClosest != null && !newClosest.equals(_currentlyPursuing)) {
             // Different closest object
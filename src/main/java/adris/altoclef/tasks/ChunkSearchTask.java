@@ -3,6 +3,7 @@ package adris.altoclef.tasks;
 import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
 import adris.altoclef.tasksystem.Task;
+import adris.altoclef.util.ChunkFrontier;
 import adris.altoclef.util.csharpisbetter.ActionListener;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
@@ -27,7 +28,10 @@ public abstract class ChunkSearchTask extends Task {
     private Set<ChunkPos> _consideredAlready = new HashSet<>();
     // We definitely were searched before.
     private Set<ChunkPos> _searchedAlready = new HashSet<>();
-    private ArrayList<ChunkPos> _searchLater = new ArrayList<>();
+    // Scored by getChunkScore. Scores only get redone when we cross into another chunk, see getBestChunk.
+    private final ChunkFrontier _searchLater = new ChunkFrontier();
+    private ChunkPos _scoredFrom = null;
+    private boolean _scoresDirty = false;
 
     private ArrayList<ChunkPos> _justLoaded = new ArrayList<>();
 
@@ -44,6 +48,17 @@ public abstract class ChunkSearchTask extends Task {
         return _searchedAlready;
     }
 
+    /**
+     * Virtual: names what we're searching for ("nether_fortress"), so scan results are shared with every other
+     * search for the same thing and remembered across sessions (see ExploredChunkTracker).
+     *
+     * Only return a key if `isChunkPartOfSearchSpace` gives the same answer no matter which task asks.
+     * Null means we don't share anything.
+     */
+    protected String getSearchSpaceKey() {
+        return null;
+    }
+
     private ActionListener<WorldChunk> chunkLoadEvent = new ActionListener<WorldChunk>() {
         @Override
         public void invoke(WorldChunk value) {
@@ -87,10 +102,10 @@ public abstract class ChunkSearchTask extends Task {
         synchronized (_searchMutex) {
             // Search all items from _justLoaded that we ought to search.
             for (ChunkPos justLoaded : _justLoaded) {
-                if (_searchLater.contains(justLoaded)) {
+                if (_searchLater.contains(justLoaded.toLong())) {
                     // Search this one. If we succeed, we no longer need to search.
                     if (trySearchChunk(mod, justLoaded)) {
-                        _searchLater.remove(justLoaded);
+                        _searchLater.remove(justLoaded.toLong());
                     }
                 }
             }
@@ -98,7 +113,7 @@ public abstract class ChunkSearchTask extends Task {
         }
 
         // Now that we have an updated map, go to the nearest
-        ChunkPos closest = getBestChunk(mod, _searchLater);
+        ChunkPos closest = getBestChunk(mod);
 
         if (closest == null) {
             _finished = true;
@@ -110,22 +125,32 @@ public abstract class ChunkSearchTask extends Task {
         return new GetToChunkTask(closest);
     }
 
-    // Virtual
-    protected ChunkPos getBestChunk(AltoClef mod, List<ChunkPos> chunks) {
-        double lowestScore = Double.POSITIVE_INFINITY;
-        ChunkPos bestChunk = null;
-        for (ChunkPos toSearch : chunks) {
-            double cx = (toSearch.getStartX() + toSearch.getEndX() + 1) / 2.0, cz = (toSearch.getStartZ() + toSearch.getEndZ() + 1) / 2.0;
-            double px = mod.getPlayer().getX(), pz = mod.getPlayer().getZ();
-            double distanceSq = (cx - px) * (cx - px) + (cz - pz) * (cz - pz);
-            double distanceToCenterSq = new Vec3d(_startPoint.getX() - cx, 0, _startPoint.getZ() - cz).lengthSquared();
-            double score = distanceSq + distanceToCenterSq*0.8;
-            if (score < lowestScore) {
-                lowestScore = score;
-                bestChunk = toSearch;
-            }
+    private ChunkPos getBestChunk(AltoClef mod) {
+        // Scores depend on where we are, but only change meaningfully once we're in another chunk.
+        ChunkPos playerChunk = new ChunkPos(mod.getPlayer().getBlockPos());
+        if (_scoresDirty || !playerChunk.equals(_scoredFrom)) {
+            _searchLater.rescoreAll(chunk -> getChunkScore(mod, new ChunkPos(chunk)));
+            _scoredFrom = playerChunk;
+            _scoresDirty = false;
         }
-        return bestChunk;
+        if (_searchLater.isEmpty()) return null;
+        return new ChunkPos(_searchLater.peek());
+    }
+
+    // Virtual: lower means we'd rather go there next.
+    protected double getChunkScore(AltoClef mod, ChunkPos toSearch) {
+        double cx = (toSearch.getStartX() + toSearch.getEndX() + 1) / 2.0, cz = (toSearch.getStartZ() + toSearch.getEndZ() + 1) / 2.0;
+        double px = mod.getPlayer().getX(), pz = mod.getPlayer().getZ();
+        double distanceSq = (cx - px) * (cx - px) + (cz - pz) * (cz - pz);
+        double distanceToCenterSq = new Vec3d(_startPoint.getX() - cx, 0, _startPoint.getZ() - cz).lengthSquared();
+        return distanceSq + distanceToCenterSq*0.8;
+    }
+
+    /**
+     * Call when something getChunkScore depends on changed (other than us moving), so every chunk gets rescored.
+     */
+    public void invalidateChunkScores() {
+        _scoresDirty = true;
     }
 
     @Override
@@ -135,7 +160,7 @@ public abstract class ChunkSearchTask extends Task {
 
     @Override
     public boolean isFinished(AltoClef mod) {
-        return _searchLater.size() == 0;
+        return _searchLater.isEmpty();
     }
 
     @Override
@@ -158,7 +183,7 @@ public abstract class ChunkSearchTask extends Task {
         if (!trySearchChunk(mod, pos)) {
             // We'll check it later if we haven't searched it.
             if (!_searchedAlready.contains(pos)) {
-                _searchLater.add(pos);
+                _searchLater.put(pos.toLong(), getChunkScore(mod, pos));
             }
         }
     }
@@ -174,9 +199,14 @@ public abstract class ChunkSearchTask extends Task {
         if (_searchedAlready.contains(pos)) {
             return true;
         }
+        String key = getSearchSpaceKey();
         if (mod.getChunkTracker().isChunkLoaded(pos)) {
             _searchedAlready.add(pos);
-            if (isChunkPartOfSearchSpace(mod, pos)) {
+            boolean inSearchSpace = isChunkPartOfSearchSpace(mod, pos);
+            if (key != null) {
+                mod.getExploredChunkTracker().recordScan(key, pos, inSearchSpace);
+            }
+            if (inSearchSpace) {
                 // This chunk may lead to more, so either search or enqueue its neighbors.
                 searchChunkOrQueueSearch(mod, new ChunkPos(pos.x + 1, pos.z));
                 searchChunkOrQueueSearch(mod, new ChunkPos(pos.x - 1, pos.z));
@@ -185,6 +215,11 @@ public abstract class ChunkSearchTask extends Task {
             }
             return true;
         }
+        // We've been here before and it wasn't what we're looking for, no need to walk over and check again.
+        if (key != null && mod.getExploredChunkTracker().wasScanned(key, pos) && !mod.getExploredChunkTracker().wasInSearchSpace(key, pos)) {
+            _searchedAlready.add(pos);
+            return true;
+        }
         return false;
     }
 
@@ -2,7 +2,10 @@ package adris.altoclef.tasks;
 
 import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
+import adris.altoclef.tasks.chest.PickupFromChestTask;
 import adris.altoclef.tasksystem.Task;
+import adris.altoclef.trackers.ContainerTracker;
+import adris.altoclef.util.CraftingPlanner;
 import adris.altoclef.util.CraftingRecipe;
 import adris.altoclef.util.ItemTarget;
 import adris.altoclef.TaskCatalogue;
@@ -16,9 +19,11 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.screen.CraftingScreenHandler;
 import net.minecraft.screen.PlayerScreenHandler;
 import net.minecraft.screen.ScreenHandler;
+import net.minecraft.util.math.BlockPos;
 import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.HashMap;
+import java.util.List;
 
 // Collects everything that's catalogued for a recipe.
 public class CollectRecipeCataloguedResourcesTask extends Task {
@@ -28,6 +33,11 @@ public class CollectRecipeCataloguedResourcesTask extends Task {
     private boolean _finished = false;
     private final boolean _ignoreUncataloguedSlots;
 
+    // Cached until our inventory or known chests change
+    private List<CraftingPlanner.Step> _plan = null;
+    private int _planInventoryVersion;
+    private int _planChestVersion;
+
     public CollectRecipeCataloguedResourcesTask(boolean ignoreUncataloguedSlots, RecipeTarget ...targets) {
         _targets = targets;
         _ignoreUncataloguedSlots = ignoreUncataloguedSlots;
@@ -36,12 +46,50 @@ public class CollectRecipeCataloguedResourcesTask extends Task {
     @Override
     protected void onStart(AltoClef mod) {
         _finished = false;
+        _plan = null;
     }
 
     @Override
     protected Task onTick(AltoClef mod) {
-        // TODO: Cache this once instead of doing it every frame.
+        // Only replan when something we'd plan around changed.
+        int inventoryVersion = mod.getInventoryTracker().getChangeVersion();
+        int chestVersion = mod.getContainerTracker().getChestMap().getChangeVersion();
+        if (_plan == null || inventoryVersion != _planInventoryVersion || chestVersion != _planChestVersion) {
+            _plan = CraftingPlanner.plan(getCatalogueCount(mod), name -> getAvailable(mod, name));
+            _planInventoryVersion = inventoryVersion;
+            _planChestVersion = chestVersion;
+        }
+
+        // Dependencies come first, so by the time we get to something its materials are already in hand.
+        ContainerTracker.ChestMap chests = mod.getContainerTracker().getChestMap();
+        for (CraftingPlanner.Step step : _plan) {
+            ItemTarget itemTarget = new ItemTarget(step.name, step.count);
+            if (mod.getInventoryTracker().targetMet(itemTarget)) continue;
+            // The plan counted nearby chests as available (see getAvailable), so take from those before making anything.
+            // Otherwise the item's own task would make it from scratch and collect its ingredients a second time.
+            double chestRange = mod.getModSettings().getResourceChestLocateRange();
+            if (chestRange > 0) {
+                BlockPos chest = chests.getClosestChestWithItem(mod.getPlayer().getPos(), chestRange, itemTarget);
+                if (chest != null) {
+                    setDebugState("Getting " + itemTarget + " from chest at " + chest.toShortString());
+                    return new PickupFromChestTask(chest, itemTarget);
+                }
+            }
+            if (step.missing <= 0) {
+                // We planned on having these already, but they're gone. Plan again next tick.
+                _plan = null;
+                return null;
+            }
+            setDebugState("Getting " + itemTarget + " (" + step.type + ", missing " + step.missing + ")");
+            return TaskCatalogue.getItemTask(step.name, step.count);
+        }
+        _finished = true;
 
+        return null;
+    }
+
+    // How many of each catalogued ingredient our recipes need directly.
+    private HashMap<String, Integer> getCatalogueCount(AltoClef mod) {
         HashMap<String, Integer> catalogueCount = new HashMap<>();
 
         for (RecipeTarget target : _targets) {
@@ -68,33 +116,26 @@ public class CollectRecipeCataloguedResourcesTask extends Task {
                         }
                     } else {
                         String targetName = slot.getCatalogueName();
-                        if (!catalogueCount.containsKey(targetName)) {
-                            catalogueCount.put(targetName, 0);
-                        }
                         // How many "repeats" of a recipe we will need.
                         int numberOfRepeats = (int) Math.floor(-0.1 + (double) weNeed / target.getRecipe().outputCount()) + 1;
-                        catalogueCount.put(targetName, catalogueCount.get(targetName) + numberOfRepeats);
+                        catalogueCount.put(targetName, catalogueCount.getOrDefault(targetName, 0) + numberOfRepeats);
                     }
                 }
             }
         }
+        return catalogueCount;
+    }
 
-
-        // (Cache this with the above stuff!!)
-        // Grab materials
-        for (String catalogueMaterialName : catalogueCount.keySet()) {
-            int count = catalogueCount.get(catalogueMaterialName);
-            if (count > 0) {
-                ItemTarget itemTarget = new ItemTarget(catalogueMaterialName, count);
-                if (!mod.getInventoryTracker().targetMet(itemTarget)) {
-                    setDebugState("Getting " + itemTarget);
-                    return TaskCatalogue.getItemTask(catalogueMaterialName, count);
-                }
-            }
+    // What we have on us plus what we know is sitting in chests close enough to grab (same range as ResourceTask).
+    private static int getAvailable(AltoClef mod, String name) {
+        Item[] matches = TaskCatalogue.getItemMatches(name);
+        if (matches == null) return 0;
+        int result = mod.getInventoryTracker().getItemCount(matches);
+        double chestRange = mod.getModSettings().getResourceChestLocateRange();
+        if (chestRange > 0) {
+            result += mod.getContainerTracker().getChestMap().getItemCountInChests(mod.getPlayer().getPos(), chestRange, matches);
         }
-        _finished = true;
-
-        return null;
+        return result;
     }
 
 
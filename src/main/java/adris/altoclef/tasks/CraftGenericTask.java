@@ -28,8 +28,12 @@ public class CraftGenericTask extends Task {
     private final CraftingRecipe _recipe;
     private Timer _invTimer;
 
+    // Which item goes in each craft slot, refilled every tick.
+    private final Item[] _assignment;
+
     public CraftGenericTask(CraftingRecipe recipe) {
         _recipe = recipe;
+        _assignment = new Item[recipe.getSlotCount()];
     }
 
     @Override
@@ -66,6 +70,10 @@ public class CraftGenericTask extends Task {
             }
         }
 
+        // Which of our items goes in each slot. Slots that take several items (any planks) get split up properly,
+        // instead of each grabbing the first match and running out of it halfway.
+        Item[] assignment = mod.getInventoryTracker().getCraftSlotAssignment(_recipe, _assignment) ? _assignment : null;
+
         // For each slot in table
         for (int craftSlot = 0; craftSlot < _recipe.getSlotCount(); ++craftSlot) {
             ItemTarget toFill = _recipe.getSlot(craftSlot);
@@ -87,7 +95,12 @@ public class CraftGenericTask extends Task {
             } else {
                 boolean isSatisfied = toFill.matches(present.getItem());
                 if (!isSatisfied) {
-                    List<Integer> validSlots = mod.getInventoryTracker().getInventorySlotsWithItem(toFill.getMatches());
+                    Item wanted = assignment != null ? assignment[craftSlot] : null;
+                    List<Integer> validSlots = wanted != null ? mod.getInventoryTracker().getInventorySlotsWithItem(wanted) : new ArrayList<>();
+                    if (validSlots.size() == 0) {
+                        // Our pick is only in the grid already (or we can't craft this at all), take whatever fits.
+                        validSlots = mod.getInventoryTracker().getInventorySlotsWithItem(toFill.getMatches());
+                    }
                     if (validSlots.size() == 0) {
                         Debug.logWarning("Does not have materials necessary for slot " + craftSlot + " for recipe. Craft failed.");
                         // TODO: Cancel/fail
@@ -98,7 +111,25 @@ public class CraftGenericTask extends Task {
                     // Satisfy this current slot.
                     //Debug.logMessage("NEEDS: " + toFill + " : FOUND: " + mod.getInventoryTracker().getItemStackInSlot(itemToMove).getItem().getTranslationKey());
                     //Debug.logMessage("Moving: " + itemToMove.getWindowSlot() + " -> " + currentCraftSlot.getWindowSlot());
-                    mod.getInventoryTracker().moveItems(itemToMove, currentCraftSlot, 1);
+                    Item moving = mod.getInventoryTracker().getItemStackInSlot(itemToMove).getItem();
+                    if (present.isEmpty()) {
+                        // Fill every other empty slot that wants this item with the same pickup.
+                        List<Slot> toFillWithThis = new ArrayList<>();
+                        toFillWithThis.add(currentCraftSlot);
+                        for (int otherSlot = craftSlot + 1; otherSlot < _recipe.getSlotCount(); ++otherSlot) {
+                            ItemTarget otherTarget = _recipe.getSlot(otherSlot);
+                            if (otherTarget == null || otherTarget.isEmpty() || !otherTarget.matches(moving)) continue;
+                            // Leave it for whatever item it was assigned.
+                            if (assignment != null && assignment[otherSlot] != moving) continue;
+                            Slot other = bigCrafting ? CraftingTableSlot.getInputSlot(otherSlot, _recipe.isBig()) : PlayerSlot.getCraftInputSlot(otherSlot);
+                            if (mod.getInventoryTracker().getItemStackInSlot(other).isEmpty()) {
+                                toFillWithThis.add(other);
+                            }
+                        }
+                        mod.getInventoryTracker().distributeItems(itemToMove, toFillWithThis, 1);
+                    } else {
+                        mod.getInventoryTracker().moveItems(itemToMove, currentCraftSlot, 1);
+                    }
                     if (delayedCraft) return null;
                 }
             }
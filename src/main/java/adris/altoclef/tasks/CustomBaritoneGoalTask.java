@@ -5,6 +5,7 @@ import adris.altoclef.Debug;
 import adris.altoclef.tasks.misc.TimeoutWanderTask;
 import adris.altoclef.tasksystem.ITaskRequiresGrounded;
 import adris.altoclef.tasksystem.Task;
+import adris.altoclef.util.baritone.IUpdatableGoal;
 import adris.altoclef.util.progresscheck.MovementProgressChecker;
 import baritone.api.pathing.goals.Goal;
 
@@ -32,6 +33,11 @@ public abstract class CustomBaritoneGoalTask extends Task implements ITaskRequir
     @Override
     protected Task onTick(AltoClef mod) {
 
+        if (_cachedGoal instanceof IUpdatableGoal) {
+            // Whatever our goal is built from moved, Baritone keeps using the same goal object.
+            ((IUpdatableGoal) _cachedGoal).update();
+        }
+
         if (_wander) {
             if (_wanderTask.isActive() && !_wanderTask.isFinished(mod)) {
                 setDebugState("Wandering...");
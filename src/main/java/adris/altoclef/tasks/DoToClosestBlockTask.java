@@ -4,11 +4,15 @@ import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
 import adris.altoclef.tasksystem.Task;
 import adris.altoclef.util.csharpisbetter.Util;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalGetToBlock;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 
+import java.util.List;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -18,18 +22,26 @@ public class DoToClosestBlockTask extends AbstractDoToClosestObjectTask<BlockPos
 
     private final Supplier<Vec3d> _getOriginPos;
     private final Function<Vec3d, BlockPos> _getClosest;
+    // Null if we only know the closest one.
+    private final BiFunction<Vec3d, Integer, List<BlockPos>> _getClosestCandidates;
 
     private final Function<BlockPos, Task> _getTargetTask;
 
 
     public DoToClosestBlockTask(AltoClef mod, Supplier<Vec3d> getOriginSupplier, Function<BlockPos, Task> getTargetTask, Block ...blocks) {
-        this(getOriginSupplier, getTargetTask, (origin) -> mod.getBlockTracker().getNearestTracking(origin, blocks), blocks);
+        this(getOriginSupplier, getTargetTask, (origin) -> mod.getBlockTracker().getNearestTracking(origin, blocks),
+                (origin, count) -> mod.getBlockTracker().getNearestTracking(origin, count, blocks), blocks);
     }
     public DoToClosestBlockTask(Supplier<Vec3d> getOriginSupplier, Function<BlockPos, Task> getTargetTask, Function<Vec3d, BlockPos> getClosestBlock, Block ...blocks) {
+        this(getOriginSupplier, getTargetTask, getClosestBlock, null, blocks);
+    }
+    private DoToClosestBlockTask(Supplier<Vec3d> getOriginSupplier, Function<BlockPos, Task> getTargetTask, Function<Vec3d, BlockPos> getClosestBlock,
+                                 BiFunction<Vec3d, Integer, List<BlockPos>> getClosestCandidates, Block ...blocks) {
         _getOriginPos = getOriginSupplier;
         _getTargetTask = getTargetTask;
         _targetBlocks = blocks;
         _getClosest = getClosestBlock;
+        _getClosestCandidates = getClosestCandidates;
     }
 
     @Override
@@ -42,6 +54,17 @@ public class DoToClosestBlockTask extends AbstractDoToClosestObjectTask<BlockPos
         return _getClosest.apply(pos);
     }
 
+    @Override
+    protected List<BlockPos> getClosestCandidates(AltoClef mod, Vec3d pos, int count) {
+        if (_getClosestCandidates == null) return super.getClosestCandidates(mod, pos, count);
+        return _getClosestCandidates.apply(pos, count);
+    }
+
+    @Override
+    protected Goal getPathCostGoal(AltoClef mod, BlockPos obj) {
+        return new GoalGetToBlock(obj);
+    }
+
     @Override
     protected Vec3d getOriginPos(AltoClef mod) {
         return _getOriginPos.get();
@@ -6,6 +6,8 @@ import adris.altoclef.util.csharpisbetter.Util;
 import net.minecraft.entity.Entity;
 import net.minecraft.util.math.Vec3d;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -42,6 +44,12 @@ public class DoToClosestEntityTask extends AbstractDoToClosestObjectTask<Entity>
         return mod.getEntityTracker().getClosestEntity(pos, _ignorePredicate, _targetEntities);
     }
 
+    @Override
+    protected List<Entity> getClosestCandidates(AltoClef mod, Vec3d pos, int count) {
+        if (!mod.getEntityTracker().entityFound(_targetEntities)) return Collections.emptyList();
+        return mod.getEntityTracker().getClosestEntities(pos, count, _ignorePredicate, _targetEntities);
+    }
+
     @Override
     protected Vec3d getOriginPos(AltoClef mod) {
         return _getOriginPos.get();
@@ -36,7 +36,7 @@ public class GiveItemToPlayerTask extends Task {
         // Some targets may not exist, so ignore the resources for them!
         List<ItemTarget> result = new ArrayList<>();
         for (ItemTarget target : targets) {
-            if (target.isCatalogueItem()) result.add(target);
+            if (TaskCatalogue.getCatalogueName(target) != null) result.add(target);
         }
         _resourceTask = TaskCatalogue.getSquashedItemTask(Util.toArray(ItemTarget.class, result));
     }
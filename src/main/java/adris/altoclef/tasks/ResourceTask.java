@@ -16,7 +16,6 @@ import net.minecraft.util.math.BlockPos;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 public abstract class ResourceTask extends Task {
 
@@ -101,10 +100,10 @@ public abstract class ResourceTask extends Task {
                 }
             }
         }
-        List<BlockPos> chestsWithItem = mod.getContainerTracker().getChestMap().getBlocksWithItem(_itemTargets);
-        if (!chestsWithItem.isEmpty()) {
-            BlockPos closest = Util.minItem(chestsWithItem, (left, right) -> (int) (right.getSquaredDistance(mod.getPlayer().getPos(), false) - left.getSquaredDistance(mod.getPlayer().getPos(), false)));
-            if (closest.isWithinDistance(mod.getPlayer().getPos(), mod.getModSettings().getResourceChestLocateRange())) {
+        double chestRange = mod.getModSettings().getResourceChestLocateRange();
+        if (chestRange > 0) {
+            BlockPos closest = mod.getContainerTracker().getChestMap().getClosestChestWithItem(mod.getPlayer().getPos(), chestRange, _itemTargets);
+            if (closest != null) {
                 _currentChest = closest;
                 return new PickupFromChestTask(_currentChest, _itemTargets);
             }
@@ -9,7 +9,6 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.chunk.WorldChunk;
 
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 public abstract class SearchChunksExploreTask extends Task {
@@ -29,11 +28,27 @@ public abstract class SearchChunksExploreTask extends Task {
         }
     };
 
-    // Virtual
-    protected ChunkPos getBestChunkOverride(AltoClef mod, List<ChunkPos> chunks) {
+    // Virtual: see ChunkSearchTask.getSearchSpaceKey. With a key, which chunks are part of the search space is shared.
+    protected String getSearchSpaceKey() {
         return null;
     }
 
+    // Virtual: lower means we'd rather search that chunk next. `defaultScore` is ChunkSearchTask's usual score.
+    protected double getChunkScore(AltoClef mod, ChunkPos chunk, double defaultScore) {
+        return defaultScore;
+    }
+
+    /**
+     * Call when something getChunkScore depends on changed (other than us moving).
+     */
+    public void invalidateChunkScores() {
+        synchronized (_searcherMutex) {
+            if (_searcher != null) {
+                _searcher.invalidateChunkScores();
+            }
+        }
+    }
+
     @Override
     protected void onStart(AltoClef mod) {
         _mod = mod;
@@ -53,12 +68,12 @@ public abstract class SearchChunksExploreTask extends Task {
 
             if (_searcher.isActive() && _searcher.isFinished(mod)) {
                 Debug.logWarning("Target object search failed.");
-                _alreadyExplored.addAll(_searcher.getSearchedChunks());
+                onSearchExhausted(mod, _searcher);
                 _searcher = null;
             } else if (_searcher.finished()) {
                 setDebugState("Searching for target object...");
                 Debug.logMessage("Search finished.");
-                _alreadyExplored.addAll(_searcher.getSearchedChunks());
+                onSearchExhausted(mod, _searcher);
                 _searcher = null;
             }
             //Debug.logMessage("wtf: " + (_searcher == null? "(null)" :_searcher.finished()));
@@ -67,6 +82,12 @@ public abstract class SearchChunksExploreTask extends Task {
         }
     }
 
+    private void onSearchExhausted(AltoClef mod, ChunkSearchTask searcher) {
+        // Only for this task. A finished search just means we covered that area, not that our target isn't in it
+        // (we might've been looking for blazes and found none yet), so other tasks are free to search it again.
+        _alreadyExplored.addAll(searcher.getSearchedChunks());
+    }
+
     @Override
     protected void onStop(AltoClef mod, Task interruptTask) {
         mod.getOnChunkLoad().removeListener(chunkLoadEvent);
@@ -118,10 +139,13 @@ public abstract class SearchChunksExploreTask extends Task {
         }
 
         @Override
-        public ChunkPos getBestChunk(AltoClef mod, List<ChunkPos> chunks) {
-            ChunkPos override = getBestChunkOverride(mod, chunks);
-            if (override != null) return override;
-            return super.getBestChunk(mod, chunks);
+        protected String getSearchSpaceKey() {
+            return SearchChunksExploreTask.this.getSearchSpaceKey();
+        }
+
+        @Override
+        protected double getChunkScore(AltoClef mod, ChunkPos chunk) {
+            return SearchChunksExploreTask.this.getChunkScore(mod, chunk, super.getChunkScore(mod, chunk));
         }
 
         @Override
@@ -8,9 +8,8 @@ import adris.altoclef.trackers.ContainerTracker;
 import adris.altoclef.util.ItemTarget;
 import adris.altoclef.util.csharpisbetter.Timer;
 import adris.altoclef.util.csharpisbetter.Util;
-import adris.altoclef.util.slots.FurnaceSlot;
-import adris.altoclef.util.slots.Slot;
-import net.minecraft.item.Item;
+import adris.altoclef.util.slots.ChestSlot;
+import net.minecraft.item.ItemStack;
 import net.minecraft.screen.GenericContainerScreenHandler;
 import net.minecraft.util.math.BlockPos;
 
@@ -38,21 +37,25 @@ public class PickupFromChestTask extends AbstractDoInChestTask {
                 Debug.logWarning("Failed to find valid chest at " + _targetChest + ", hopefully this is handled up the chain!!!");
                 return null;
             }
+            // Grab a batch of stacks at once instead of one per move.
+            int clicksLeft = Math.max(1, mod.getModSettings().getContainerShiftClicksPerMove());
+            boolean big = handler.getRows() == 6;
+            int chestSlots = big ? 54 : 27;
             for (ItemTarget target : _targets) {
-                if (!mod.getInventoryTracker().targetMet(target)) {
-                    for (Item mightMove : target.getMatches()) {
-                        // Pick up all items that might fit our criteria.
-                        if (data.hasItem(mightMove)) {
-                            if (!ResourceTask.ensureInventoryFree(mod)) {
-                                Debug.logWarning("FAILED TO FREE INVENTORY for chest pickup. This is bad.");
-                            } else {
-                                //int maxMove = target.targetCount - mod.getInventoryTracker().getItemCount(target);
-                                Slot itemSlot = data.getItemSlotsWithItem(mightMove).get(0);
-                                mod.getInventoryTracker().grabItem(itemSlot);
-                            }
-                            return null;
-                        }
+                int needed = target.targetCount - mod.getInventoryTracker().getItemCount(target);
+                if (needed <= 0) continue;
+                for (int chestSlot = 0; chestSlot < chestSlots; ++chestSlot) {
+                    if (clicksLeft <= 0 || needed <= 0) return null;
+                    ItemStack stack = handler.getSlot(chestSlot).getStack();
+                    // Pick up all items that might fit our criteria.
+                    if (stack.isEmpty() || !target.matches(stack.getItem())) continue;
+                    if (!ResourceTask.ensureInventoryFree(mod)) {
+                        Debug.logWarning("FAILED TO FREE INVENTORY for chest pickup. This is bad.");
+                        return null;
                     }
+                    mod.getInventoryTracker().grabItem(new ChestSlot(chestSlot, big));
+                    needed -= stack.getCount();
+                    clicksLeft--;
                 }
             }
         }
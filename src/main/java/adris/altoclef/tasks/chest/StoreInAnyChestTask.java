@@ -12,6 +12,7 @@ import net.minecraft.block.Blocks;
 import net.minecraft.item.Items;
 import net.minecraft.util.math.BlockPos;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.function.Predicate;
 
@@ -22,6 +23,14 @@ public class StoreInAnyChestTask extends Task {
 
     private final ItemTarget[] _targets;
 
+    // When what we're storing needs more than one of the chests we know about, haul it all in one trip.
+    private WarehouseTask _warehouseTask = null;
+
+    // Planning sorts every chest we know about, so only redo it when our chests or inventory changed.
+    private int _plannedChestVersion = -1;
+    private int _plannedInventoryVersion = -1;
+    private boolean _needsWarehouse = false;
+
     public StoreInAnyChestTask(ItemTarget ...targets) {
         _targets = targets;
     }
@@ -31,10 +40,34 @@ public class StoreInAnyChestTask extends Task {
         mod.getBlockTracker().trackBlock(Blocks.CHEST);
         _dungeonChests.clear();
         _nonDungeonChests.clear();
+        _warehouseTask = null;
+        _plannedChestVersion = -1;
+        _plannedInventoryVersion = -1;
     }
 
     @Override
     protected Task onTick(AltoClef mod) {
+        if (_warehouseTask != null && _warehouseTask.isActive() && !_warehouseTask.isFinished(mod)) {
+            setDebugState("Storing in multiple chests");
+            return _warehouseTask;
+        }
+        if (_warehouseTask == null) {
+            int chestVersion = mod.getContainerTracker().getChestMap().getChangeVersion();
+            int inventoryVersion = mod.getInventoryTracker().getChangeVersion();
+            if (chestVersion != _plannedChestVersion || inventoryVersion != _plannedInventoryVersion) {
+                _plannedChestVersion = chestVersion;
+                _plannedInventoryVersion = inventoryVersion;
+                WarehousePlan plan = WarehousePlan.plan(mod, mod.getPlayer().getPos(), WarehousePlan.getInventoryAmounts(mod, _targets),
+                        Collections.emptyMap(), mod.getModSettings().getResourceChestLocateRange(), Collections.emptySet());
+                _needsWarehouse = plan.getStops().size() > 1;
+            }
+            if (_needsWarehouse) {
+                setDebugState("Storing in multiple chests");
+                _warehouseTask = WarehouseTask.deposit(_targets);
+                return _warehouseTask;
+            }
+        }
+
         Predicate<BlockPos> invalidChest = chest -> {
             ContainerTracker.ChestData data = mod.getContainerTracker().getChestMap().getCachedChestData(chest);
             if (data != null && data.isFull()) return true;
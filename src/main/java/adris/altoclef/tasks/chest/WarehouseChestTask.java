@@ -0,0 +1,170 @@
+package adris.altoclef.tasks.chest;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.Debug;
+import adris.altoclef.tasks.ResourceTask;
+import adris.altoclef.tasksystem.Task;
+import adris.altoclef.util.csharpisbetter.Timer;
+import adris.altoclef.util.slots.ChestSlot;
+import adris.altoclef.util.slots.Slot;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.GenericContainerScreenHandler;
+import net.minecraft.screen.slot.SlotActionType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Does everything a WarehousePlan wants done at one chest.
+ *
+ * Whole stacks are shift-clicked in batches with no delay between them, only partial stacks go through `moveItems`.
+ * Shift clicking also tops up partial stacks on the other side for us.
+ */
+public class WarehouseChestTask extends AbstractDoInChestTask {
+
+    private final WarehousePlan.Stop _stop;
+
+    // What's left to move. Starts as the stop's plan and counts down as we click.
+    private final HashMap<Item, Integer> _depositsLeft = new HashMap<>();
+    private final HashMap<Item, Integer> _withdrawalsLeft = new HashMap<>();
+
+    private final Timer _actionTimer = new Timer(0);
+
+    private boolean _finished = false;
+
+    public WarehouseChestTask(WarehousePlan.Stop stop) {
+        super(stop.getChest());
+        _stop = stop;
+    }
+
+    public WarehousePlan.Stop getStop() {
+        return _stop;
+    }
+
+    @Override
+    protected void onStart(AltoClef mod) {
+        super.onStart(mod);
+        _depositsLeft.clear();
+        _depositsLeft.putAll(_stop.getDeposits());
+        _withdrawalsLeft.clear();
+        _withdrawalsLeft.putAll(_stop.getWithdrawals());
+        _finished = false;
+    }
+
+    @Override
+    protected Task doToOpenChestTask(AltoClef mod, GenericContainerScreenHandler handler) {
+        _actionTimer.setInterval(mod.getModSettings().getContainerItemMoveDelay());
+        if (!_actionTimer.elapsed()) return null;
+        _actionTimer.reset();
+
+        int clicksLeft = Math.max(1, mod.getModSettings().getContainerShiftClicksPerMove());
+        boolean big = handler.getRows() == 6;
+        int chestSlots = big ? 54 : 27;
+
+        // Deposits first, so there's room in our inventory for withdrawals.
+        for (Map.Entry<Item, Integer> deposit : _depositsLeft.entrySet()) {
+            if (deposit.getValue() <= 0) continue;
+            List<Integer> inventorySlots = mod.getInventoryTracker().getInventorySlotsWithItem(deposit.getKey());
+            for (int inventorySlot : inventorySlots) {
+                if (clicksLeft <= 0 || deposit.getValue() <= 0) break;
+                if (inventorySlot < 0) continue;
+                Slot from = Slot.getFromInventory(inventorySlot);
+                ItemStack stack = mod.getInventoryTracker().getItemStackInSlot(from);
+                if (stack.isEmpty()) continue;
+                if (stack.getCount() <= deposit.getValue()) {
+                    mod.getInventoryTracker().clickSlot(from, SlotActionType.QUICK_MOVE);
+                    deposit.setValue(deposit.getValue() - stack.getCount());
+                    clicksLeft--;
+                } else {
+                    // Only part of this stack goes in, that takes a few clicks so call it a move.
+                    int target = findDepositSlot(handler, chestSlots, stack);
+                    if (target == -1) {
+                        Debug.logMessage("Chest at " + _stop.getChest().toShortString() + " ran out of room, moving on.");
+                        _finished = true;
+                        return null;
+                    }
+                    int moved = mod.getInventoryTracker().moveItems(from, new ChestSlot(target, big), deposit.getValue());
+                    deposit.setValue(deposit.getValue() - moved);
+                    return null;
+                }
+            }
+            if (clicksLeft <= 0) return null;
+            // Nothing more in our inventory to put in.
+            if (deposit.getValue() > 0 && mod.getInventoryTracker().getItemCount(deposit.getKey()) == 0) {
+                deposit.setValue(0);
+            }
+        }
+
+        for (Map.Entry<Item, Integer> withdrawal : _withdrawalsLeft.entrySet()) {
+            if (withdrawal.getValue() <= 0) continue;
+            boolean found = false;
+            for (int chestSlot = 0; chestSlot < chestSlots; ++chestSlot) {
+                if (clicksLeft <= 0 || withdrawal.getValue() <= 0) break;
+                ItemStack stack = handler.getSlot(chestSlot).getStack();
+                if (stack.isEmpty() || stack.getItem() != withdrawal.getKey()) continue;
+                found = true;
+                if (!ResourceTask.ensureInventoryFree(mod)) {
+                    Debug.logWarning("Failed to free inventory for warehouse withdrawal, moving on.");
+                    _finished = true;
+                    return null;
+                }
+                // Taking the whole stack even if it's a bit more than we need saves clicks.
+                mod.getInventoryTracker().clickSlot(new ChestSlot(chestSlot, big), SlotActionType.QUICK_MOVE);
+                withdrawal.setValue(withdrawal.getValue() - stack.getCount());
+                clicksLeft--;
+            }
+            if (clicksLeft <= 0) return null;
+            if (!found) {
+                // Someone took it before we got here.
+                withdrawal.setValue(0);
+            }
+        }
+
+        if (allDone(_depositsLeft) && allDone(_withdrawalsLeft)) {
+            _finished = true;
+        }
+        return null;
+    }
+
+    private static int findDepositSlot(GenericContainerScreenHandler handler, int chestSlots, ItemStack toStore) {
+        int empty = -1;
+        for (int slot = 0; slot < chestSlots; ++slot) {
+            ItemStack stack = handler.getSlot(slot).getStack();
+            if (stack.isEmpty()) {
+                if (empty == -1) empty = slot;
+            } else if (stack.isItemEqual(toStore) && stack.getCount() < stack.getMaxCount()) {
+                // Partial stack of the same thing, fill that first.
+                return slot;
+            }
+        }
+        return empty;
+    }
+
+    private static boolean allDone(Map<Item, Integer> left) {
+        for (int count : left.values()) {
+            if (count > 0) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isFinished(AltoClef mod) {
+        return _finished;
+    }
+
+    @Override
+    protected boolean isSubEqual(AbstractDoInChestTask obj) {
+        if (obj instanceof WarehouseChestTask) {
+            WarehouseChestTask task = (WarehouseChestTask) obj;
+            return task._stop.getDeposits().equals(_stop.getDeposits()) && task._stop.getWithdrawals().equals(_stop.getWithdrawals());
+        }
+        return false;
+    }
+
+    @Override
+    protected String toDebugString() {
+        return "Warehouse stop: " + _stop;
+    }
+}
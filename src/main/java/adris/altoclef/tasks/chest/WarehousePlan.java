@@ -0,0 +1,262 @@
+package adris.altoclef.tasks.chest;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.trackers.ContainerTracker;
+import adris.altoclef.util.ItemTarget;
+import net.minecraft.item.Item;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.*;
+
+/**
+ * Plans moving a bunch of items in/out of many known chests at once.
+ *
+ * Picks which chests to use for each item (chests we're already visiting first, then chests that already hold
+ * the item so partial stacks get topped up, then the closest), then orders the visits so we walk as little as possible.
+ *
+ * Only uses chests we know the contents of (see ContainerTracker.ChestMap).
+ */
+public class WarehousePlan {
+
+    private final List<Stop> _stops;
+
+    // Whatever we couldn't fit anywhere/couldn't find anywhere
+    private final Map<Item, Integer> _leftoverDeposits;
+    private final Map<Item, Integer> _leftoverWithdrawals;
+
+    private WarehousePlan(List<Stop> stops, Map<Item, Integer> leftoverDeposits, Map<Item, Integer> leftoverWithdrawals) {
+        _stops = stops;
+        _leftoverDeposits = leftoverDeposits;
+        _leftoverWithdrawals = leftoverWithdrawals;
+    }
+
+    public List<Stop> getStops() {
+        return _stops;
+    }
+
+    public boolean isEmpty() {
+        return _stops.isEmpty();
+    }
+
+    /**
+     * @return Whether every deposit and withdrawal found a chest.
+     */
+    public boolean isComplete() {
+        return _leftoverDeposits.isEmpty() && _leftoverWithdrawals.isEmpty();
+    }
+
+    public Map<Item, Integer> getLeftoverDeposits() {
+        return _leftoverDeposits;
+    }
+
+    public Map<Item, Integer> getLeftoverWithdrawals() {
+        return _leftoverWithdrawals;
+    }
+
+    /**
+     * @return How many of each item we'd put away to store `targets` from our inventory.
+     */
+    public static Map<Item, Integer> getInventoryAmounts(AltoClef mod, ItemTarget ...targets) {
+        HashMap<Item, Integer> result = new HashMap<>();
+        for (ItemTarget target : targets) {
+            int left = target.targetCount;
+            for (Item match : target.getMatches()) {
+                if (left <= 0) break;
+                int store = Math.min(left, mod.getInventoryTracker().getItemCount(match) - result.getOrDefault(match, 0));
+                if (store > 0) {
+                    result.put(match, result.getOrDefault(match, 0) + store);
+                    left -= store;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param start       Where we're starting from
+     * @param deposits    How many of each item to put away
+     * @param withdrawals How many of each item to take out
+     * @param range       Ignore chests further than this from `start`. Negative means no limit.
+     * @param skip        Chests to leave out (already visited, unreachable etc.)
+     */
+    public static WarehousePlan plan(AltoClef mod, Vec3d start, Map<Item, Integer> deposits, Map<Item, Integer> withdrawals, double range, Set<BlockPos> skip) {
+        ContainerTracker.ChestMap chests = mod.getContainerTracker().getChestMap();
+
+        LinkedHashMap<BlockPos, Stop> stops = new LinkedHashMap<>();
+        // How many slots each chest will have taken up once we're done with it
+        HashMap<BlockPos, Integer> occupied = new HashMap<>();
+
+        Map<Item, Integer> leftoverWithdrawals = new HashMap<>();
+        for (Map.Entry<Item, Integer> withdrawal : withdrawals.entrySet()) {
+            Item item = withdrawal.getKey();
+            int needed = withdrawal.getValue();
+            if (needed <= 0) continue;
+            List<BlockPos> candidates = getCandidates(chests.getBlocksWithItem(item), start, range, skip, stops, null, null);
+            for (BlockPos pos : candidates) {
+                if (needed <= 0) break;
+                ContainerTracker.ChestData data = chests.getCachedChestData(pos);
+                int take = Math.min(needed, data.getItemCount(item));
+                if (take <= 0) continue;
+                getStop(stops, pos).addWithdrawal(item, take);
+                needed -= take;
+            }
+            if (needed > 0) {
+                leftoverWithdrawals.put(item, needed);
+            }
+        }
+
+        Map<Item, Integer> leftoverDeposits = new HashMap<>();
+        List<BlockPos> known = chests.getKnownChests();
+        for (Map.Entry<Item, Integer> deposit : deposits.entrySet()) {
+            Item item = deposit.getKey();
+            int toStore = deposit.getValue();
+            if (toStore <= 0) continue;
+            int maxCount = item.getMaxCount();
+            List<BlockPos> candidates = getCandidates(known, start, range, skip, stops, chests, item);
+            for (BlockPos pos : candidates) {
+                if (toStore <= 0) break;
+                ContainerTracker.ChestData data = chests.getCachedChestData(pos);
+                int used = occupied.getOrDefault(pos, data.getOccupiedSlots());
+                // Top up partial stacks first, then fill empty slots.
+                int partialRoom = data.getItemSlotsWithItem(item).size() * maxCount - data.getItemCount(item) - getStop(stops, pos, false).getDeposit(item);
+                int room = Math.max(0, partialRoom) + Math.max(0, data.getSlotCount() - used) * maxCount;
+                int store = Math.min(room, toStore);
+                if (store <= 0) continue;
+                int newSlots = (int) Math.ceil((double) Math.max(0, store - Math.max(0, partialRoom)) / maxCount);
+                occupied.put(pos, used + newSlots);
+                getStop(stops, pos).addDeposit(item, store);
+                toStore -= store;
+            }
+            if (toStore > 0) {
+                leftoverDeposits.put(item, toStore);
+            }
+        }
+
+        return new WarehousePlan(orderRoute(start, new ArrayList<>(stops.values())), leftoverDeposits, leftoverWithdrawals);
+    }
+
+    // Chests we're already going to visit come first, then (for deposits) chests that already hold the item, then the closest.
+    private static List<BlockPos> getCandidates(List<BlockPos> chests, Vec3d start, double range, Set<BlockPos> skip, Map<BlockPos, Stop> stops, ContainerTracker.ChestMap chestMap, Item mergeItem) {
+        List<BlockPos> result = new ArrayList<>(chests.size());
+        for (BlockPos pos : chests) {
+            if (skip.contains(pos)) continue;
+            if (range >= 0 && !pos.isWithinDistance(start, range)) continue;
+            result.add(pos);
+        }
+        result.sort(Comparator.comparingInt((BlockPos pos) -> stops.containsKey(pos) ? 0 : 1)
+                .thenComparingInt(pos -> (mergeItem != null && chestMap.getCachedChestData(pos).hasItem(mergeItem)) ? 0 : 1)
+                .thenComparingDouble(pos -> pos.getSquaredDistance(start, false)));
+        return result;
+    }
+
+    private static Stop getStop(Map<BlockPos, Stop> stops, BlockPos pos) {
+        return getStop(stops, pos, true);
+    }
+    private static Stop getStop(Map<BlockPos, Stop> stops, BlockPos pos, boolean create) {
+        Stop stop = stops.get(pos);
+        if (stop == null) {
+            stop = new Stop(pos);
+            if (create) {
+                stops.put(pos, stop);
+            }
+        }
+        return stop;
+    }
+
+    /**
+     * Nearest neighbour tour, cleaned up with 2-opt. We don't come back to the start, so it's an open path.
+     */
+    static List<Stop> orderRoute(Vec3d start, List<Stop> stops) {
+        int n = stops.size();
+        if (n <= 1) return stops;
+
+        List<Stop> route = new ArrayList<>(n);
+        List<Stop> remaining = new ArrayList<>(stops);
+        Vec3d current = start;
+        while (!remaining.isEmpty()) {
+            int best = 0;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < remaining.size(); ++i) {
+                double distance = remaining.get(i).getChest().getSquaredDistance(current, false);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = i;
+                }
+            }
+            Stop next = remaining.remove(best);
+            route.add(next);
+            current = Vec3d.ofCenter(next.getChest());
+        }
+
+        // Points along the path, with our start at index 0.
+        Vec3d[] points = new Vec3d[n + 1];
+        points[0] = start;
+        for (int i = 0; i < n; ++i) {
+            points[i + 1] = Vec3d.ofCenter(route.get(i).getChest());
+        }
+        boolean improved = true;
+        // Bounded so a big warehouse can't stall the tick.
+        for (int pass = 0; improved && pass < 8; ++pass) {
+            improved = false;
+            for (int i = 0; i < n - 1; ++i) {
+                for (int j = i + 2; j <= n; ++j) {
+                    // Reverse points (i+1 .. j). The edge after j doesn't exist if j is the end of our path.
+                    double before = points[i].distanceTo(points[i + 1]) + (j < n ? points[j].distanceTo(points[j + 1]) : 0);
+                    double after = points[i].distanceTo(points[j]) + (j < n ? points[i + 1].distanceTo(points[j + 1]) : 0);
+                    if (after + 0.0001 < before) {
+                        reverse(points, i + 1, j);
+                        Collections.reverse(route.subList(i, j));
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return route;
+    }
+
+    private static void reverse(Vec3d[] points, int from, int to) {
+        while (from < to) {
+            Vec3d temp = points[from];
+            points[from] = points[to];
+            points[to] = temp;
+            from++;
+            to--;
+        }
+    }
+
+    public static class Stop {
+        private final BlockPos _chest;
+        private final LinkedHashMap<Item, Integer> _deposits = new LinkedHashMap<>();
+        private final LinkedHashMap<Item, Integer> _withdrawals = new LinkedHashMap<>();
+
+        public Stop(BlockPos chest) {
+            _chest = chest;
+        }
+
+        public BlockPos getChest() {
+            return _chest;
+        }
+        public Map<Item, Integer> getDeposits() {
+            return _deposits;
+        }
+        public Map<Item, Integer> getWithdrawals() {
+            return _withdrawals;
+        }
+        public int getDeposit(Item item) {
+            return _deposits.getOrDefault(item, 0);
+        }
+
+        void addDeposit(Item item, int count) {
+            _deposits.put(item, getDeposit(item) + count);
+        }
+        void addWithdrawal(Item item, int count) {
+            _withdrawals.put(item, _withdrawals.getOrDefault(item, 0) + count);
+        }
+
+        @Override
+        public String toString() {
+            return "Stop{" + _chest.toShortString() + ", deposit " + _deposits + ", withdraw " + _withdrawals + "}";
+        }
+    }
+}
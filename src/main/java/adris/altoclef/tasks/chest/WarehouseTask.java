@@ -0,0 +1,146 @@
+package adris.altoclef.tasks.chest;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.Debug;
+import adris.altoclef.tasksystem.Task;
+import adris.altoclef.trackers.ContainerTracker;
+import adris.altoclef.util.ItemTarget;
+import adris.altoclef.util.csharpisbetter.Util;
+import net.minecraft.item.Item;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Moves a bunch of items in and out of many chests in one go ("warehouse mode").
+ *
+ * Plans which chests to use and what order to visit them in (see WarehousePlan), then works through them.
+ * We replan after every chest, since opening a chest tells us what's actually in it.
+ *
+ * Deposits put away `targetCount` of each target (on top of whatever we keep), withdrawals take out items until
+ * we have `targetCount` in our inventory, same as every other resource task.
+ */
+public class WarehouseTask extends Task {
+
+    private final ItemTarget[] _deposits;
+    private final ItemTarget[] _withdrawals;
+
+    // How many of each deposit target we had when we started, so we know how many we've put away so far.
+    private final int[] _depositBaseline;
+
+    // Chests we've already been to. Never planned again, so we can't go back and forth forever.
+    private final HashSet<BlockPos> _visited = new HashSet<>();
+
+    private WarehouseChestTask _currentStop = null;
+
+    private boolean _finished = false;
+
+    public WarehouseTask(ItemTarget[] deposits, ItemTarget[] withdrawals) {
+        _deposits = deposits;
+        _withdrawals = withdrawals;
+        _depositBaseline = new int[deposits.length];
+    }
+
+    public static WarehouseTask deposit(ItemTarget ...targets) {
+        return new WarehouseTask(targets, new ItemTarget[0]);
+    }
+    public static WarehouseTask withdraw(ItemTarget ...targets) {
+        return new WarehouseTask(new ItemTarget[0], targets);
+    }
+
+    @Override
+    protected void onStart(AltoClef mod) {
+        for (int i = 0; i < _deposits.length; ++i) {
+            _depositBaseline[i] = mod.getInventoryTracker().getItemCount(_deposits[i]);
+        }
+        _visited.clear();
+        _currentStop = null;
+        _finished = false;
+    }
+
+    @Override
+    protected Task onTick(AltoClef mod) {
+        if (_currentStop != null) {
+            if (!_currentStop.isFinished(mod)) {
+                setDebugState("Visiting chest");
+                return _currentStop;
+            }
+            _visited.add(_currentStop.getStop().getChest());
+            _currentStop = null;
+        }
+
+        WarehousePlan plan = WarehousePlan.plan(mod, mod.getPlayer().getPos(), getDepositsLeft(mod), getWithdrawalsLeft(mod), -1, _visited);
+        if (plan.isEmpty()) {
+            if (!plan.isComplete()) {
+                Debug.logWarning("Warehouse: no known chest for deposits " + plan.getLeftoverDeposits() + ", withdrawals " + plan.getLeftoverWithdrawals());
+            }
+            _finished = true;
+            return null;
+        }
+        Debug.logInternal("Warehouse: " + plan.getStops().size() + " chest(s) left, next " + plan.getStops().get(0));
+        _currentStop = new WarehouseChestTask(plan.getStops().get(0));
+        return _currentStop;
+    }
+
+    private Map<Item, Integer> getDepositsLeft(AltoClef mod) {
+        HashMap<Item, Integer> result = new HashMap<>();
+        for (int i = 0; i < _deposits.length; ++i) {
+            ItemTarget target = _deposits[i];
+            int stored = _depositBaseline[i] - mod.getInventoryTracker().getItemCount(target);
+            int left = target.targetCount - stored;
+            for (Item match : target.getMatches()) {
+                if (left <= 0) break;
+                int store = Math.min(left, mod.getInventoryTracker().getItemCount(match));
+                if (store > 0) {
+                    result.put(match, result.getOrDefault(match, 0) + store);
+                    left -= store;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<Item, Integer> getWithdrawalsLeft(AltoClef mod) {
+        ContainerTracker.ChestMap chests = mod.getContainerTracker().getChestMap();
+        HashMap<Item, Integer> result = new HashMap<>();
+        for (ItemTarget target : _withdrawals) {
+            int left = target.targetCount - mod.getInventoryTracker().getItemCount(target);
+            // Spread what we need over whichever matches the chests actually have.
+            for (Item match : target.getMatches()) {
+                if (left <= 0) break;
+                int take = Math.min(left, chests.getItemCountInChests(match));
+                if (take > 0) {
+                    result.put(match, result.getOrDefault(match, 0) + take);
+                    left -= take;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isFinished(AltoClef mod) {
+        return _finished;
+    }
+
+    @Override
+    protected void onStop(AltoClef mod, Task interruptTask) {
+
+    }
+
+    @Override
+    protected boolean isEqual(Task obj) {
+        if (obj instanceof WarehouseTask) {
+            WarehouseTask task = (WarehouseTask) obj;
+            return Util.arraysEqual(task._deposits, _deposits) && Util.arraysEqual(task._withdrawals, _withdrawals);
+        }
+        return false;
+    }
+
+    @Override
+    protected String toDebugString() {
+        return "Warehouse: deposit " + Util.arrayToString(_deposits) + ", withdraw " + Util.arrayToString(_withdrawals);
+    }
+}
@@ -59,11 +59,14 @@ public class RunAwayFromCreepersTask extends CustomBaritoneGoalTask {
         }
 
         @Override
-        protected double getCostOfEntity(Entity entity, int x, int y, int z) {
-            if (entity instanceof CreeperEntity) {
-                return MobDefenseChain.getCreeperSafety(new Vec3d(x, y, z), (CreeperEntity) entity);
-            }
-            return super.getCostOfEntity(entity, x, y, z);
+        protected double getWeight(Entity entity) {
+            // How close it is to blowing up
+            return ((CreeperEntity) entity).getClientFuseTime(1);
+        }
+
+        @Override
+        protected double getCostOfEntity(double entityX, double entityY, double entityZ, double weight, int x, int y, int z) {
+            return MobDefenseChain.getCreeperSafety(new Vec3d(x, y, z), new Vec3d(entityX, entityY, entityZ), (float) weight);
         }
     }
 }
@@ -20,6 +20,11 @@ public class SearchWithinBiomeTaks extends SearchChunksExploreTask {
         return b.getCategory() == _toSearch;
     }
 
+    @Override
+    protected String getSearchSpaceKey() {
+        return "biome_" + _toSearch.name().toLowerCase();
+    }
+
     @Override
     protected boolean isEqual(Task obj) {
         if (obj instanceof SearchWithinBiomeTaks) {
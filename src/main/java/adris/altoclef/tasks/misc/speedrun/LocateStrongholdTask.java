@@ -200,15 +200,18 @@ public class LocateStrongholdTask extends Task {
 
         @Override
         protected boolean isChunkWithinSearchSpace(AltoClef mod, ChunkPos pos) {
-            boolean found = mod.getChunkTracker().scanChunk(pos, (block) ->
-                    mod.getWorld().getBlockState(block).getBlock() == Blocks.STONE_BRICKS
-            );
+            boolean found = mod.getChunkTracker().chunkContainsAny(pos, Blocks.STONE_BRICKS);
             if (found) {
                 Debug.logMessage("Scanned chunk FOUND!");
             }
             return found;
         }
 
+        @Override
+        protected String getSearchSpaceKey() {
+            return "stone_bricks";
+        }
+
         @Override
         protected boolean isEqual(Task obj) {
             if (obj instanceof SearchStrongholdTask) {
@@ -22,7 +22,12 @@ public class SearchNetherFortressTask extends SearchChunksExploreTask {
     @Override
     protected boolean isChunkWithinSearchSpace(AltoClef mod, ChunkPos pos) {
         // Search nether fortresses
-        return mod.getChunkTracker().scanChunk(pos, (block) -> mod.getWorld().getBlockState(block).getBlock() == Blocks.NETHER_BRICKS);
+        return mod.getChunkTracker().chunkContainsAny(pos, Blocks.NETHER_BRICKS);
+    }
+
+    @Override
+    protected String getSearchSpaceKey() {
+        return "nether_bricks";
     }
 
     @Override
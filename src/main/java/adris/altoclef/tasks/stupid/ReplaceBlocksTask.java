@@ -81,7 +81,7 @@ public class ReplaceBlocksTask extends Task {
                 setDebugState("No replaceable blocks found, wandering.");
                 return new TimeoutWanderTask();
             }
-            _collectMaterialsTask = TaskCatalogue.getItemTask(_toReplace.getCatalogueName(), need);
+            _collectMaterialsTask = TaskCatalogue.getItemTask(TaskCatalogue.getCatalogueName(_toReplace), need);
             return _collectMaterialsTask;
             //return TaskCatalogue.getItemTask(_toReplace);
         }
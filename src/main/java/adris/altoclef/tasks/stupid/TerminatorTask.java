@@ -99,6 +99,10 @@ public class TerminatorTask extends Task {
         PlayerEntity closest = (PlayerEntity)mod.getEntityTracker().getClosestEntity(mod.getPlayer().getPos(), toIgnore -> !shouldPunk(mod, (PlayerEntity)toIgnore), PlayerEntity.class);
 
         if (closest != null) {
+            // Our scan scores chunks by where we last saw them, so rescore once they've moved a chunk or more.
+            if (_closestPlayerLastPos == null || !new ChunkPos(new BlockPos(_closestPlayerLastPos)).equals(new ChunkPos(closest.getBlockPos()))) {
+                _scanTask.invalidateChunkScores();
+            }
             _closestPlayerLastPos = closest.getPos();
             _closestPlayerLastObservePos = mod.getPlayer().getPos();
         }
@@ -299,32 +303,23 @@ public class TerminatorTask extends Task {
         }
 
         @Override
-        protected ChunkPos getBestChunkOverride(AltoClef mod, List<ChunkPos> chunks) {
+        protected double getChunkScore(AltoClef mod, ChunkPos toSearch, double defaultScore) {
             // Prioritise the chunk we last saw a player in.
             if (_closestPlayerLastPos != null) {
-                double lowestScore = Double.POSITIVE_INFINITY;
-                ChunkPos bestChunk = null;
-                for (ChunkPos toSearch : chunks) {
-                    double cx = (toSearch.getStartX() + toSearch.getEndX() + 1) / 2.0, cz = (toSearch.getStartZ() + toSearch.getEndZ() + 1) / 2.0;
-                    double px = mod.getPlayer().getX(), pz = mod.getPlayer().getZ();
-                    double distanceSq = (cx - px) * (cx - px) + (cz - pz) * (cz - pz);
-                    double pdx = _closestPlayerLastPos.getX() - cx, pdz = _closestPlayerLastPos.getZ() - cz;
-                    double distanceToLastPlayerPos = pdx*pdx + pdz * pdz;
-                    Vec3d direction = _closestPlayerLastPos.subtract(_closestPlayerLastObservePos).multiply(1, 0, 1).normalize();
-                    double dirx = direction.x, dirz = direction.z;
-                    double correctDistance = pdx * dirx + pdz * dirz;
-                    double tempX = dirx * correctDistance,
-                           tempZ = dirz * correctDistance;
-                    double perpendicularDistance = ((pdx - tempX) * (pdx - tempX)) + ((pdz - tempZ) * (pdz - tempZ));
-                    double score = distanceSq + distanceToLastPlayerPos*0.6 - correctDistance*2 + perpendicularDistance*0.5;
-                    if (score < lowestScore) {
-                        lowestScore = score;
-                        bestChunk = toSearch;
-                    }
-                }
-                return bestChunk;
+                double cx = (toSearch.getStartX() + toSearch.getEndX() + 1) / 2.0, cz = (toSearch.getStartZ() + toSearch.getEndZ() + 1) / 2.0;
+                double px = mod.getPlayer().getX(), pz = mod.getPlayer().getZ();
+                double distanceSq = (cx - px) * (cx - px) + (cz - pz) * (cz - pz);
+                double pdx = _closestPlayerLastPos.getX() - cx, pdz = _closestPlayerLastPos.getZ() - cz;
+                double distanceToLastPlayerPos = pdx*pdx + pdz * pdz;
+                Vec3d direction = _closestPlayerLastPos.subtract(_closestPlayerLastObservePos).multiply(1, 0, 1).normalize();
+                double dirx = direction.x, dirz = direction.z;
+                double correctDistance = pdx * dirx + pdz * dirz;
+                double tempX = dirx * correctDistance,
+                       tempZ = dirz * correctDistance;
+                double perpendicularDistance = ((pdx - tempX) * (pdx - tempX)) + ((pdz - tempZ) * (pdz - tempZ));
+                return distanceSq + distanceToLastPlayerPos*0.6 - correctDistance*2 + perpendicularDistance*0.5;
             }
-            return super.getBestChunkOverride(mod, chunks);
+            return super.getChunkScore(mod, toSearch, defaultScore);
         }
 
         @Override
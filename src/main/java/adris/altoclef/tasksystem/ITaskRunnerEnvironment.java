@@ -0,0 +1,42 @@
+package adris.altoclef.tasksystem;
+
+import adris.altoclef.util.TickProfiler;
+
+/**
+ * Everything the TaskRunner reads from the game between ticks.
+ *
+ * In game this is just the mod (see TaskRunner's constructor). Anywhere else (benchmarks, scripted runs on a plain JVM)
+ * it can be faked, so the tick loop and chain priority logic run without a client.
+ */
+public interface ITaskRunnerEnvironment {
+
+    TickProfiler getTickProfiler();
+
+    boolean inGame();
+
+    /**
+     * Goes up whenever our inventory changes. Only read while in game.
+     */
+    int getInventoryVersion();
+
+    /**
+     * Goes up whenever entities come, go or might hurt us. Only read while in game.
+     */
+    int getEntityVersion();
+
+    /**
+     * Hash of everything about our player that chains look at (health, armor, hunger, air, fire/lava/water, dimension).
+     * Only read while in game.
+     */
+    int getPlayerState();
+
+    /**
+     * The runner just turned on, set up whatever config it runs with.
+     */
+    void onEnable();
+
+    /**
+     * The runner just turned off, undo onEnable.
+     */
+    void onDisable();
+}
@@ -19,6 +19,15 @@ public abstract class Task {
     private boolean _active = false;
 
     public void tick(AltoClef mod, TaskChain parentChain) {
+        mod.getTickProfiler().push(getClass());
+        try {
+            tickInternal(mod, parentChain);
+        } finally {
+            mod.getTickProfiler().pop();
+        }
+    }
+
+    private void tickInternal(AltoClef mod, TaskChain parentChain) {
         parentChain.addTaskToChain(this);
         if (_first) {
             Debug.logInternal("Task START: " + this.toString());
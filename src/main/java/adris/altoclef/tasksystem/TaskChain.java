@@ -3,12 +3,17 @@ package adris.altoclef.tasksystem;
 import adris.altoclef.AltoClef;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 
 public abstract class TaskChain {
 
     private List<Task> _cachedTaskChain = new ArrayList<>();
 
+    private EnumSet<PriorityTrigger> _priorityTriggers = null;
+    private float _cachedPriority = Float.NEGATIVE_INFINITY;
+    private boolean _priorityDirty = true;
+
     public TaskChain(TaskRunner runner) {
         runner.addTaskChain(this);
     }
@@ -29,8 +34,55 @@ public abstract class TaskChain {
 
     protected abstract void onTick(AltoClef mod);
 
+    /**
+     * Should only figure out how badly we want to run. Anything that has to happen every tick regardless
+     * (like hitting mobs around us) goes in `onBackgroundTick`, so this can be skipped when nothing changed.
+     */
     public abstract float getPriority(AltoClef mod);
 
+    /**
+     * Runs every tick while we're active, before priorities are checked, whether or not we end up running.
+     */
+    public void onBackgroundTick(AltoClef mod) {
+    }
+
+    /**
+     * What can change the result of `getPriority`. Until one of these fires, our last priority is reused.
+     * The chain that's currently running is always re-evaluated.
+     *
+     * By default we're re-evaluated every tick.
+     */
+    protected EnumSet<PriorityTrigger> getPriorityTriggers() {
+        return EnumSet.of(PriorityTrigger.EVERY_TICK);
+    }
+
+    /**
+     * Forces our priority to be re-evaluated next tick.
+     */
+    public void invalidatePriority() {
+        _priorityDirty = true;
+    }
+
+    float evaluatePriority(AltoClef mod, EnumSet<PriorityTrigger> fired, boolean running) {
+        if (_priorityTriggers == null) {
+            _priorityTriggers = getPriorityTriggers();
+        }
+        boolean recalculate = running || _priorityDirty || _priorityTriggers.contains(PriorityTrigger.EVERY_TICK);
+        if (!recalculate) {
+            for (PriorityTrigger trigger : fired) {
+                if (_priorityTriggers.contains(trigger)) {
+                    recalculate = true;
+                    break;
+                }
+            }
+        }
+        if (recalculate) {
+            _cachedPriority = getPriority(mod);
+            _priorityDirty = false;
+        }
+        return _cachedPriority;
+    }
+
     public abstract boolean isActive();
 
     public abstract String getName();
@@ -47,4 +99,14 @@ public abstract class TaskChain {
         return getName();
     }
 
+    public enum PriorityTrigger {
+        // Always re-evaluate.
+        EVERY_TICK,
+        // Our inventory changed
+        INVENTORY,
+        // Entities came or went, or something that might hurt us is around.
+        ENTITIES,
+        // Our health, armor, hunger, air, fire/lava/water state changed (or we joined/left a world)
+        PLAYER
+    }
 }
@@ -2,30 +2,59 @@ package adris.altoclef.tasksystem;
 
 import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
+import adris.altoclef.util.TickProfiler;
+
+import net.minecraft.client.network.ClientPlayerEntity;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 
 public class TaskRunner {
 
     private ArrayList<TaskChain> _chains = new ArrayList<>();
     private AltoClef _mod;
+    private ITaskRunnerEnvironment _environment;
     private boolean _active;
 
     private TaskChain _cachedCurrentTaskChain = null;
 
+    // What changed since last tick, so chains that didn't care can skip re-evaluating their priority.
+    private final EnumSet<TaskChain.PriorityTrigger> _firedTriggers = EnumSet.noneOf(TaskChain.PriorityTrigger.class);
+    private int _lastInventoryVersion = -1;
+    private int _lastEntityVersion = -1;
+    private int _lastPlayerState = 0;
+
     public TaskRunner(AltoClef mod) {
+        this(mod, new ModEnvironment(mod));
+    }
+
+    /**
+     * @param mod         Handed to our chains as is. Can be null if none of them need it (like with a fake environment).
+     * @param environment Where we read the game's state from between ticks.
+     */
+    public TaskRunner(AltoClef mod, ITaskRunnerEnvironment environment) {
         _mod = mod;
+        _environment = environment;
         _active = false;
     }
 
     public void tick() {
         if (!_active) return;
+        updateTriggers();
+        for (TaskChain chain : _chains) {
+            if (!chain.isActive()) continue;
+            _environment.getTickProfiler().push("background:", chain.getName());
+            chain.onBackgroundTick(_mod);
+            _environment.getTickProfiler().pop();
+        }
         // Get highest priority chain and run
         TaskChain maxChain = null;
         float maxPriority = Float.NEGATIVE_INFINITY;
         for(TaskChain chain : _chains) {
             if (!chain.isActive()) continue;
-            float priority = chain.getPriority(_mod);
+            _environment.getTickProfiler().push("priority:", chain.getName());
+            float priority = chain.evaluatePriority(_mod, _firedTriggers, chain == _cachedCurrentTaskChain);
+            _environment.getTickProfiler().pop();
             if (priority > maxPriority) {
                 maxPriority = priority;
                 maxChain = chain;
@@ -36,7 +65,38 @@ public class TaskRunner {
         }
         _cachedCurrentTaskChain = maxChain;
         if (maxChain != null) {
+            _environment.getTickProfiler().push(maxChain.getName());
             maxChain.tick(_mod);
+            _environment.getTickProfiler().pop();
+        }
+    }
+
+    private void updateTriggers() {
+        _firedTriggers.clear();
+        int playerState = _environment.inGame() ? _environment.getPlayerState() : 0;
+        if (playerState != _lastPlayerState) {
+            _lastPlayerState = playerState;
+            _firedTriggers.add(TaskChain.PriorityTrigger.PLAYER);
+        }
+        if (!_environment.inGame()) return;
+        int inventoryVersion = _environment.getInventoryVersion();
+        if (inventoryVersion != _lastInventoryVersion) {
+            _lastInventoryVersion = inventoryVersion;
+            _firedTriggers.add(TaskChain.PriorityTrigger.INVENTORY);
+        }
+        int entityVersion = _environment.getEntityVersion();
+        if (entityVersion != _lastEntityVersion) {
+            _lastEntityVersion = entityVersion;
+            _firedTriggers.add(TaskChain.PriorityTrigger.ENTITIES);
+        }
+    }
+
+    /**
+     * Makes every chain re-evaluate its priority next tick, like when our settings change.
+     */
+    public void invalidatePriorities() {
+        for (TaskChain chain : _chains) {
+            chain.invalidatePriority();
         }
     }
 
@@ -46,14 +106,15 @@ public class TaskRunner {
 
     public void enable() {
         if (!_active) {
-            _mod.getConfigState().push();
-            _mod.getConfigState().setPauseOnLostFocus(false);
+            _environment.onEnable();
+            // We weren't keeping track while disabled.
+            invalidatePriorities();
         }
         _active = true;
     }
     public void disable() {
         if (_active) {
-            _mod.getConfigState().pop();
+            _environment.onDisable();
         }
         for (TaskChain chain : _chains) {
             chain.stop(_mod);
@@ -67,4 +128,62 @@ public class TaskRunner {
         return _cachedCurrentTaskChain;
     }
 
+    public ITaskRunnerEnvironment getEnvironment() {
+        return _environment;
+    }
+
+    // The real thing, reads straight from the mod.
+    private static class ModEnvironment implements ITaskRunnerEnvironment {
+        private final AltoClef _mod;
+
+        public ModEnvironment(AltoClef mod) {
+            _mod = mod;
+        }
+
+        @Override
+        public TickProfiler getTickProfiler() {
+            return _mod.getTickProfiler();
+        }
+
+        @Override
+        public boolean inGame() {
+            return _mod.inGame();
+        }
+
+        @Override
+        public int getInventoryVersion() {
+            return _mod.getInventoryTracker().getChangeVersion();
+        }
+
+        @Override
+        public int getEntityVersion() {
+            return _mod.getEntityTracker().getChangeVersion();
+        }
+
+        @Override
+        public int getPlayerState() {
+            ClientPlayerEntity player = _mod.getPlayer();
+            int result = System.identityHashCode(player);
+            result = 31 * result + Float.floatToIntBits(player.getHealth());
+            result = 31 * result + player.getArmor();
+            result = 31 * result + player.getHungerManager().getFoodLevel();
+            result = 31 * result + player.getAir();
+            result = 31 * result + (player.isOnFire() ? 1 : 0);
+            result = 31 * result + (player.isInLava() ? 1 : 0);
+            result = 31 * result + (player.isTouchingWater() ? 1 : 0);
+            result = 31 * result + _mod.getCurrentDimension().ordinal();
+            return result;
+        }
+
+        @Override
+        public void onEnable() {
+            _mod.getConfigState().push();
+            _mod.getConfigState().setPauseOnLostFocus(false);
+        }
+
+        @Override
+        public void onDisable() {
+            _mod.getConfigState().pop();
+        }
+    }
 }
@@ -9,12 +9,12 @@ import adris.altoclef.tasks.misc.RunAwayFromHostilesTask;
 import adris.altoclef.tasksystem.Task;
 import adris.altoclef.tasksystem.TaskRunner;
 import adris.altoclef.trackers.EntityTracker;
+import adris.altoclef.trackers.HostileThreatModel;
 import adris.altoclef.util.CachedProjectile;
 import adris.altoclef.util.KillAura;
-import adris.altoclef.util.LookUtil;
+import adris.altoclef.util.ProjectileBatch;
 import adris.altoclef.util.ProjectileUtil;
 import adris.altoclef.util.baritone.BaritoneHelper;
-import adris.altoclef.util.csharpisbetter.Timer;
 import baritone.Baritone;
 import baritone.api.utils.IPlayerContext;
 import baritone.api.utils.Rotation;
@@ -46,6 +46,9 @@ public class MobDefenseChain extends SingleTaskChain {
 
     private static final double SAFE_KEEP_DISTANCE = 8;
 
+    // Once a hostile has been close and in sight for this long (seconds), deal with it.
+    private static final double ANNOYING_HOSTILE_TIMEOUT = 12;
+
     private final KillAura _killAura = new KillAura();
 
     private Entity _targetEntity;
@@ -54,31 +57,25 @@ public class MobDefenseChain extends SingleTaskChain {
 
     private boolean _wasPuttingOutFire = false;
 
-    private final HashMap<Entity, Timer> _closeAnnoyingEntities = new HashMap<>();
-
     private Task _runAwayTask;
 
+    // Scratch space for checking projectiles, so we don't allocate every tick.
+    private final ProjectileBatch _projectileBatch = new ProjectileBatch();
+    private final double[] _projectileTargetX = new double[2], _projectileTargetY = new double[2], _projectileTargetZ = new double[2];
+    private double[] _projectileHitX = new double[0], _projectileHitY = new double[0], _projectileHitZ = new double[0];
+
     public MobDefenseChain(TaskRunner runner) {
         super(runner);
     }
 
     @Override
-    public float getPriority(AltoClef mod) {
-
-        if (!mod.inGame()) {
-            return Float.NEGATIVE_INFINITY;
-        }
-
-        if (!mod.getModSettings().isMobDefense()) {
-            return Float.NEGATIVE_INFINITY;
-        }
+    public void onBackgroundTick(AltoClef mod) {
+        if (!mod.inGame()) return;
+        if (!mod.getModSettings().isMobDefense()) return;
 
         // Apply avoidance if we're vulnerable, avoiding mobs if at all possible.
         mod.getClientBaritoneSettings().avoidance.value = isVulnurable(mod);
 
-        // Pause if we're not loaded into a world.
-        if (!mod.inGame()) return Float.NEGATIVE_INFINITY;
-
         // Put out fire if we're standing on one like an idiot
         BlockPos fireBlock = isInsideFireAndOnFire(mod);
         if (fireBlock != null) {
@@ -89,13 +86,32 @@ public class MobDefenseChain extends SingleTaskChain {
             _wasPuttingOutFire = false;
         }
 
-        if (prioritizeEating(mod)) {
-            return Float.NEGATIVE_INFINITY;
-        }
+        if (prioritizeEating(mod)) return;
 
         // Force field
         doForceField(mod);
+    }
+
+    @Override
+    protected EnumSet<PriorityTrigger> getPriorityTriggers() {
+        // Hostiles, our health/armor and our weapons. With no threats around the entity trigger stays quiet.
+        return EnumSet.of(PriorityTrigger.ENTITIES, PriorityTrigger.PLAYER, PriorityTrigger.INVENTORY);
+    }
 
+    @Override
+    public float getPriority(AltoClef mod) {
+
+        if (!mod.inGame()) {
+            return Float.NEGATIVE_INFINITY;
+        }
+
+        if (!mod.getModSettings().isMobDefense()) {
+            return Float.NEGATIVE_INFINITY;
+        }
+
+        if (prioritizeEating(mod)) {
+            return Float.NEGATIVE_INFINITY;
+        }
 
         // Tell baritone to avoid mobs if we're vulnurable.
         // Costly.
@@ -160,37 +176,22 @@ public class MobDefenseChain extends SingleTaskChain {
 
             // TODO: I don't think this lock is necessary at all.
             synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+                // Dead/gone hostiles are forgotten by the threat model on its own.
+                HostileThreatModel threats = mod.getEntityTracker().getThreatModel();
                 for (Entity hostile : hostiles) {
                     int annoyingRange = (hostile instanceof SkeletonEntity || hostile instanceof WitchEntity)? 18 : 2;
                     boolean isClose = hostile.isInRange(mod.getPlayer(), annoyingRange);
 
                     if (isClose) {
-                        isClose = LookUtil.seesPlayer(hostile, mod.getPlayer(), annoyingRange);
+                        isClose = threats.seesPlayer(hostile, mod.getPlayer());
                     }
 
                     // Give each hostile a timer, if they're close for too long deal with them.
-                    if (isClose) {
-                        if (!_closeAnnoyingEntities.containsKey(hostile)) {
-                            _closeAnnoyingEntities.put(hostile, new Timer(12));
-                            _closeAnnoyingEntities.get(hostile).reset();
-                        }
-                        if (_closeAnnoyingEntities.get(hostile).elapsed()) {
-                            toDealWith.add(hostile);
-                        }
-                    } else {
-                        _closeAnnoyingEntities.remove(hostile);
+                    if (threats.updateAnnoyance(hostile, isClose) > ANNOYING_HOSTILE_TIMEOUT) {
+                        toDealWith.add(hostile);
                     }
                 }
 
-                // Clear dead/non existing hostiles
-                List<Entity> toRemove = new ArrayList<>();
-                for (Entity check : _closeAnnoyingEntities.keySet()) {
-                    if (!check.isAlive()) {
-                        toRemove.add(check);
-                    }
-                }
-                for (Entity remove : toRemove) _closeAnnoyingEntities.remove(remove);
-
                 int numberOfProblematicEntities = toDealWith.size();
 
                 if (numberOfProblematicEntities > 0) {
@@ -300,7 +301,7 @@ public class MobDefenseChain extends SingleTaskChain {
                 if (mod.getConfigState().shouldExcludeFromForcefield(entity)) continue;
                 if (entity instanceof Monster) {
                     if (EntityTracker.isAngryAtPlayer(entity)) {
-                        if (LookUtil.seesPlayer(entity, mod.getPlayer(), 10)) {
+                        if (mod.getEntityTracker().getThreatModel().seesPlayer(entity, mod.getPlayer())) {
                             shouldForce = true;
                         }
                     }
@@ -359,10 +360,11 @@ public class MobDefenseChain extends SingleTaskChain {
 
     private boolean isProjectileClose(AltoClef mod) {
         List<CachedProjectile> projectiles = mod.getEntityTracker().getProjectiles();
+        ClientPlayerEntity player = mod.getPlayer();
 
+        _projectileBatch.clear();
         try {
             for (CachedProjectile projectile : projectiles) {
-
                 boolean isGhastBall = projectile.projectileType == FireballEntity.class;
                 if (isGhastBall) {
                     continue;
@@ -378,21 +380,37 @@ public class MobDefenseChain extends SingleTaskChain {
                     // Ignore dragon fireballs
                     continue;
                 }
-
-                Vec3d expectedHit = ProjectileUtil.calculateArrowClosestApproach(projectile, mod.getPlayer());
-
-                Vec3d delta = mod.getPlayer().getPos().subtract(expectedHit);
-
-                //Debug.logMessage("EXPECTED HIT OFFSET: " + delta + " ( " + projectile.gravity + ")");
-
-                double horizontalDistance = Math.sqrt(delta.x*delta.x + delta.z*delta.z);
-                double verticalDistance = delta.y;
-
-                if (horizontalDistance < ARROW_KEEP_DISTANCE_HORIZONTAL && verticalDistance < ARROW_KEEP_DISTANCE_VERTICAL) return true;
+                _projectileBatch.add(projectile);
             }
         } catch (ConcurrentModificationException e) {
             Debug.logWarning("Weird exception caught and ignored while checking for nearby projectiles.");
         }
+        int count = _projectileBatch.size();
+        if (count == 0) return false;
+
+        // Check our feet and our head, a lobbed arrow can come down close to one but not the other.
+        _projectileTargetX[0] = _projectileTargetX[1] = player.getX();
+        _projectileTargetZ[0] = _projectileTargetZ[1] = player.getZ();
+        _projectileTargetY[0] = player.getY();
+        _projectileTargetY[1] = player.getEyeY();
+        int targets = _projectileTargetX.length;
+        if (_projectileHitX.length < count * targets) {
+            _projectileHitX = new double[count * targets];
+            _projectileHitY = new double[count * targets];
+            _projectileHitZ = new double[count * targets];
+        }
+        ProjectileUtil.calculateClosestApproaches(_projectileBatch, _projectileTargetX, _projectileTargetY, _projectileTargetZ, targets,
+                null, _projectileHitX, _projectileHitY, _projectileHitZ);
+
+        for (int i = 0; i < count * targets; ++i) {
+            int target = i % targets;
+            double deltaX = _projectileTargetX[target] - _projectileHitX[i],
+                   deltaY = _projectileTargetY[target] - _projectileHitY[i],
+                   deltaZ = _projectileTargetZ[target] - _projectileHitZ[i];
+            //Debug.logMessage("EXPECTED HIT OFFSET: " + deltaX + ", " + deltaY + ", " + deltaZ);
+            double horizontalDistanceSqr = deltaX*deltaX + deltaZ*deltaZ;
+            if (horizontalDistanceSqr < ARROW_KEEP_DISTANCE_HORIZONTAL*ARROW_KEEP_DISTANCE_HORIZONTAL && Math.abs(deltaY) < ARROW_KEEP_DISTANCE_VERTICAL) return true;
+        }
         return false;
     }
 
@@ -452,8 +470,11 @@ public class MobDefenseChain extends SingleTaskChain {
     }
 
     public static double getCreeperSafety(Vec3d pos, CreeperEntity creeper) {
-        double distance = creeper.squaredDistanceTo(pos);
-        float fuse = creeper.getClientFuseTime(1);
+        return getCreeperSafety(pos, creeper.getPos(), creeper.getClientFuseTime(1));
+    }
+
+    public static double getCreeperSafety(Vec3d pos, Vec3d creeperPos, float fuse) {
+        double distance = creeperPos.squaredDistanceTo(pos);
 
         // Not fusing. We only get fusing crepers.
         if (fuse <= 0.001f) return 0;
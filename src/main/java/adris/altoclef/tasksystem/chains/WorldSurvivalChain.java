@@ -10,6 +10,8 @@ import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.effect.StatusEffect;
 import net.minecraft.entity.effect.StatusEffects;
 
+import java.util.EnumSet;
+
 public class WorldSurvivalChain extends SingleTaskChain {
 
     private boolean _wasAvoidingDrowning;
@@ -24,11 +26,21 @@ public class WorldSurvivalChain extends SingleTaskChain {
 
     }
 
+    @Override
+    public void onBackgroundTick(AltoClef mod) {
+        if (!mod.inGame()) return;
+        handleDrowning(mod);
+    }
+
+    @Override
+    protected EnumSet<PriorityTrigger> getPriorityTriggers() {
+        return EnumSet.of(PriorityTrigger.PLAYER);
+    }
+
     @Override
     public float getPriority(AltoClef mod) {
         if (!mod.inGame()) return Float.NEGATIVE_INFINITY;
 
-        handleDrowning(mod);
         if (isInLavaOhShit(mod)) {
             mod.getConfigState().allowWalkThroughLava(true);
             setTask(new EscapeFromLavaTask());
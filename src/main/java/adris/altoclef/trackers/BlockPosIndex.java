@@ -0,0 +1,229 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.util.baritone.BaritoneHelper;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * A set of block positions bucketed by chunk, stored as packed longs.
+ *
+ * Nearest queries skip every chunk bucket that can't possibly beat what we've already found,
+ * so we only look at a handful of positions instead of every single one we know about.
+ *
+ * Not thread safe, lock around it.
+ */
+public class BlockPosIndex {
+
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> _buckets = new Long2ObjectOpenHashMap<>();
+
+    private int _size = 0;
+
+    public boolean add(BlockPos pos) {
+        long chunk = chunkKey(pos.getX(), pos.getZ());
+        LongOpenHashSet bucket = _buckets.get(chunk);
+        if (bucket == null) {
+            bucket = new LongOpenHashSet();
+            _buckets.put(chunk, bucket);
+        }
+        if (bucket.add(pos.asLong())) {
+            _size++;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean remove(BlockPos pos) {
+        long chunk = chunkKey(pos.getX(), pos.getZ());
+        LongOpenHashSet bucket = _buckets.get(chunk);
+        if (bucket != null && bucket.remove(pos.asLong())) {
+            _size--;
+            if (bucket.isEmpty()) {
+                _buckets.remove(chunk);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean contains(BlockPos pos) {
+        LongOpenHashSet bucket = _buckets.get(chunkKey(pos.getX(), pos.getZ()));
+        return bucket != null && bucket.contains(pos.asLong());
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    public void clear() {
+        _buckets.clear();
+        _size = 0;
+    }
+
+    /**
+     * Removes every position inside a chunk.
+     *
+     * @param onRemoved Gets each removed position, packed as a long.
+     */
+    public void removeChunk(int chunkX, int chunkZ, LongConsumer onRemoved) {
+        LongOpenHashSet bucket = _buckets.remove(ChunkPos.toLong(chunkX, chunkZ));
+        if (bucket == null) return;
+        _size -= bucket.size();
+        LongIterator it = bucket.iterator();
+        while (it.hasNext()) {
+            onRemoved.accept(it.nextLong());
+        }
+    }
+
+    public void forEach(Consumer<BlockPos> consumer) {
+        for (LongOpenHashSet bucket : _buckets.values()) {
+            LongIterator it = bucket.iterator();
+            while (it.hasNext()) {
+                consumer.accept(BlockPos.fromLong(it.nextLong()));
+            }
+        }
+    }
+
+    public void addAllTo(Collection<BlockPos> result) {
+        forEach(result::add);
+    }
+
+    /**
+     * @return Whether there is at least one position that passes the test.
+     */
+    public boolean anyMatch(Predicate<BlockPos> test) {
+        for (LongOpenHashSet bucket : _buckets.values()) {
+            LongIterator it = bucket.iterator();
+            while (it.hasNext()) {
+                if (test.test(BlockPos.fromLong(it.nextLong()))) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the position with the lowest baritone heuristic from `position`.
+     *
+     * @param skip Positions that pass this test are ignored.
+     * @return The best position, or null if there is nothing left that isn't skipped.
+     */
+    public BlockPos getNearest(Vec3d position, Predicate<BlockPos> skip) {
+        if (_size == 0) return null;
+
+        // Seed our best guess with the chunks right around us, so most of the far away chunks get skipped below.
+        int centerX = (int) Math.floor(position.x) >> 4,
+            centerZ = (int) Math.floor(position.z) >> 4;
+        _nearestBest = null;
+        _nearestBestScore = Double.POSITIVE_INFINITY;
+        for (int cx = centerX - 1; cx <= centerX + 1; ++cx) {
+            for (int cz = centerZ - 1; cz <= centerZ + 1; ++cz) {
+                long chunk = ChunkPos.toLong(cx, cz);
+                LongOpenHashSet bucket = _buckets.get(chunk);
+                if (bucket != null) {
+                    scanBucketForNearest(bucket, position, skip);
+                }
+            }
+        }
+
+        for (Long2ObjectMap.Entry<LongOpenHashSet> entry : _buckets.long2ObjectEntrySet()) {
+            long chunk = entry.getLongKey();
+            int cx = ChunkPos.getPackedX(chunk),
+                cz = ChunkPos.getPackedZ(chunk);
+            // Already scanned
+            if (Math.abs(cx - centerX) <= 1 && Math.abs(cz - centerZ) <= 1) continue;
+            // The baritone heuristic is never lower than walking the chebyshev XZ distance in a straight line.
+            // If even that can't beat our best, nothing in this chunk can.
+            double bound = BaritoneHelper.calculateGenericHeuristic(0, 0, 0, chebyshevDistanceToChunk(position, cx, cz), 0, 0);
+            if (bound >= _nearestBestScore) continue;
+            scanBucketForNearest(entry.getValue(), position, skip);
+        }
+
+        BlockPos result = _nearestBest;
+        _nearestBest = null;
+        return result;
+    }
+
+    // Scratch state for getNearest so the bucket scan doesn't have to allocate a result holder.
+    private BlockPos _nearestBest;
+    private double _nearestBestScore;
+
+    private void scanBucketForNearest(LongOpenHashSet bucket, Vec3d position, Predicate<BlockPos> skip) {
+        LongIterator it = bucket.iterator();
+        while (it.hasNext()) {
+            long packed = it.nextLong();
+            double score = BaritoneHelper.calculateGenericHeuristic(position.x, position.y, position.z,
+                    BlockPos.unpackLongX(packed), BlockPos.unpackLongY(packed), BlockPos.unpackLongZ(packed));
+            if (score < _nearestBestScore) {
+                // Only build a BlockPos when we actually need to test it.
+                BlockPos pos = BlockPos.fromLong(packed);
+                if (skip.test(pos)) continue;
+                _nearestBestScore = score;
+                _nearestBest = pos;
+            }
+        }
+    }
+
+    /**
+     * Gets the position with the lowest straight line distance from `position`, ignoring anything outside of `range`.
+     *
+     * @param skip Positions that pass this test are ignored.
+     * @return The closest position, or null if there is nothing left in range that isn't skipped.
+     */
+    public BlockPos getNearestWithinRange(Vec3d position, double range, Predicate<BlockPos> skip) {
+        if (_size == 0) return null;
+
+        int minChunkX = (int) Math.floor(position.x - range) >> 4,
+            maxChunkX = (int) Math.floor(position.x + range) >> 4,
+            minChunkZ = (int) Math.floor(position.z - range) >> 4,
+            maxChunkZ = (int) Math.floor(position.z + range) >> 4;
+
+        BlockPos best = null;
+        double bestSq = range * range;
+        for (int cx = minChunkX; cx <= maxChunkX; ++cx) {
+            for (int cz = minChunkZ; cz <= maxChunkZ; ++cz) {
+                LongOpenHashSet bucket = _buckets.get(ChunkPos.toLong(cx, cz));
+                if (bucket == null) continue;
+                LongIterator it = bucket.iterator();
+                while (it.hasNext()) {
+                    long packed = it.nextLong();
+                    double dx = BlockPos.unpackLongX(packed) - position.x,
+                           dy = BlockPos.unpackLongY(packed) - position.y,
+                           dz = BlockPos.unpackLongZ(packed) - position.z;
+                    double sq = dx*dx + dy*dy + dz*dz;
+                    if (sq <= bestSq) {
+                        BlockPos pos = BlockPos.fromLong(packed);
+                        if (skip.test(pos)) continue;
+                        bestSq = sq;
+                        best = pos;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static long chunkKey(int blockX, int blockZ) {
+        return ChunkPos.toLong(blockX >> 4, blockZ >> 4);
+    }
+
+    private static double chebyshevDistanceToChunk(Vec3d position, int chunkX, int chunkZ) {
+        int minX = chunkX << 4,
+            minZ = chunkZ << 4;
+        double dx = Math.max(0, Math.max(minX - position.x, position.x - (minX + 15))),
+               dz = Math.max(0, Math.max(minZ - position.z, position.z - (minZ + 15)));
+        return Math.max(dx, dz);
+    }
+}
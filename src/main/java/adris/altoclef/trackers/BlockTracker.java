@@ -14,16 +14,18 @@ import baritone.Baritone;
 import baritone.api.utils.BlockOptionalMetaLookup;
 import baritone.pathing.movement.CalculationContext;
 import baritone.process.MineProcess;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.chunk.WorldChunk;
 
 import java.util.*;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  *
@@ -47,11 +49,18 @@ public class BlockTracker extends Tracker {
 
     private final Timer _forceElapseTimer = new Timer(2.0);
 
+    // In incremental mode, chunk loads and block changes keep us up to date. Rescan every now and then anyway in case we missed something.
+    private final Timer _fallbackRescanTimer = new Timer(120.0);
+
+    // Chunks that were loaded but haven't been scanned for our tracked blocks yet.
+    private final Set<ChunkPos> _pendingChunkScans = new HashSet<>();
+
     private final Map<Block, Integer> _trackingBlocks = new HashMap<>();
 
     private final Object _scanMutex = new Object();
 
     private boolean _scanning = false;
+    private boolean _scanningChunks = false;
 
     //private Block _currentlyTracking = null;
     private AltoClef _mod;
@@ -62,16 +71,61 @@ public class BlockTracker extends Tracker {
 
     @Override
     protected void updateState() {
+        if (isIncremental()) {
+            scanPendingChunks();
+        }
         if (shouldUpdate()) {
             update();
         }
     }
 
+    @Override
+    public UpdatePolicy getUpdatePolicy() {
+        // Checking our timers and pending chunks is cheap, the expensive scans run on their own thread.
+        return UpdatePolicy.ON_DEMAND;
+    }
+
     @Override
     protected void reset() {
         _trackingBlocks.clear();
-        for (PosCache cache : _caches.values()) {
-            cache.clear();
+        synchronized (_scanMutex) {
+            _pendingChunkScans.clear();
+            for (PosCache cache : _caches.values()) {
+                cache.clear();
+            }
+        }
+    }
+
+    public void onChunkLoad(WorldChunk chunk) {
+        if (!isIncremental()) return;
+        synchronized (_scanMutex) {
+            _pendingChunkScans.add(chunk.getPos());
+        }
+    }
+
+    public void onChunkUnload(ChunkPos pos) {
+        if (!isIncremental()) return;
+        synchronized (_scanMutex) {
+            _pendingChunkScans.remove(pos);
+            currentCache().removeChunk(pos);
+        }
+    }
+
+    public void onBlockChanged(BlockPos pos, BlockState oldState, BlockState newState) {
+        if (!isIncremental()) return;
+        Block oldBlock = oldState.getBlock(),
+              newBlock = newState.getBlock();
+        if (oldBlock == newBlock) return;
+        boolean trackingOld = isTracking(oldBlock),
+                trackingNew = isTracking(newBlock);
+        if (!trackingOld && !trackingNew) return;
+        synchronized (_scanMutex) {
+            if (trackingOld) {
+                currentCache().removeBlock(pos, oldBlock);
+            }
+            if (trackingNew) {
+                currentCache().addBlock(newBlock, pos.toImmutable());
+            }
         }
     }
 
@@ -85,8 +139,13 @@ public class BlockTracker extends Tracker {
                 // We're tracking a new block, so we're not updated.
                 setDirty();
                 _trackingBlocks.put(block, 0);
-                // Force a rescan if these are new blocks and we aren't doing this like every frame.
-                if (_forceElapseTimer.elapsed()) {
+                if (isIncremental()) {
+                    // Chunks we already scanned didn't look for this block, so scan them again.
+                    synchronized (_scanMutex) {
+                        _pendingChunkScans.addAll(_mod.getChunkTracker().getLoadedChunks());
+                    }
+                } else if (_forceElapseTimer.elapsed()) {
+                    // Force a rescan if these are new blocks and we aren't doing this like every frame.
                     _timer.forceElapse();
                     _forceElapseTimer.reset();
                 }
@@ -121,14 +180,14 @@ public class BlockTracker extends Tracker {
         }
     }
     public boolean anyFound(Block ...blocks) {
-        updateState();
+        ensureUpdated();
         synchronized (_scanMutex) {
             return currentCache().anyFound(blocks);
         }
     }
 
     public boolean anyFound(Predicate<BlockPos> isInvalidTest, Block ...blocks) {
-        updateState();
+        ensureUpdated();
         synchronized (_scanMutex) {
             return currentCache().anyFound(isInvalidTest, blocks);
         }
@@ -145,14 +204,30 @@ public class BlockTracker extends Tracker {
             }
         }
         // Make sure we've scanned the first time if we need to.
-        updateState();
+        ensureUpdated();
         synchronized (_scanMutex) {
             return currentCache().getNearest(_mod, pos, isInvalidTest, blocks);
         }
     }
 
+    /**
+     * @return Up to `count` of the nearest tracked blocks, closest first.
+     */
+    public List<BlockPos> getNearestTracking(Vec3d pos, int count, Block... blocks) {
+        for (Block block : blocks) {
+            if (!_trackingBlocks.containsKey(block)) {
+                Debug.logWarning("BlockTracker: Not tracking block " + block + " right now.");
+                return Collections.emptyList();
+            }
+        }
+        ensureUpdated();
+        synchronized (_scanMutex) {
+            return currentCache().getNearest(_mod, pos, count, blocks);
+        }
+    }
+
     public List<BlockPos> getKnownLocations(Block ...blocks) {
-        updateState();
+        ensureUpdated();
         synchronized (_scanMutex) {
             return currentCache().getKnownLocations(blocks);
         }
@@ -162,6 +237,19 @@ public class BlockTracker extends Tracker {
         return getNearestWithinRange(new Vec3d(pos.getX(), pos.getY(), pos.getZ()), range, blocks);
     }
     public BlockPos getNearestWithinRange(Vec3d pos, double range, Block ...blocks) {
+        // If we're already tracking everything and keeping up with block changes, our cache can answer this without
+        // touching the world. Otherwise the cache misses anything placed since the last rescan, so scan for real.
+        boolean useCache = isIncremental();
+        for (Block block : blocks) {
+            if (!useCache) break;
+            useCache = isTracking(block);
+        }
+        if (useCache) {
+            ensureUpdated();
+            synchronized (_scanMutex) {
+                return currentCache().getNearestWithinRange(_mod, pos, range, blocks);
+            }
+        }
         int minX = (int)Math.round(pos.x - range),
             maxX = (int)Math.round(pos.x + range),
             minY = (int)Math.round(pos.y - range),
@@ -170,10 +258,11 @@ public class BlockTracker extends Tracker {
             maxZ = (int)Math.round(pos.z + range);
         double closestDistance = Float.POSITIVE_INFINITY;
         BlockPos nearest = null;
+        BlockPos.Mutable check = new BlockPos.Mutable();
         for (int x = minX; x <= maxX; ++x) {
             for (int y = minY; y <= maxY; ++y) {
                 for (int z = minZ; z <= maxZ; ++z) {
-                    BlockPos check = new BlockPos(x, y, z);
+                    check.set(x, y, z);
                     synchronized (_scanMutex) {
                         if (currentCache().blockUnreachable(check)) continue;
                     }
@@ -192,7 +281,7 @@ public class BlockTracker extends Tracker {
                         double sq = check.getSquaredDistance(pos, false);
                         if (sq < closestDistance) {
                             closestDistance = sq;
-                            nearest = check;
+                            nearest = check.toImmutable();
                         }
                     }
                 }
@@ -201,12 +290,20 @@ public class BlockTracker extends Tracker {
         return nearest;
     }
 
+    private boolean isIncremental() {
+        return _mod.getModSettings().shouldUseIncrementalBlockTracking();
+    }
+
     private boolean shouldUpdate() {
+        if (isIncremental()) {
+            return _fallbackRescanTimer.elapsed();
+        }
         return _timer.elapsed();
     }
     private void update() {
         // Perform a baritone scan
         _timer.reset();
+        _fallbackRescanTimer.reset();
         CalculationContext ctx = new CalculationContext(_mod.getClientBaritone(), ASYNC_SCANNING);
         if (ASYNC_SCANNING) {
             if (!_scanning) {
@@ -222,6 +319,49 @@ public class BlockTracker extends Tracker {
         }
     }
 
+    private void scanPendingChunks() {
+        if (_scanningChunks) return;
+        List<ChunkPos> toScan;
+        synchronized (_scanMutex) {
+            if (_pendingChunkScans.isEmpty()) return;
+            toScan = new ArrayList<>(_pendingChunkScans);
+            _pendingChunkScans.clear();
+        }
+        Set<Block> blocksToScan = new HashSet<>(_trackingBlocks.keySet());
+        if (blocksToScan.isEmpty()) return;
+        if (ASYNC_SCANNING) {
+            _scanningChunks = true;
+            Baritone.getExecutor().execute(() -> {
+                rescanChunks(toScan, blocksToScan);
+                _scanningChunks = false;
+            });
+        } else {
+            rescanChunks(toScan, blocksToScan);
+        }
+    }
+
+    private void rescanChunks(List<ChunkPos> chunks, Set<Block> blocksToScan) {
+        ClientWorld world = MinecraftClient.getInstance().world;
+        if (world == null) return;
+        List<BlockPos> found = new ArrayList<>();
+        for (ChunkPos chunkPos : chunks) {
+            _mod.getChunkTracker().scanChunk(chunkPos, state -> blocksToScan.contains(state.getBlock()), found::add);
+        }
+        synchronized (_scanMutex) {
+            for (BlockPos pos : found) {
+                // Might've changed since we scanned it.
+                Block block = world.getBlockState(pos).getBlock();
+                if (_trackingBlocks.containsKey(block)) {
+                    currentCache().addBlock(block, pos);
+                }
+            }
+            // Same as a full rescan, otherwise we'd only purge every couple minutes and pile up blocks in between.
+            if (_mod.getPlayer() != null) {
+                currentCache().smartPurge(_mod, _mod.getPlayer().getPos());
+            }
+        }
+    }
+
     private void rescanWorld(CalculationContext ctx) {
         Debug.logInternal("Rescanning world for " + _trackingBlocks.size() + " blocks... Hopefully not dummy slow.");
         Block[] blocksToScan = new Block[_trackingBlocks.size()];
@@ -329,9 +469,9 @@ public class BlockTracker extends Tracker {
 
 
     static class PosCache {
-        private final HashMap<Block, List<BlockPos>> _cachedBlocks = new HashMap<>();
+        private final HashMap<Block, BlockPosIndex> _cachedBlocks = new HashMap<>();
 
-        private final HashMap<BlockPos, Block> _cachedByPosition = new HashMap<>();
+        private final Long2ObjectOpenHashMap<Block> _cachedByPosition = new Long2ObjectOpenHashMap<>();
 
         private final WorldLocateBlacklist _blacklist = new WorldLocateBlacklist();
 
@@ -353,10 +493,8 @@ public class BlockTracker extends Tracker {
         public boolean anyFound(Predicate<BlockPos> isInvalidTest, Block ...blocks) {
             for (Block block : blocks) {
                 if (_cachedBlocks.containsKey(block)) {
-                    for (BlockPos pos : _cachedBlocks.get(block)) {
-                        if (!isInvalidTest.test(pos)) {
-                            return true;
-                        }
+                    if (_cachedBlocks.get(block).anyMatch(pos -> !isInvalidTest.test(pos))) {
+                        return true;
                     }
                 }
             }
@@ -366,9 +504,9 @@ public class BlockTracker extends Tracker {
         public List<BlockPos> getKnownLocations(Block ...blocks) {
             List<BlockPos> result = new ArrayList<>();
             for (Block block : blocks) {
-                List<BlockPos> found = _cachedBlocks.get(block);
+                BlockPosIndex found = _cachedBlocks.get(block);
                 if (found != null) {
-                    result.addAll(found);
+                    found.addAllTo(result);
                 }
             }
             return result;
@@ -376,10 +514,10 @@ public class BlockTracker extends Tracker {
 
         public void removeBlock(BlockPos pos, Block ...blocks) {
             for (Block block : blocks) {
-                if (_cachedBlocks.containsKey(block)) {
-                    _cachedBlocks.get(block).remove(pos);
-                    _cachedByPosition.remove(pos);
-                    if (_cachedBlocks.get(block).size() == 0) {
+                BlockPosIndex index = _cachedBlocks.get(block);
+                if (index != null && index.remove(pos)) {
+                    _cachedByPosition.remove(pos.asLong());
+                    if (index.isEmpty()) {
                         _cachedBlocks.remove(block);
                     }
                 }
@@ -388,23 +526,34 @@ public class BlockTracker extends Tracker {
 
         public void addBlock(Block block, BlockPos pos) {
             if (blockUnreachable(pos)) return;
-            if (_cachedByPosition.containsKey(pos)) {
-                if (_cachedByPosition.get(pos) == block) {
+            Block current = _cachedByPosition.get(pos.asLong());
+            if (current != null) {
+                if (current == block) {
                     // We're already tracked
                     return;
                 } else {
                     // We're tracked incorrectly, fix
-                    removeBlock(pos, block);
+                    removeBlock(pos, current);
                 }
             }
             if (!anyFound(block)) {
-                _cachedBlocks.put(block, new ArrayList<>());
+                _cachedBlocks.put(block, new BlockPosIndex());
             }
             _cachedBlocks.get(block).add(pos);
-            _cachedByPosition.put(pos, block);
+            _cachedByPosition.put(pos.asLong(), block);
         }
 
 
+        public void removeChunk(ChunkPos pos) {
+            for (Block block : new ArrayList<>(_cachedBlocks.keySet())) {
+                BlockPosIndex index = _cachedBlocks.get(block);
+                index.removeChunk(pos.x, pos.z, _cachedByPosition::remove);
+                if (index.isEmpty()) {
+                    _cachedBlocks.remove(block);
+                }
+            }
+        }
+
         public void clear() {
             Debug.logInternal("CLEARED BLOCK CACHE");
             _cachedBlocks.clear();
@@ -413,11 +562,7 @@ public class BlockTracker extends Tracker {
         }
 
         public int getBlockTrackCount() {
-            int count = 0;
-            for (List<BlockPos> list : _cachedBlocks.values()) {
-                count += list.size();
-            }
-            return count;
+            return _cachedByPosition.size();
         }
 
         public void blacklistBlockUnreachable(AltoClef mod, BlockPos pos, int allowedFailures) {
@@ -427,138 +572,112 @@ public class BlockTracker extends Tracker {
             return _blacklist.unreachable(pos);
         }
 
-        // Gets nearest block. For now does linear search. In the future might optimize this a bit
+        /**
+         * Gets the nearest block that isn't invalid.
+         *
+         * Validity is checked lazily: only the best candidate gets checked against the world,
+         * and if it turns out to be gone we remove it and look again.
+         */
         public BlockPos getNearest(AltoClef mod, Vec3d position, Predicate<BlockPos> isInvalid, Block ...blocks) {
-            if (!anyFound(blocks)) {
-                //Debug.logInternal("(failed cataloguecheck for " + block.getTranslationKey() + ")");
-                return null;
-            }
-
-            BlockPos closest = null;
-            double minScore = Double.POSITIVE_INFINITY;
-
-            List<BlockPos> blockList = getKnownLocations(blocks);
-
-            int toPurge = blockList.size() - _cutoffSize;
-
-            boolean closestPurged = false;
-
-            for (BlockPos pos : blockList) {
-                if (isInvalid.test(pos)) continue;
-
-                // If our current block isn't valid, fix it up. This cleans while we're iterating.
-                if (!mod.getBlockTracker().blockIsValid(pos, blocks)) {
-                    removeBlock(pos, blocks);
+            while (true) {
+                BlockPos closest = null;
+                double minScore = Double.POSITIVE_INFINITY;
+                for (Block block : blocks) {
+                    BlockPosIndex index = _cachedBlocks.get(block);
+                    if (index == null) continue;
+                    BlockPos candidate = index.getNearest(position, isInvalid);
+                    if (candidate == null) continue;
+                    double score = BaritoneHelper.calculateGenericHeuristic(position, Util.toVec3d(candidate));
+                    if (score < minScore) {
+                        minScore = score;
+                        closest = candidate;
+                    }
+                }
+                if (closest == null) {
+                    //Debug.logInternal("(failed cataloguecheck for " + block.getTranslationKey() + ")");
+                    return null;
+                }
+                // If our closest block isn't valid, fix it up and try the next best.
+                if (!mod.getBlockTracker().blockIsValid(closest, blocks)) {
+                    removeBlock(closest, blocks);
                     continue;
                 }
+                return closest;
+            }
+        }
 
-                double score = BaritoneHelper.calculateGenericHeuristic(position, Util.toVec3d(pos));
-
-                boolean currentlyClosest = false;
-                boolean purged = false;
-
-                if (score < minScore) {
-                    minScore = score;
-                    closest = pos;
-                    currentlyClosest = true;
-                }
+        /**
+         * Gets up to `count` of the nearest valid blocks, closest first. Same lazy validity checks as above.
+         */
+        public List<BlockPos> getNearest(AltoClef mod, Vec3d position, int count, Block ...blocks) {
+            List<BlockPos> result = new ArrayList<>(count);
+            // Only a handful, so a list beats a set here.
+            while (result.size() < count) {
+                BlockPos next = getNearest(mod, position, result::contains, blocks);
+                if (next == null) break;
+                result.add(next);
+            }
+            return result;
+        }
 
-                if (toPurge > 0) {
-                    double sqDist = position.squaredDistanceTo(Util.toVec3d(pos));
-                    if (sqDist > _cutoffRadius*_cutoffRadius) {
-                        // cut this one off.
-                        for (Block block : blocks) {
-                            if (_cachedBlocks.containsKey(block)) {
-                                removeBlock(pos, block);
-                            }
-                        }
-                        toPurge --;
-                        purged = true;
+        /**
+         * Gets the nearest block within range in a straight line, only checking the best candidate against the world.
+         */
+        public BlockPos getNearestWithinRange(AltoClef mod, Vec3d position, double range, Block ...blocks) {
+            while (true) {
+                BlockPos closest = null;
+                double minSq = Double.POSITIVE_INFINITY;
+                for (Block block : blocks) {
+                    BlockPosIndex index = _cachedBlocks.get(block);
+                    if (index == null) continue;
+                    BlockPos candidate = index.getNearestWithinRange(position, range, this::blockUnreachable);
+                    if (candidate == null) continue;
+                    double sq = candidate.getSquaredDistance(position, false);
+                    if (sq < minSq) {
+                        minSq = sq;
+                        closest = candidate;
                     }
                 }
-
-                if (currentlyClosest) {
-                    closestPurged = purged;
+                if (closest == null) {
+                    return null;
                 }
-            }
-
-            while (toPurge > 0) {
-                if (blockList.size() == 0) {
-                    //noinspection UnusedAssignment
-                    toPurge = 0;
-                    break;
+                if (!mod.getBlockTracker().blockIsValid(closest, blocks)) {
+                    removeBlock(closest, blocks);
+                    continue;
                 }
-                blockList.remove(blockList.size() - 1);
-                toPurge --;
-            }
-
-            // Special case: Our closest was purged. Add us back.
-            if (closestPurged) {
-                Debug.logInternal("Rare edge case: Closest block was purged cause it was real far away, it will now be added back.");
-                blockList.add(closest);
+                return closest;
             }
-
-            return closest;
         }
 
         /**
          * Purge enough blocks so our size is small enough
          */
         public void smartPurge(AltoClef mod, Vec3d playerPos) {
+            for (Block block : new ArrayList<>(_cachedBlocks.keySet())) {
+                BlockPosIndex index = _cachedBlocks.get(block);
 
-            // Clear cached by position blocks, as they can be a handful.
-            try {
-                int MAX_CACHE_SIZE = 10000;
-                if (_cachedByPosition.size() > MAX_CACHE_SIZE) {
-                    List<BlockPos> toRemoveList = new ArrayList<>(_cachedByPosition.size() - MAX_CACHE_SIZE);
-                    // Just purge randomly.
-                    for (BlockPos pos : _cachedByPosition.keySet()) {
-                        if (_cachedByPosition.size() - toRemoveList.size() < MAX_CACHE_SIZE) {
-                            break;
-                        }
-                        toRemoveList.add(pos);
-                    }
-                    for (BlockPos toDelete : toRemoveList) {
-                        _cachedByPosition.remove(toDelete);
+                // Clear blacklisted blocks
+                List<BlockPos> tracking = new ArrayList<>(index.size());
+                index.addAllTo(tracking);
+                for (BlockPos pos : tracking) {
+                    if (_blacklist.unreachable(pos)) {
+                        removeBlock(pos, block);
                     }
                 }
-            } catch (Exception e) {
-                Debug.logWarning("Failed to purge/reduce _cachedByPosition cache.: Its size remains at " + _cachedByPosition.size());
-            }
-
-            // ^^^ TODO: Something about that feels fishy, particularly how it's disconnected from the _cachedBlocks purging.
-            // I smell a dangerous edge case bug.
 
-            for (Block block : _cachedBlocks.keySet()) {
-                List<BlockPos> tracking = _cachedBlocks.get(block);
-
-                // Clear blacklisted blocks
-                try {
-                    tracking = tracking.stream()
-                            .filter(pos -> !_blacklist.unreachable(pos))
-                            // This is invalid, because some blocks we may want to GO TO not BREAK.
-                            //.filter(pos -> !mod.getExtraBaritoneSettings().shouldAvoidBreaking(pos))
-                            .distinct()
-                            .sorted((BlockPos left, BlockPos right) -> {
-                                double leftDist = left.getSquaredDistance(playerPos, false);
-                                double rightDist = right.getSquaredDistance(playerPos, false);
-                                // 1 if left is further
-                                // -1 if left is closer
-                                if (leftDist > rightDist) {
-                                    return 1;
-                                } else if (leftDist < rightDist) {
-                                    return -1;
-                                }
-                                return 0;
-                            })
-                            .limit(_cutoffSize)
-                            .collect(Collectors.toList());
-                    // This won't update otherwise.
-                    _cachedBlocks.put(block, tracking);
-                } catch (IllegalArgumentException e) {
-                    // Comparison method violates its general contract: Sometimes transitivity breaks.
-                    // In which case, ignore it.
-                    Debug.logWarning("Failed to purge/reduce block search count for " + block + ": It remains at " + tracking.size());
+                if (index.size() <= _cutoffSize) continue;
+
+                // Too many, cut off the furthest ones that are outside our cutoff radius.
+                // This is invalid, because some blocks we may want to GO TO not BREAK.
+                //.filter(pos -> !mod.getExtraBaritoneSettings().shouldAvoidBreaking(pos))
+                tracking.removeIf(pos -> !index.contains(pos));
+                tracking.sort(Comparator.comparingDouble(pos -> -pos.getSquaredDistance(playerPos, false)));
+                int toPurge = index.size() - _cutoffSize;
+                for (BlockPos pos : tracking) {
+                    if (toPurge <= 0) break;
+                    if (pos.getSquaredDistance(playerPos, false) <= _cutoffRadius * _cutoffRadius) break;
+                    removeBlock(pos, block);
+                    toPurge--;
                 }
             }
         }
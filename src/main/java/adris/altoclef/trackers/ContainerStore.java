@@ -0,0 +1,245 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.trackers.ContainerTracker.ChestData;
+import adris.altoclef.util.Dimension;
+import adris.altoclef.util.slots.Slot;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.item.Item;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.registry.Registry;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Saves chest contents to disk, so we remember what's in our chests across sessions.
+ *
+ * Stored under `altoclef_containers/<server>/<dimension>/r.<x>.<z>.bin`, one file per 512x512 region (same as minecraft).
+ * Regions are only read once something in them loads, and only dirty regions are written back.
+ *
+ * File format (big endian, see DataOutputStream):
+ *  int magic, byte version
+ *  varint item name count, then each item identifier as UTF
+ *  varint chest count, then per chest:
+ *      long packed BlockPos, byte flags (1 = big), varint item count, then per item:
+ *          varint item name index, varint total count, varint slot count, then each slot index as a byte
+ */
+public class ContainerStore {
+
+    private static final String STORE_FOLDER = "altoclef_containers";
+
+    private static final int MAGIC = 0x41434353; // "ACCS"
+    private static final byte VERSION = 1;
+
+    private static final int FLAG_BIG = 1;
+
+    private final AltoClef _mod;
+
+    private final RegionFileStore _files = new RegionFileStore(STORE_FOLDER, "container cache");
+
+    private final EnumMap<Dimension, LongOpenHashSet> _loadedRegions = new EnumMap<>(Dimension.class);
+    private final EnumMap<Dimension, LongOpenHashSet> _dirtyRegions = new EnumMap<>(Dimension.class);
+
+    public ContainerStore(AltoClef mod) {
+        _mod = mod;
+    }
+
+    private boolean isEnabled() {
+        return _mod.getModSettings() != null && _mod.getModSettings().shouldPersistContainerCache();
+    }
+
+    /**
+     * Loads the region containing this chunk, if we haven't already.
+     *
+     * @param onLoad Gets every chest we remember in that region.
+     */
+    public void loadRegionOf(Dimension dimension, ChunkPos chunk, BiConsumer<BlockPos, ChestData> onLoad) {
+        if (!isEnabled()) return;
+        long region = ChunkPos.toLong(chunk.getRegionX(), chunk.getRegionZ());
+        if (getRegions(_loadedRegions, dimension).contains(region)) return;
+        File file = _files.getRegionFile(_mod, dimension, null, region);
+        // Not in game yet, try again next time.
+        if (file == null) return;
+        getRegions(_loadedRegions, dimension).add(region);
+        _files.read(file, in -> read(in, dimension, onLoad));
+    }
+
+    public void markDirty(Dimension dimension, BlockPos pos) {
+        if (!isEnabled()) return;
+        long region = regionKey(pos);
+        // Writing a region we never read would wipe whatever else was saved in it.
+        if (!getRegions(_loadedRegions, dimension).contains(region)) return;
+        getRegions(_dirtyRegions, dimension).add(region);
+    }
+
+    /**
+     * Writes every dirty region.
+     *
+     * @param chests Every chest we currently know about, per dimension.
+     */
+    public void saveDirty(Map<Dimension, ? extends Map<BlockPos, ChestData>> chests) {
+        if (!isEnabled()) {
+            _dirtyRegions.clear();
+            return;
+        }
+        for (Map.Entry<Dimension, LongOpenHashSet> dirty : _dirtyRegions.entrySet()) {
+            Dimension dimension = dirty.getKey();
+            LongOpenHashSet regions = dirty.getValue();
+            if (regions.isEmpty()) continue;
+
+            // Bucket the chests we need in one pass
+            Long2ObjectOpenHashMap<List<Map.Entry<BlockPos, ChestData>>> byRegion = new Long2ObjectOpenHashMap<>();
+            Map<BlockPos, ChestData> inDimension = chests.getOrDefault(dimension, Collections.emptyMap());
+            for (Map.Entry<BlockPos, ChestData> entry : inDimension.entrySet()) {
+                long region = regionKey(entry.getKey());
+                if (!regions.contains(region)) continue;
+                List<Map.Entry<BlockPos, ChestData>> bucket = byRegion.get(region);
+                if (bucket == null) {
+                    bucket = new ArrayList<>();
+                    byRegion.put(region, bucket);
+                }
+                bucket.add(entry);
+            }
+
+            LongIterator it = regions.iterator();
+            while (it.hasNext()) {
+                long region = it.nextLong();
+                writeRegion(dimension, region, byRegion.getOrDefault(region, Collections.emptyList()));
+            }
+            regions.clear();
+        }
+    }
+
+    /**
+     * Forget which regions we've loaded and where we're saving. Save before calling this.
+     */
+    public void unload() {
+        _loadedRegions.clear();
+        _dirtyRegions.clear();
+        _files.reset();
+    }
+
+    private void writeRegion(Dimension dimension, long region, List<Map.Entry<BlockPos, ChestData>> chests) {
+        File file = _files.getRegionFile(_mod, dimension, null, region);
+        if (file == null) return;
+        if (chests.isEmpty()) {
+            // Nothing left to remember here.
+            _files.delete(file);
+            return;
+        }
+        _files.write(file, out -> write(out, chests));
+    }
+
+    private static void write(DataOutputStream out, List<Map.Entry<BlockPos, ChestData>> chests) throws IOException {
+        // Item ids can shift between versions/mod lists, so store names once and refer to them by index.
+        HashMap<Item, Integer> itemIndices = new HashMap<>();
+        List<Item> itemNames = new ArrayList<>();
+        for (Map.Entry<BlockPos, ChestData> chest : chests) {
+            for (Item item : chest.getValue().getItems()) {
+                if (!itemIndices.containsKey(item)) {
+                    itemIndices.put(item, itemNames.size());
+                    itemNames.add(item);
+                }
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarInt(out, itemNames.size());
+        for (Item item : itemNames) {
+            out.writeUTF(Registry.ITEM.getId(item).toString());
+        }
+        writeVarInt(out, chests.size());
+        for (Map.Entry<BlockPos, ChestData> chest : chests) {
+            ChestData data = chest.getValue();
+            out.writeLong(chest.getKey().asLong());
+            out.writeByte(data.isBig() ? FLAG_BIG : 0);
+            Collection<Item> items = data.getItems();
+            writeVarInt(out, items.size());
+            for (Item item : items) {
+                List<Slot> slots = data.getItemSlotsWithItem(item);
+                writeVarInt(out, itemIndices.get(item));
+                writeVarInt(out, data.getItemCount(item));
+                writeVarInt(out, slots.size());
+                for (Slot slot : slots) {
+                    out.writeByte(slot.getWindowSlot());
+                }
+            }
+        }
+    }
+
+    private static void read(DataInputStream in, Dimension dimension, BiConsumer<BlockPos, ChestData> onLoad) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not a container cache file");
+        byte version = in.readByte();
+        if (version != VERSION) throw new IOException("Unknown container cache version " + version);
+
+        int itemCount = readVarInt(in);
+        Item[] items = new Item[itemCount];
+        for (int i = 0; i < itemCount; ++i) {
+            Identifier id = Identifier.tryParse(in.readUTF());
+            // Unknown items (removed mod?) come back as null and get skipped.
+            items[i] = (id != null && Registry.ITEM.containsId(id)) ? Registry.ITEM.get(id) : null;
+        }
+
+        int chestCount = readVarInt(in);
+        for (int i = 0; i < chestCount; ++i) {
+            BlockPos pos = BlockPos.fromLong(in.readLong());
+            int flags = in.readUnsignedByte();
+            ChestData data = new ChestData((flags & FLAG_BIG) != 0, dimension);
+            int occupied = 0;
+            int itemsInChest = readVarInt(in);
+            for (int j = 0; j < itemsInChest; ++j) {
+                int itemIndex = readVarInt(in);
+                int count = readVarInt(in);
+                int slotCount = readVarInt(in);
+                int[] slots = new int[slotCount];
+                for (int k = 0; k < slotCount; ++k) {
+                    slots[k] = in.readUnsignedByte();
+                }
+                if (itemIndex < 0 || itemIndex >= items.length) throw new IOException("Bad item index " + itemIndex);
+                if (items[itemIndex] == null) continue;
+                data.addItemSlots(items[itemIndex], count, slots);
+                occupied += slotCount;
+            }
+            data.setOccupiedSlots(occupied);
+            onLoad.accept(pos, data);
+        }
+    }
+
+    private static long regionKey(BlockPos pos) {
+        return ChunkPos.toLong(pos.getX() >> 9, pos.getZ() >> 9);
+    }
+
+    private static LongOpenHashSet getRegions(EnumMap<Dimension, LongOpenHashSet> map, Dimension dimension) {
+        LongOpenHashSet result = map.get(dimension);
+        if (result == null) {
+            result = new LongOpenHashSet();
+            map.put(dimension, result);
+        }
+        return result;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IOException("VarInt too long");
+    }
+}
@@ -2,9 +2,9 @@ package adris.altoclef.trackers;
 
 import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
+import adris.altoclef.util.Dimension;
 import adris.altoclef.util.ItemTarget;
 import adris.altoclef.util.WorldUtil;
-import adris.altoclef.util.csharpisbetter.Timer;
 import adris.altoclef.util.slots.ChestSlot;
 import adris.altoclef.util.slots.Slot;
 import net.minecraft.block.Block;
@@ -18,6 +18,8 @@ import net.minecraft.screen.FurnaceScreenHandler;
 import net.minecraft.screen.GenericContainerScreenHandler;
 import net.minecraft.screen.ScreenHandler;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
 
 import java.time.Instant;
 import java.util.*;
@@ -32,8 +34,6 @@ public class ContainerTracker extends Tracker {
     private final ChestMap _chestMap;
     private final FurnaceMap _furnaceMap;
 
-    private final Timer _updateTimer = new Timer(10);
-
     // We can't get the contents of the screen until the server ticks once.
     private Screen _awaitingScreen = null;
 
@@ -45,16 +45,32 @@ public class ContainerTracker extends Tracker {
 
     @Override
     protected void updateState() {
-        if (_updateTimer.elapsed()) {
-            _updateTimer.reset();
-            _chestMap.updateBlocks();
-            _furnaceMap.updateBlocks();
-        }
+        _chestMap.updateBlocks();
+        _furnaceMap.updateBlocks();
+        _chestMap.save();
+    }
+
+    @Override
+    public UpdatePolicy getUpdatePolicy() {
+        return UpdatePolicy.EVERY_N_TICKS;
+    }
+
+    @Override
+    public int getUpdateInterval() {
+        // 10 seconds
+        return 200;
+    }
+
+    @Override
+    public boolean isLowPriority() {
+        return true;
     }
 
     @Override
     protected void reset() {
-        _chestMap.clear();
+        // Don't lose anything we changed since our last save
+        _chestMap.save();
+        _chestMap.unload();
         _furnaceMap.clear();
     }
 
@@ -66,6 +82,10 @@ public class ContainerTracker extends Tracker {
         }
     }
 
+    public void onChunkLoad(ChunkPos pos) {
+        _chestMap.loadRegionOf(pos);
+    }
+
     public void onScreenOpenFirstTick(Screen screen) {
         _awaitingScreen = screen;
     }
@@ -109,9 +129,13 @@ public class ContainerTracker extends Tracker {
     }
 
     public FurnaceMap getFurnaceMap() {
+        ensureUpdated();
         return _furnaceMap;
     }
-    public ChestMap getChestMap() { return _chestMap; }
+    public ChestMap getChestMap() {
+        ensureUpdated();
+        return _chestMap;
+    }
 
     abstract static class ContainerMap<T extends ScreenHandler> {
 
@@ -148,11 +172,42 @@ public class ContainerTracker extends Tracker {
     public static class ChestMap extends ContainerMap<GenericContainerScreenHandler> {
 
         private final AltoClef _mod;
-        private final HashMap<BlockPos, ChestData> _blockData = new HashMap<>();
-        //private final HashMap<Item, List<BlockPos>> _chestsWithItem = new HashMap<>();
+        // Per dimension, since the nether and overworld can both have a chest at the same coordinates.
+        private final EnumMap<Dimension, HashMap<BlockPos, ChestData>> _blockData = new EnumMap<>(Dimension.class);
+        // Which chests hold each item, per dimension. Kept in sync with _blockData.
+        private final EnumMap<Dimension, HashMap<Item, ChestsWithItem>> _chestsWithItem = new EnumMap<>(Dimension.class);
+
+        // Remembers chest contents between sessions
+        private final ContainerStore _store;
+
+        // Bumped whenever any chest's contents change
+        private int _changeVersion = 0;
 
         public ChestMap(AltoClef mod) {
             _mod = mod;
+            _store = new ContainerStore(mod);
+        }
+
+        void loadRegionOf(ChunkPos pos) {
+            // Whatever we've seen this session is newer than what's on disk.
+            Dimension dimension = _mod.getCurrentDimension();
+            HashMap<BlockPos, ChestData> blockData = getBlockData(dimension);
+            _store.loadRegionOf(dimension, pos, (chestPos, data) -> {
+                if (!blockData.containsKey(chestPos)) {
+                    blockData.put(chestPos, data);
+                    addToIndex(chestPos, data);
+                }
+            });
+        }
+
+        void save() {
+            _store.saveDirty(_blockData);
+        }
+
+        // Forget everything in memory, but keep what's on disk.
+        void unload() {
+            clear();
+            _store.unload();
         }
 
         @Override
@@ -164,10 +219,13 @@ public class ContainerTracker extends Tracker {
             }
 
             boolean big = screenHandler.getRows() >= 6;
+            Dimension dimension = _mod.getCurrentDimension();
 
-            _blockData.putIfAbsent(pos, new ChestData(big));
-            ChestData data = _blockData.get(pos);
+            HashMap<BlockPos, ChestData> blockData = getBlockData(dimension);
+            blockData.putIfAbsent(pos, new ChestData(big, dimension));
+            ChestData data = blockData.get(pos);
 
+            removeFromIndex(pos, data);
             data.clear();
             data.setBig(big);
 
@@ -182,17 +240,23 @@ public class ContainerTracker extends Tracker {
                 }
             }
             data.setOccupiedSlots(occupied);
+            addToIndex(pos, data);
+            _store.markDirty(dimension, pos);
         }
 
         @Override
         public void updateBlocks() {
+            // Can't check chests in another dimension, so only look at ours.
+            HashMap<BlockPos, ChestData> blockData = getBlockData(_mod.getCurrentDimension());
             // Check for deleted blocks and delete if they no longer exist
-            for (BlockPos blockToCheck : _blockData.keySet()) {
-                if (!_mod.getBlockTracker().blockIsValid(blockToCheck, Blocks.CHEST)) {
+            // (copy, since we delete as we go)
+            for (BlockPos blockToCheck : new ArrayList<>(blockData.keySet())) {
+                if (!_mod.getBlockTracker().blockIsValid(blockToCheck, Blocks.CHEST, Blocks.TRAPPED_CHEST)) {
                     deleteBlock(blockToCheck);
+                    continue;
                 }
                 if (_mod.getChunkTracker().isChunkLoaded(blockToCheck)) {
-                    ChestData data = _blockData.get(blockToCheck);
+                    ChestData data = blockData.get(blockToCheck);
                     if (data._big && !WorldUtil.isChestBig(_mod, blockToCheck)) {
                         Debug.logMessage("Cached chest size at " + blockToCheck.toShortString() + " reduced, will delete chest info/uncache.");
                         deleteBlock(blockToCheck);
@@ -203,47 +267,160 @@ public class ContainerTracker extends Tracker {
 
         @Override
         public void deleteBlock(BlockPos pos) {
-            _blockData.remove(pos);
+            ChestData removed = getBlockData(_mod.getCurrentDimension()).remove(pos);
+            if (removed != null) {
+                removeFromIndex(pos, removed);
+                _store.markDirty(removed.getDimension(), pos);
+            }
         }
 
         @Override
         public void clear() {
             _blockData.clear();
-            //_chestsWithItem.clear();
+            _chestsWithItem.clear();
+            _changeVersion++;
         }
 
-        private void validateItemChestMap(Item item) {
-            //if (_chestsWithItem.containsKey(item)) {
-                // Remove if we're not tracking this block anymore.
-            //    _chestsWithItem.get(item).removeIf(blockPos -> !_blockData.containsKey(blockPos));
-            //}
+        /**
+         * Changes whenever what we know about chest contents changes.
+         */
+        public int getChangeVersion() {
+            return _changeVersion;
+        }
+
+        private HashMap<BlockPos, ChestData> getBlockData(Dimension dimension) {
+            return _blockData.computeIfAbsent(dimension, key -> new HashMap<>());
+        }
+
+        private void addToIndex(BlockPos pos, ChestData data) {
+            _changeVersion++;
+            HashMap<Item, ChestsWithItem> index = _chestsWithItem.computeIfAbsent(data.getDimension(), dimension -> new HashMap<>());
+            for (Item item : data.getItems()) {
+                index.computeIfAbsent(item, key -> new ChestsWithItem()).add(pos, data.getItemCount(item));
+            }
+        }
+
+        private void removeFromIndex(BlockPos pos, ChestData data) {
+            _changeVersion++;
+            HashMap<Item, ChestsWithItem> index = _chestsWithItem.get(data.getDimension());
+            if (index == null) return;
+            for (Item item : data.getItems()) {
+                ChestsWithItem chests = index.get(item);
+                if (chests == null) continue;
+                chests.remove(pos, data.getItemCount(item));
+                if (chests.isEmpty()) {
+                    index.remove(item);
+                }
+            }
+        }
+
+        private ChestsWithItem getChestsWithItem(Item item) {
+            HashMap<Item, ChestsWithItem> index = _chestsWithItem.get(_mod.getCurrentDimension());
+            return index != null ? index.get(item) : null;
         }
 
         public ChestData getCachedChestData(BlockPos pos) {
-            return _blockData.getOrDefault(pos, null);
+            return getBlockData(_mod.getCurrentDimension()).getOrDefault(pos, null);
         }
 
         public List<BlockPos> getBlocksWithItem(ItemTarget[] targets, boolean requireMinAmount) {
-            List<BlockPos> result = new ArrayList<>();
-            int count = 0;
-            for (BlockPos pos : _blockData.keySet()) {
-                ChestData data = getCachedChestData(pos);
-                for (ItemTarget target : targets) {
-                    for (Item item : target.getMatches()) {
-                        if (data.getItemCount(item) > 0) {
-                            result.add(pos);
-                            count += data.getItemCount(item);
-                        }
+            // A chest can hold more than one of our matches, only list it once.
+            Set<BlockPos> result = new LinkedHashSet<>();
+            for (ItemTarget target : targets) {
+                if (requireMinAmount && getItemCountInChests(target.getMatches()) < target.targetCount) continue;
+                for (Item item : target.getMatches()) {
+                    ChestsWithItem chests = getChestsWithItem(item);
+                    if (chests != null) {
+                        chests.positions.addAllTo(result);
                     }
                 }
             }
-            return result;
-            //return new ArrayList<>();
+            return new ArrayList<>(result);
         }
         public List<BlockPos> getBlocksWithItem(ItemTarget ...targets) {
             return getBlocksWithItem(targets, false);
         }
         public List<BlockPos> getBlocksWithItem(Item ...items) { return getBlocksWithItem(new ItemTarget(items));}
+
+        /**
+         * @return The closest chest (straight line) within `range` that holds any of our targets, or null if there is none.
+         */
+        public BlockPos getClosestChestWithItem(Vec3d position, double range, ItemTarget ...targets) {
+            BlockPos best = null;
+            double bestRange = range;
+            for (ItemTarget target : targets) {
+                for (Item item : target.getMatches()) {
+                    ChestsWithItem chests = getChestsWithItem(item);
+                    if (chests == null) continue;
+                    BlockPos closest = chests.positions.getNearestWithinRange(position, bestRange, pos -> false);
+                    if (closest != null) {
+                        best = closest;
+                        // Anything else has to beat this one.
+                        bestRange = Math.sqrt(closest.getSquaredDistance(position, false));
+                    }
+                }
+            }
+            return best;
+        }
+
+        /**
+         * @return Every chest we know the contents of in our current dimension.
+         */
+        public List<BlockPos> getKnownChests() {
+            return new ArrayList<>(getBlockData(_mod.getCurrentDimension()).keySet());
+        }
+
+        /**
+         * @return How many of these items we know are in chests, in our current dimension.
+         */
+        public int getItemCountInChests(Item ...items) {
+            int result = 0;
+            for (Item item : items) {
+                ChestsWithItem chests = getChestsWithItem(item);
+                if (chests != null) {
+                    result += chests.totalCount;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return How many of these items we know are in chests within `range` (straight line) of `position`.
+         */
+        public int getItemCountInChests(Vec3d position, double range, Item ...items) {
+            HashMap<BlockPos, ChestData> blockData = getBlockData(_mod.getCurrentDimension());
+            double rangeSq = range * range;
+            int[] result = new int[1];
+            for (Item item : items) {
+                ChestsWithItem chests = getChestsWithItem(item);
+                if (chests == null) continue;
+                chests.positions.forEach(pos -> {
+                    if (pos.getSquaredDistance(position, false) <= rangeSq) {
+                        result[0] += blockData.get(pos).getItemCount(item);
+                    }
+                });
+            }
+            return result[0];
+        }
+    }
+
+    private static class ChestsWithItem {
+        public final BlockPosIndex positions = new BlockPosIndex();
+        public int totalCount = 0;
+
+        public void add(BlockPos pos, int count) {
+            if (positions.add(pos)) {
+                totalCount += count;
+            }
+        }
+        public void remove(BlockPos pos, int count) {
+            if (positions.remove(pos)) {
+                totalCount -= count;
+            }
+        }
+        public boolean isEmpty() {
+            return positions.isEmpty();
+        }
     }
 
     public static class ChestData {
@@ -256,8 +433,11 @@ public class ContainerTracker extends Tracker {
 
         private int _occupiedSlots;
 
-        public ChestData(boolean big) {
+        private final Dimension _dimension;
+
+        public ChestData(boolean big, Dimension dimension) {
             _big = big;
+            _dimension = dimension;
         }
 
         public boolean isBig() {
@@ -288,6 +468,12 @@ public class ContainerTracker extends Tracker {
         public List<Slot> getItemSlotsWithItem(Item item) {
             return _itemSlots.getOrDefault(item, new ArrayList<>());
         }
+        public Collection<Item> getItems() {
+            return _itemCounts.keySet();
+        }
+        public Dimension getDimension() {
+            return _dimension;
+        }
 
         public void clear() {
             _itemCounts.clear();
@@ -301,6 +487,15 @@ public class ContainerTracker extends Tracker {
             _itemSlots.get(item).add(new ChestSlot(slotIndex, _big));
         }
 
+        // Used when loading from disk, where we only know the total count for each item.
+        void addItemSlots(Item item, int count, int[] slotIndices) {
+            _itemCounts.put(item, _itemCounts.getOrDefault(item, 0) + count);
+            _itemSlots.putIfAbsent(item, new ArrayList<>());
+            for (int slotIndex : slotIndices) {
+                _itemSlots.get(item).add(new ChestSlot(slotIndex, _big));
+            }
+        }
+
         public int getOccupiedSlots() {return _occupiedSlots;}
         public void setOccupiedSlots(int slotCount) { _occupiedSlots = slotCount; }
 
@@ -308,8 +503,12 @@ public class ContainerTracker extends Tracker {
             _big = big;
         }
 
+        public int getSlotCount() {
+            return _big? 9*3*2 : 9*3;
+        }
+
         public boolean isFull() {
-            return _occupiedSlots >= (_big? 9*3*2 : 9*3);
+            return _occupiedSlots >= getSlotCount();
         }
     }
 
@@ -341,10 +540,14 @@ public class ContainerTracker extends Tracker {
             // Keep track of the items at this block.
 
 
-            if (!_blockData.containsKey(pos)) {
-                _blockData.put(pos, new FurnaceData());
-            }
             FurnaceData dat = _blockData.get(pos);
+            if (dat == null) {
+                dat = new FurnaceData();
+                _blockData.put(pos, dat);
+            } else {
+                // Whatever it was cooking before may have changed.
+                removeMaterial(pos, dat);
+            }
 
             int materialSlot = 0,
                     fuelSlot = 1,
@@ -359,6 +562,9 @@ public class ContainerTracker extends Tracker {
             dat.fuelStored = InventoryTracker.getFuelAmount(fuel);
             dat.materials = materials;
             dat.output = output;
+            if (!materials.isEmpty()) {
+                _materialMap.computeIfAbsent(materials.getItem(), item -> new ArrayList<>()).add(pos);
+            }
 
             dat._wasBurning = screenHandler.isBurning();
 
@@ -382,7 +588,8 @@ public class ContainerTracker extends Tracker {
         @Override
         public void updateBlocks() {
             // Check for deleted blocks and delete if they no longer exist
-            for (BlockPos blockToCheck : _blockData.keySet()) {
+            // (copy, since we delete as we go)
+            for (BlockPos blockToCheck : new ArrayList<>(_blockData.keySet())) {
                 if (!_mod.getBlockTracker().blockIsValid(blockToCheck, Blocks.FURNACE)) {
                     deleteBlock(blockToCheck);
                 }
@@ -391,18 +598,24 @@ public class ContainerTracker extends Tracker {
 
         @Override
         public void deleteBlock(BlockPos pos) {
-            if (_blockData.containsKey(pos)) {
-                FurnaceData toDelete = _blockData.get(pos);
-                if (!toDelete.materials.isEmpty()) {
-                    Item item = toDelete.materials.getItem();
-                    if (_materialMap.containsKey(item)) {
-                        //Debug.logMessage("CONTAINER DELETE: " + pos);
-                        _materialMap.get(item).remove(pos);
-                    } else {
-                        Debug.logWarning("Inconsistent tracking of FurnaceMap for item " + item.getTranslationKey() + ". Please report this bug!");
-                        Debug.logStack();
-                    }
-                }
+            FurnaceData toDelete = _blockData.remove(pos);
+            if (toDelete != null) {
+                //Debug.logMessage("CONTAINER DELETE: " + pos);
+                removeMaterial(pos, toDelete);
+            }
+        }
+
+        private void removeMaterial(BlockPos pos, FurnaceData data) {
+            if (data.materials.isEmpty()) return;
+            Item item = data.materials.getItem();
+            List<BlockPos> furnaces = _materialMap.get(item);
+            if (furnaces == null || !furnaces.remove(pos)) {
+                Debug.logWarning("Inconsistent tracking of FurnaceMap for item " + item.getTranslationKey() + ". Please report this bug!");
+                Debug.logStack();
+                return;
+            }
+            if (furnaces.isEmpty()) {
+                _materialMap.remove(item);
             }
         }
 
@@ -0,0 +1,116 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.util.CachedProjectile;
+import adris.altoclef.util.ProjectileUtil;
+import adris.altoclef.util.baritone.BaritoneHelper;
+import adris.altoclef.util.baritone.DangerField;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.mob.CreeperEntity;
+import net.minecraft.entity.mob.HostileEntity;
+
+import java.util.List;
+
+/**
+ * Where it's dangerous to walk right now: around hostiles that are after us, creepers (a lot more so when they're
+ * about to blow) and wherever projectiles are about to fly through.
+ *
+ * Built at most once per tick, and only while Baritone is told to avoid mobs (see MobDefenseChain). Baritone gets it
+ * as extra movement cost through its Favoring (see FavoringMixin), so paths go around mobs instead of through them.
+ */
+public class DangerTracker extends Tracker {
+
+    private static final double HOSTILE_RADIUS = 5;
+    private static final double CREEPER_RADIUS = 4;
+    // About how far a creeper explosion hurts
+    private static final double CREEPER_FUSING_RADIUS = 7;
+    private static final double PROJECTILE_RADIUS = 1.5;
+    private static final int PROJECTILE_TRACE_TICKS = 40;
+
+    private static final DangerField EMPTY = new DangerField(HOSTILE_RADIUS, false);
+
+    // Replaced as a whole on every update, never modified after.
+    private volatile DangerField _field = EMPTY;
+
+    public DangerTracker(TrackerManager manager) {
+        super(manager);
+    }
+
+    /**
+     * @return Where it's dangerous right now. Client thread only, since it may update.
+     */
+    public DangerField getDangerField() {
+        ensureUpdated();
+        return _field;
+    }
+
+    /**
+     * Makes Baritone's path costs through dangerous blocks higher, if we're avoiding mobs.
+     *
+     * @param favorings Baritone's per block cost multipliers
+     */
+    public void applyTo(Long2DoubleOpenHashMap favorings) {
+        if (!isEnabled()) return;
+        // Off the client thread we can't update, so go with whatever we built last.
+        DangerField field = MinecraftClient.getInstance().isOnThread() ? getDangerField() : _field;
+        field.applyTo(favorings, _mod.getModSettings().getDangerPathCostCoefficient());
+    }
+
+    @Override
+    protected void updateState() {
+        if (!isEnabled() || !_mod.inGame()) {
+            _field = EMPTY;
+            return;
+        }
+        EntityTracker entities = _mod.getEntityTracker();
+        List<HostileEntity> hostiles = entities.getHostiles();
+        List<CreeperEntity> creepers = entities.getTrackedEntities(CreeperEntity.class);
+        List<CachedProjectile> projectiles = entities.getProjectiles();
+
+        DangerField field = new DangerField(HOSTILE_RADIUS, false);
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            for (HostileEntity hostile : hostiles) {
+                // Creepers get their own treatment below
+                if (hostile instanceof CreeperEntity) continue;
+                add(field, hostile, HOSTILE_RADIUS, 1);
+            }
+            for (CreeperEntity creeper : creepers) {
+                float fuse = creeper.getClientFuseTime(1);
+                if (fuse > 0.001f) {
+                    add(field, creeper, CREEPER_FUSING_RADIUS, 1 + fuse * 4);
+                } else {
+                    add(field, creeper, CREEPER_RADIUS, 1);
+                }
+            }
+            for (CachedProjectile projectile : projectiles) {
+                if (projectile == null || projectile.position == null || projectile.velocity == null) continue;
+                // Everywhere it'll be over the next couple seconds
+                for (int tick = 0; tick < PROJECTILE_TRACE_TICKS; ++tick) {
+                    double x = ProjectileUtil.getPositionAfter(projectile.position.x, projectile.velocity.x, 0, projectile.drag, tick);
+                    double y = ProjectileUtil.getPositionAfter(projectile.position.y, projectile.velocity.y, projectile.gravity, projectile.drag, tick);
+                    double z = ProjectileUtil.getPositionAfter(projectile.position.z, projectile.velocity.z, 0, projectile.drag, tick);
+                    field.add(x, y, z, PROJECTILE_RADIUS, 2, null);
+                }
+            }
+        }
+        _field = field;
+    }
+
+    @Override
+    protected void reset() {
+        _field = EMPTY;
+    }
+
+    private boolean isEnabled() {
+        return _mod != null && _mod.getModSettings() != null
+                && _mod.getModSettings().isMobDefense()
+                && _mod.getModSettings().getDangerPathCostCoefficient() > 0
+                && _mod.getClientBaritoneSettings().avoidance.value;
+    }
+
+    private static void add(DangerField field, Entity entity, double radius, double weight) {
+        if (!entity.isAlive()) return;
+        field.add(entity.getX(), entity.getY(), entity.getZ(), radius, weight, entity);
+    }
+}
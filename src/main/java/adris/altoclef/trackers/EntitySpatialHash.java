@@ -0,0 +1,251 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.util.baritone.BaritoneHelper;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Uniform XZ grid of entities, so "closest" and "within radius" queries only look at nearby cells.
+ *
+ * Updated incrementally: call `put` for every entity that still exists this update (with the same generation),
+ * then `sweep` to drop whatever wasn't put. Entities that stay in the same cell cost nothing to update.
+ *
+ * Not thread safe, lock around it.
+ */
+public class EntitySpatialHash<T extends Entity> {
+
+    // 16 block cells, same as chunks.
+    private static final int CELL_SHIFT = 4;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final Long2ObjectOpenHashMap<List<Tracked<T>>> _cells = new Long2ObjectOpenHashMap<>();
+    private final Int2ObjectOpenHashMap<Tracked<T>> _entries = new Int2ObjectOpenHashMap<>();
+
+    public void put(T entity, int generation) {
+        long cell = cellKey(entity.getX(), entity.getZ());
+        Tracked<T> entry = _entries.get(entity.getEntityId());
+        if (entry == null) {
+            entry = new Tracked<>();
+            entry.cell = cell;
+            _entries.put(entity.getEntityId(), entry);
+            getCell(cell).add(entry);
+        } else if (entry.cell != cell) {
+            removeFromCell(entry);
+            entry.cell = cell;
+            getCell(cell).add(entry);
+        }
+        entry.entity = entity;
+        entry.generation = generation;
+    }
+
+    /**
+     * Remove every entity that wasn't `put` during this generation.
+     */
+    public void sweep(int generation) {
+        _entries.values().removeIf(entry -> {
+            if (entry.generation != generation) {
+                removeFromCell(entry);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public void clear() {
+        _cells.clear();
+        _entries.clear();
+    }
+
+    public int size() {
+        return _entries.size();
+    }
+
+    public boolean isEmpty() {
+        return _entries.isEmpty();
+    }
+
+    public T getClosest(Vec3d position, Metric metric, Predicate<T> ignore) {
+        List<T> result = getClosest(position, 1, metric, ignore);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Gets the `k` closest entities, closest first.
+     *
+     * Searches rings of cells outward and stops once the next ring can't possibly hold anything better.
+     */
+    public List<T> getClosest(Vec3d position, int k, Metric metric, Predicate<T> ignore) {
+        if (k <= 0 || _entries.isEmpty()) return new ArrayList<>();
+        // Worst of our best k sits on top.
+        PriorityQueue<Scored<T>> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble((Scored<T> scored) -> scored.score).reversed());
+
+        int centerX = (int) Math.floor(position.x) >> CELL_SHIFT,
+            centerZ = (int) Math.floor(position.z) >> CELL_SHIFT;
+
+        // Once we've looked at a bunch more cells than actually exist, it's cheaper to just check all of them.
+        int cellsVisited = 0;
+        int cellBudget = _cells.size() * 4 + 9;
+
+        for (int ring = 0; ; ++ring) {
+            if (best.size() >= k) {
+                // Anything in this ring is at least this far away horizontally.
+                double bound = metric.lowerBound((ring - 1) * CELL_SIZE);
+                if (best.peek().score <= bound) break;
+            }
+            if (cellsVisited > cellBudget) {
+                // Brute force the rest, skipping the square we've already covered.
+                int covered = ring - 1;
+                for (Long2ObjectMap.Entry<List<Tracked<T>>> cell : _cells.long2ObjectEntrySet()) {
+                    long key = cell.getLongKey();
+                    if (Math.abs(ChunkPos.getPackedX(key) - centerX) <= covered && Math.abs(ChunkPos.getPackedZ(key) - centerZ) <= covered) continue;
+                    scoreCell(cell.getValue(), position, k, metric, ignore, best);
+                }
+                break;
+            }
+            if (ring == 0) {
+                scoreCell(_cells.get(ChunkPos.toLong(centerX, centerZ)), position, k, metric, ignore, best);
+                cellsVisited++;
+                continue;
+            }
+            for (int i = -ring; i <= ring; ++i) {
+                scoreCell(_cells.get(ChunkPos.toLong(centerX + i, centerZ - ring)), position, k, metric, ignore, best);
+                scoreCell(_cells.get(ChunkPos.toLong(centerX + i, centerZ + ring)), position, k, metric, ignore, best);
+            }
+            for (int i = -ring + 1; i <= ring - 1; ++i) {
+                scoreCell(_cells.get(ChunkPos.toLong(centerX - ring, centerZ + i)), position, k, metric, ignore, best);
+                scoreCell(_cells.get(ChunkPos.toLong(centerX + ring, centerZ + i)), position, k, metric, ignore, best);
+            }
+            cellsVisited += 8 * ring;
+        }
+
+        List<T> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().entity);
+        }
+        // We polled worst first.
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Adds every entity within `radius` (straight line) of `position` to `result`, in no particular order.
+     */
+    public void getWithinRadius(Vec3d position, double radius, Predicate<T> ignore, List<T> result) {
+        int minX = (int) Math.floor(position.x - radius) >> CELL_SHIFT,
+            maxX = (int) Math.floor(position.x + radius) >> CELL_SHIFT,
+            minZ = (int) Math.floor(position.z - radius) >> CELL_SHIFT,
+            maxZ = (int) Math.floor(position.z + radius) >> CELL_SHIFT;
+        double radiusSq = radius * radius;
+        for (int cx = minX; cx <= maxX; ++cx) {
+            for (int cz = minZ; cz <= maxZ; ++cz) {
+                List<Tracked<T>> cell = _cells.get(ChunkPos.toLong(cx, cz));
+                if (cell == null) continue;
+                for (Tracked<T> entry : cell) {
+                    if (entry.entity.squaredDistanceTo(position) > radiusSq) continue;
+                    if (ignore.test(entry.entity)) continue;
+                    result.add(entry.entity);
+                }
+            }
+        }
+    }
+
+    private void scoreCell(List<Tracked<T>> cell, Vec3d position, int k, Metric metric, Predicate<T> ignore, PriorityQueue<Scored<T>> best) {
+        if (cell == null) return;
+        for (Tracked<T> entry : cell) {
+            double score = metric.score(position, entry.entity.getPos());
+            if (best.size() >= k && score >= best.peek().score) continue;
+            if (ignore.test(entry.entity)) continue;
+            best.add(new Scored<>(entry.entity, score));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+    }
+
+    private List<Tracked<T>> getCell(long cell) {
+        List<Tracked<T>> result = _cells.get(cell);
+        if (result == null) {
+            result = new ArrayList<>(4);
+            _cells.put(cell, result);
+        }
+        return result;
+    }
+
+    private void removeFromCell(Tracked<T> entry) {
+        List<Tracked<T>> cell = _cells.get(entry.cell);
+        if (cell != null) {
+            cell.remove(entry);
+            if (cell.isEmpty()) {
+                _cells.remove(entry.cell);
+            }
+        }
+    }
+
+    private static long cellKey(double x, double z) {
+        return ChunkPos.toLong((int) Math.floor(x) >> CELL_SHIFT, (int) Math.floor(z) >> CELL_SHIFT);
+    }
+
+    public enum Metric {
+        // Straight line distance squared
+        DISTANCE_SQ {
+            @Override
+            public double score(Vec3d from, Vec3d to) {
+                return from.squaredDistanceTo(to);
+            }
+
+            @Override
+            public double lowerBound(double horizontalDistance) {
+                if (horizontalDistance <= 0) return 0;
+                return horizontalDistance * horizontalDistance;
+            }
+        },
+        // Baritone's rough travel cost
+        BARITONE_HEURISTIC {
+            @Override
+            public double score(Vec3d from, Vec3d to) {
+                return BaritoneHelper.calculateGenericHeuristic(from, to);
+            }
+
+            @Override
+            public double lowerBound(double horizontalDistance) {
+                if (horizontalDistance <= 0) return 0;
+                // Never lower than walking straight there on flat ground.
+                return BaritoneHelper.calculateGenericHeuristic(0, 0, 0, horizontalDistance, 0, 0);
+            }
+        };
+
+        public abstract double score(Vec3d from, Vec3d to);
+
+        /**
+         * @return The lowest score anything at least `horizontalDistance` away (in X or Z) could have.
+         */
+        public abstract double lowerBound(double horizontalDistance);
+    }
+
+    private static class Tracked<T> {
+        public T entity;
+        public long cell;
+        public int generation;
+    }
+
+    private static class Scored<T> {
+        public final T entity;
+        public final double score;
+
+        public Scored(T entity, double score) {
+            this.entity = entity;
+            this.score = score;
+        }
+    }
+}
@@ -7,6 +7,8 @@ import adris.altoclef.util.CachedProjectile;
 import adris.altoclef.util.ProjectileUtil;
 import adris.altoclef.util.baritone.BaritoneHelper;
 import adris.altoclef.util.ItemTarget;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.entity.Entity;
@@ -20,29 +22,45 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.util.math.Vec3d;
 
-import java.lang.reflect.Field;
 import java.util.*;
 import java.util.function.Predicate;
 
 @SuppressWarnings("rawtypes")
 public class EntityTracker extends Tracker {
 
-    private final HashMap<Item, List<ItemEntity>> _itemDropLocations = new HashMap<>();
+    // We build into the back snapshot then swap, so whatever the front handed out stays intact while we rebuild.
+    private Snapshot _front = new Snapshot();
+    private Snapshot _back = new Snapshot();
 
-    private final HashMap<Class, List<Entity>> _entityMap = new HashMap<>();
+    private final HashMap<String, Vec3d> _playerLastCoordinates = new HashMap<>();
 
-    private final List<Entity> _closeEntities = new ArrayList<>();
-    private final List<HostileEntity> _hostiles = new ArrayList<>();
+    private final EntityLocateBlacklist _entityBlacklist = new EntityLocateBlacklist();
 
-    private final List<CachedProjectile> _projectiles = new ArrayList<>();
+    // Spatial lookups for closest/within radius queries. These persist between updates and only move what moved.
+    private final HashMap<Class, EntitySpatialHash<Entity>> _entityHashes = new HashMap<>();
+    private final HashMap<Item, EntitySpatialHash<ItemEntity>> _itemDropHashes = new HashMap<>();
+    private int _hashGeneration = 0;
 
-    private final HashMap<String, PlayerEntity> _playerMap = new HashMap<>();
-    private final HashMap<String, Vec3d> _playerLastCoordinates = new HashMap<>();
+    // Line of sight and such for mobs, kept across updates.
+    private final HostileThreatModel _threats = new HostileThreatModel();
 
-    private final EntityLocateBlacklist _entityBlacklist = new EntityLocateBlacklist();
+    // Not hostile entities, but they'll still hurt.
+    private static final Class[] NON_HOSTILE_THREATS = new Class[]{HoglinEntity.class, ZoglinEntity.class};
+
+    // Bumped whenever something chains care about may have changed. See getChangeVersion.
+    private int _changeVersion = 0;
+
+    // Where we read entities from on an update.
+    private final IEntityState _state;
 
     public EntityTracker(TrackerManager manager) {
         super(manager);
+        _state = new WorldEntityState();
+    }
+
+    public EntityTracker(TrackerManager manager, IEntityState state) {
+        super(manager);
+        _state = state;
     }
 
     public ItemEntity getClosestItemDrop(Vec3d position, Item ...items) {
@@ -67,15 +85,16 @@ public class EntityTracker extends Tracker {
         }
 
         ItemEntity closestEntity = null;
-        float minCost = Float.POSITIVE_INFINITY;
-        for (ItemTarget target : targets) {
-            for (Item item : target.getMatches()) {
-                if (!itemDropped(item)) continue;
-                for (ItemEntity entity : _itemDropLocations.get(item)) {
-                    if (_entityBlacklist.unreachable(entity)) continue;
-                    if (!entity.getStack().getItem().equals(item)) continue;
-
-                    float cost = (float) BaritoneHelper.calculateGenericHeuristic(position, entity.getPos());
+        double minCost = Double.POSITIVE_INFINITY;
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            for (ItemTarget target : targets) {
+                for (Item item : target.getMatches()) {
+                    EntitySpatialHash<ItemEntity> hash = _itemDropHashes.get(item);
+                    if (hash == null) continue;
+                    ItemEntity entity = hash.getClosest(position, EntitySpatialHash.Metric.BARITONE_HEURISTIC,
+                            drop -> _entityBlacklist.unreachable(drop) || !drop.getStack().getItem().equals(item));
+                    if (entity == null) continue;
+                    double cost = BaritoneHelper.calculateGenericHeuristic(position, entity.getPos());
                     if (cost < minCost) {
                         minCost = cost;
                         closestEntity = entity;
@@ -86,36 +105,81 @@ public class EntityTracker extends Tracker {
         return closestEntity;
     }
 
+    /**
+     * Gets every (reachable) dropped item within a straight line radius.
+     */
+    public List<ItemEntity> getItemDropsWithinRadius(Vec3d position, double radius, Item ...items) {
+        ensureUpdated();
+        List<ItemEntity> result = new ArrayList<>();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            for (Item item : items) {
+                EntitySpatialHash<ItemEntity> hash = _itemDropHashes.get(item);
+                if (hash == null) continue;
+                hash.getWithinRadius(position, radius, drop -> _entityBlacklist.unreachable(drop) || !drop.getStack().getItem().equals(item), result);
+            }
+        }
+        return result;
+    }
+
     public Entity getClosestEntity(Vec3d position, Class ...entityTypes) {
         return this.getClosestEntity(position, (entity) -> false, entityTypes);
     }
 
     public Entity getClosestEntity(Vec3d position, Predicate<Entity> ignore, Class ...entityTypes) {
-        Entity closestEntity = null;
-        double minCost = Float.POSITIVE_INFINITY;
-        for (Class toFind : entityTypes) {
-            if (_entityMap.containsKey(toFind)) {
-                for (Entity entity : _entityMap.get(toFind)) {
-                    // Don't accept entities that no longer exist
-                    if (!entity.isAlive()) continue;
-                    if (ignore.test(entity)) continue;
-                    double cost = entity.squaredDistanceTo(position);
-                    if (cost < minCost) {
-                        minCost = cost;
-                        closestEntity = entity;
-                    }
-                }
+        List<Entity> closest = getClosestEntities(position, 1, ignore, entityTypes);
+        return closest.isEmpty() ? null : closest.get(0);
+    }
+
+    /**
+     * Gets the `count` closest entities of any of the given types, closest first.
+     */
+    public List<Entity> getClosestEntities(Vec3d position, int count, Predicate<Entity> ignore, Class ...entityTypes) {
+        ensureUpdated();
+        // Don't accept entities that no longer exist
+        Predicate<Entity> skip = entity -> !entity.isAlive() || ignore.test(entity);
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            if (entityTypes.length == 1) {
+                EntitySpatialHash<Entity> hash = _entityHashes.get(entityTypes[0]);
+                if (hash == null) return Collections.emptyList();
+                return hash.getClosest(position, count, EntitySpatialHash.Metric.DISTANCE_SQ, skip);
+            }
+            // Merge the closest of each type.
+            List<Entity> result = new ArrayList<>();
+            for (Class toFind : entityTypes) {
+                EntitySpatialHash<Entity> hash = _entityHashes.get(toFind);
+                if (hash == null) continue;
+                result.addAll(hash.getClosest(position, count, EntitySpatialHash.Metric.DISTANCE_SQ, skip));
+            }
+            result.sort(Comparator.comparingDouble(entity -> entity.squaredDistanceTo(position)));
+            if (result.size() > count) {
+                return new ArrayList<>(result.subList(0, count));
             }
+            return result;
         }
-        return closestEntity;
+    }
+
+    /**
+     * Gets every living entity of the given types within a straight line radius, in no particular order.
+     */
+    public List<Entity> getEntitiesWithinRadius(Vec3d position, double radius, Predicate<Entity> ignore, Class ...entityTypes) {
+        ensureUpdated();
+        List<Entity> result = new ArrayList<>();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            for (Class toFind : entityTypes) {
+                EntitySpatialHash<Entity> hash = _entityHashes.get(toFind);
+                if (hash == null) continue;
+                hash.getWithinRadius(position, radius, entity -> !entity.isAlive() || ignore.test(entity), result);
+            }
+        }
+        return result;
     }
 
     public boolean itemDropped(Item ...items) {
         ensureUpdated();
         for(Item item : items) {
-            if (_itemDropLocations.containsKey(item)) {
+            if (_front.itemDropLocations.containsKey(item)) {
                 // Find a non-blacklisted item
-                for (ItemEntity entity : _itemDropLocations.get(item)) {
+                for (ItemEntity entity : _front.itemDropLocations.get(item)) {
                     if (!_entityBlacklist.unreachable(entity)) return true;
                 }
             }
@@ -134,7 +198,9 @@ public class EntityTracker extends Tracker {
     public boolean entityFound(Class ...types) {
         ensureUpdated();
         for (Class type : types) {
-            if (_entityMap.containsKey(type)) return true;
+            // Buckets stick around between updates, so check whether they actually have anything.
+            List<Entity> bucket = _front.entityMap.get(type);
+            if (bucket != null && !bucket.isEmpty()) return true;
         }
         return false;
     }
@@ -146,35 +212,70 @@ public class EntityTracker extends Tracker {
         }
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
             //noinspection unchecked
-            return (List<T>) _entityMap.get(type);
+            return (List<T>) _front.entityMap.get(type);
         }
     }
 
     public List<Entity> getCloseEntities() {
         ensureUpdated();
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            return _closeEntities;
+            return _front.closeEntities;
         }
     }
 
     public List<CachedProjectile> getProjectiles() {
         ensureUpdated();
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            return _projectiles;
+            return _front.projectiles;
         }
     }
 
+    /**
+     * Hostiles that can see us, are close enough and are angry at us.
+     *
+     * Seeing us is a raycast, so we only figure this out the first time someone asks for it each update.
+     */
     public List<HostileEntity> getHostiles() {
         ensureUpdated();
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            return _hostiles;
+            if (!_front.hostilesEvaluated) {
+                _front.hostilesEvaluated = true;
+                ClientPlayerEntity player = _mod.getPlayer();
+                if (player != null) {
+                    for (HostileEntity hostile : _front.hostileCandidates) {
+                        // Check if the mob is close enough, can see us and is angry at us. Cheapest checks first.
+                        if (hostile.isInRange(player, 26) && isAngryAtPlayer(hostile) && _threats.canSee(hostile, player)) {
+                            _front.hostiles.add(hostile);
+                        }
+                    }
+                }
+            }
+            return _front.hostiles;
+        }
+    }
+
+    /**
+     * @return The tracked entity with this network id, or null if we don't know of one.
+     */
+    public Entity getEntityById(int id) {
+        ensureUpdated();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            return _front.byId.get(id);
         }
     }
 
+    /**
+     * Cached line of sight etc. for mobs. Use it with the minecraft lock held.
+     */
+    public HostileThreatModel getThreatModel() {
+        ensureUpdated();
+        return _threats;
+    }
+
     public boolean isPlayerLoaded(String name) {
         ensureUpdated();
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            return _playerMap.containsKey(name);
+            return _front.playerMap.containsKey(name);
         }
     }
     public Vec3d getPlayerMostRecentPosition(String name) {
@@ -189,7 +290,7 @@ public class EntityTracker extends Tracker {
     public PlayerEntity getPlayerEntity(String name) {
         if (isPlayerLoaded(name)) {
             synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-                return _playerMap.get(name);
+                return _front.playerMap.get(name);
             }
         }
         return null;
@@ -206,93 +307,126 @@ public class EntityTracker extends Tracker {
     @Override
     protected synchronized void updateState() {
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            _itemDropLocations.clear();
-            _entityMap.clear();
-            _closeEntities.clear();
-            _projectiles.clear();
-            _hostiles.clear();
-            _playerMap.clear();
-            if (MinecraftClient.getInstance().world == null) return;
-
-            // Loop through all entities and track 'em
-            for (Entity entity : MinecraftClient.getInstance().world.getEntities()) {
-
-                Class type = entity.getClass();
-                type = squashType(type);
-                // Don't catalogue our own player.
-                if (type == PlayerEntity.class && entity.equals(_mod.getPlayer())) continue;
-                if (!_entityMap.containsKey(type)) {
-                    //Debug.logInternal("NEW TYPE: " + type);
-                    _entityMap.put(type, new ArrayList<>());
-                }
-                _entityMap.get(type).add(entity);
-
-                if (_mod.getControllerExtras().inRange(entity)) {
-                    _closeEntities.add(entity);
-                }
+            Snapshot snapshot = _back;
+            snapshot.clear();
+            _hashGeneration++;
+            if (_state.inWorld()) {
+                fillSnapshot(snapshot);
+            }
+            sweepHashes();
+            _back = _front;
+            _front = snapshot;
+            _threats.onUpdate(_front.byId);
+            if (threatsPresent(_front) || !sameEntities(_front, _back)) {
+                _changeVersion++;
+            }
+        }
+    }
 
-                if (entity instanceof ItemEntity) {
-                    ItemEntity ientity = (ItemEntity) entity;
-                    Item droppedItem = ientity.getStack().getItem();
+    /**
+     * Changes whenever entities come or go, and on every update while there's something around that might hurt us
+     * (since those move around and need looking at every tick).
+     *
+     * If this hasn't changed, nothing that cares about threats needs to look at us again.
+     */
+    public int getChangeVersion() {
+        ensureUpdated();
+        return _changeVersion;
+    }
 
-                    if (!_itemDropLocations.containsKey(droppedItem)) {
-                        _itemDropLocations.put(droppedItem, new ArrayList<>());
-                    }
-                    _itemDropLocations.get(droppedItem).add(ientity);
-                } else if (entity instanceof MobEntity) {
-                    //MobEntity mob = (MobEntity) entity;
+    private static boolean threatsPresent(Snapshot snapshot) {
+        if (!snapshot.hostileCandidates.isEmpty() || !snapshot.projectiles.isEmpty()) return true;
+        for (Class type : NON_HOSTILE_THREATS) {
+            List<Entity> bucket = snapshot.entityMap.get(type);
+            if (bucket != null && !bucket.isEmpty()) return true;
+        }
+        return false;
+    }
 
+    private static boolean sameEntities(Snapshot left, Snapshot right) {
+        if (left.byId.size() != right.byId.size()) return false;
+        IntIterator it = left.byId.keySet().iterator();
+        while (it.hasNext()) {
+            if (!right.byId.containsKey(it.nextInt())) return false;
+        }
+        return true;
+    }
 
-                    if (entity instanceof HostileEntity) {
+    private void fillSnapshot(Snapshot snapshot) {
+        // Loop through all entities and track 'em
+        for (Entity entity : _state.getEntities()) {
 
-                        // Only run away if the hostile can see us.
-                        HostileEntity hostile = (HostileEntity) entity;
+            Class type = entity.getClass();
+            type = squashType(type);
+            // Don't catalogue our own player.
+            if (type == PlayerEntity.class && entity.equals(_state.getPlayer())) continue;
+            snapshot.getBucket(snapshot.entityMap, type).add(entity);
+            snapshot.byId.put(entity.getEntityId(), entity);
+            getHash(_entityHashes, type).put(entity, _hashGeneration);
 
-                        if (hostile.canSee(_mod.getPlayer())) {
-                            // Check if the mob is facing us or is close enough
-                            boolean closeEnough = hostile.isInRange(_mod.getPlayer(), 26);
+            if (_state.inRange(entity)) {
+                snapshot.closeEntities.add(entity);
+            }
 
-                            //Debug.logInternal("TARGET: " + hostile.is);
-                            if (closeEnough && isAngryAtPlayer(hostile)) {
-                                _hostiles.add(hostile);
-                            }
-                        }
+            if (entity instanceof ItemEntity) {
+                ItemEntity ientity = (ItemEntity) entity;
+                Item droppedItem = ientity.getStack().getItem();
+                snapshot.getBucket(snapshot.itemDropLocations, droppedItem).add(ientity);
+                getHash(_itemDropHashes, droppedItem).put(ientity, _hashGeneration);
+            } else if (entity instanceof MobEntity) {
+                if (entity instanceof HostileEntity) {
+                    // Whether it can see us is expensive, so that's figured out in getHostiles when somebody needs it.
+                    snapshot.hostileCandidates.add((HostileEntity) entity);
+                }
+            } else if (entity instanceof ProjectileEntity) {
+                if (!_state.shouldAvoidDodgingProjectile(entity)) {
+                    ProjectileEntity projEntity = (ProjectileEntity) entity;
+
+                    boolean inGround = false;
+                    // Get projectile "inGround" variable
+                    if (entity instanceof PersistentProjectileEntity) {
+                        inGround = ((PersistentProjectileEntityAccessor) entity).isInGround();
                     }
 
-                /*
-                if (mob instanceof HostileEntity) {
-                    HostileEntity hostile = (HostileEntity) mob;
-                }
-                 */
-                } else if (entity instanceof ProjectileEntity) {
-                    if (!_mod.getConfigState().shouldAvoidDodgingProjectile(entity)) {
+                    if (!inGround) {
                         CachedProjectile proj = new CachedProjectile();
-                        ProjectileEntity projEntity = (ProjectileEntity) entity;
-
-                        boolean inGround = false;
-                        // Get projectile "inGround" variable
-                        if (entity instanceof PersistentProjectileEntity) {
-                            inGround = ((PersistentProjectileEntityAccessor) entity).isInGround();
-                        }
-
-                        if (!inGround) {
-                            proj.position = projEntity.getPos();
-                            proj.velocity = projEntity.getVelocity();
-                            proj.gravity = ProjectileUtil.hasGravity(projEntity) ? ProjectileUtil.GRAVITY_ACCEL : 0;
-                            proj.projectileType = projEntity.getClass();
-                            _projectiles.add(proj);
-                        }
+                        proj.position = projEntity.getPos();
+                        proj.velocity = projEntity.getVelocity();
+                        proj.gravity = ProjectileUtil.hasGravity(projEntity) ? ProjectileUtil.GRAVITY_ACCEL : 0;
+                        proj.drag = ProjectileUtil.getDrag(projEntity);
+                        proj.projectileType = projEntity.getClass();
+                        snapshot.projectiles.add(proj);
                     }
-                } else if (entity instanceof PlayerEntity) {
-                    PlayerEntity player = (PlayerEntity) entity;
-                    String name = player.getName().getString();
-                    _playerMap.put(name, player);
-                    _playerLastCoordinates.put(name, player.getPos());
                 }
+            } else if (entity instanceof PlayerEntity) {
+                PlayerEntity player = (PlayerEntity) entity;
+                String name = player.getName().getString();
+                snapshot.playerMap.put(name, player);
+                _playerLastCoordinates.put(name, player.getPos());
             }
         }
     }
 
+    private static <K, T extends Entity> EntitySpatialHash<T> getHash(HashMap<K, EntitySpatialHash<T>> hashes, K key) {
+        EntitySpatialHash<T> hash = hashes.get(key);
+        if (hash == null) {
+            hash = new EntitySpatialHash<>();
+            hashes.put(key, hash);
+        }
+        return hash;
+    }
+
+    private void sweepHashes() {
+        for (EntitySpatialHash<Entity> hash : _entityHashes.values()) {
+            hash.sweep(_hashGeneration);
+        }
+        for (EntitySpatialHash<ItemEntity> hash : _itemDropHashes.values()) {
+            hash.sweep(_hashGeneration);
+        }
+        // There are a lot of item types, don't hold on to the ones that aren't around anymore.
+        _itemDropHashes.values().removeIf(EntitySpatialHash::isEmpty);
+    }
+
     /**
      * Squash a class that may have sub classes into one distinguishable class type.
      * For ease of use.
@@ -311,6 +445,11 @@ public class EntityTracker extends Tracker {
     protected void reset() {
         // Dirty clears everything else.
         _entityBlacklist.clear();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            _entityHashes.clear();
+            _itemDropHashes.clear();
+            _threats.reset();
+        }
     }
 
     public static boolean isAngryAtPlayer(Entity hostile) {
@@ -343,4 +482,76 @@ public class EntityTracker extends Tracker {
         }
         return false;
     }
+
+    /**
+     * Everything we know about the world's entities at one point in time.
+     *
+     * Lists are cleared and reused between updates instead of being thrown out.
+     */
+    private static class Snapshot {
+        public final HashMap<Item, List<ItemEntity>> itemDropLocations = new HashMap<>();
+        public final HashMap<Class, List<Entity>> entityMap = new HashMap<>();
+        public final Int2ObjectOpenHashMap<Entity> byId = new Int2ObjectOpenHashMap<>();
+        public final List<Entity> closeEntities = new ArrayList<>();
+        public final List<HostileEntity> hostileCandidates = new ArrayList<>();
+        public final List<HostileEntity> hostiles = new ArrayList<>();
+        public final List<CachedProjectile> projectiles = new ArrayList<>();
+        public final HashMap<String, PlayerEntity> playerMap = new HashMap<>();
+        public boolean hostilesEvaluated = false;
+
+        public <K, V> List<V> getBucket(HashMap<K, List<V>> map, K key) {
+            List<V> bucket = map.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                map.put(key, bucket);
+            }
+            return bucket;
+        }
+
+        public void clear() {
+            // Drop item buckets that went empty, there are a LOT of items and we don't want to hold on to all of them.
+            itemDropLocations.values().removeIf(List::isEmpty);
+            for (List<ItemEntity> bucket : itemDropLocations.values()) {
+                bucket.clear();
+            }
+            for (List<Entity> bucket : entityMap.values()) {
+                bucket.clear();
+            }
+            byId.clear();
+            closeEntities.clear();
+            hostileCandidates.clear();
+            hostiles.clear();
+            projectiles.clear();
+            playerMap.clear();
+            hostilesEvaluated = false;
+        }
+    }
+
+    // The client world, read through the mod we're handed once we're added to the manager.
+    private class WorldEntityState implements IEntityState {
+        @Override
+        public boolean inWorld() {
+            return MinecraftClient.getInstance().world != null;
+        }
+
+        @Override
+        public Iterable<Entity> getEntities() {
+            return MinecraftClient.getInstance().world.getEntities();
+        }
+
+        @Override
+        public Entity getPlayer() {
+            return _mod.getPlayer();
+        }
+
+        @Override
+        public boolean inRange(Entity entity) {
+            return _mod.getControllerExtras().inRange(entity);
+        }
+
+        @Override
+        public boolean shouldAvoidDodgingProjectile(Entity projectile) {
+            return _mod.getConfigState().shouldAvoidDodgingProjectile(projectile);
+        }
+    }
 }
@@ -0,0 +1,210 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.util.Dimension;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.ChunkPos;
+
+import java.io.*;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers which chunks our chunk searches have already looked at, across tasks and sessions.
+ *
+ * Every kind of search (nether fortress, desert, stronghold...) has its own key, since "is this chunk part of what
+ * we're looking for" depends on what we're looking for. Per key we keep two bits per chunk:
+ *  - scanned: we've checked whether it's part of the search space
+ *  - inside: what that check said
+ *
+ * Whether a search found what it wanted is up to each task, so that's not kept here.
+ *
+ * Bits are kept per 32x32 chunk region (same as minecraft's region files) and saved under
+ * `altoclef_explored/<server>/<dimension>/<key>/r.<x>.<z>.bin`. Regions are read the first time we ask about them.
+ *
+ * File format (big endian): int magic, byte version, then 2 * 16 longs (scanned, inside bitmaps).
+ * Version 1 files had a third "exhausted" bitmap after those, which we drop when reading.
+ */
+public class ExploredChunkTracker extends Tracker {
+
+    private static final String STORE_FOLDER = "altoclef_explored";
+
+    private static final int MAGIC = 0x41434543; // "ACEC"
+    private static final byte VERSION = 2;
+
+    // 32 * 32 chunks, one bit each
+    private static final int WORDS_PER_BITMAP = 16;
+    private static final int SCANNED = 0;
+    private static final int INSIDE = 1;
+    private static final int BITMAPS = 2;
+
+    private final EnumMap<Dimension, HashMap<String, Long2ObjectOpenHashMap<Region>>> _regions = new EnumMap<>(Dimension.class);
+
+    private final RegionFileStore _files = new RegionFileStore(STORE_FOLDER, "explored chunks");
+
+    public ExploredChunkTracker(TrackerManager manager) {
+        super(manager);
+    }
+
+    @Override
+    protected void updateState() {
+        save();
+    }
+
+    @Override
+    public UpdatePolicy getUpdatePolicy() {
+        return UpdatePolicy.EVERY_N_TICKS;
+    }
+
+    @Override
+    public int getUpdateInterval() {
+        // 30 seconds
+        return 600;
+    }
+
+    @Override
+    public boolean isLowPriority() {
+        return true;
+    }
+
+    @Override
+    protected void reset() {
+        save();
+        _regions.clear();
+        _files.reset();
+    }
+
+    /**
+     * Remember whether a chunk is part of a search space, in our current dimension.
+     */
+    public void recordScan(String key, ChunkPos pos, boolean inSearchSpace) {
+        Region region = getRegion(key, pos);
+        if (region == null) return;
+        region.set(SCANNED, pos, true);
+        region.set(INSIDE, pos, inSearchSpace);
+    }
+
+    /**
+     * @return Whether we've checked this chunk against the search space before.
+     */
+    public boolean wasScanned(String key, ChunkPos pos) {
+        Region region = getRegion(key, pos);
+        return region != null && region.get(SCANNED, pos);
+    }
+
+    /**
+     * @return Whether this chunk was part of the search space last time we checked. False if we never checked.
+     */
+    public boolean wasInSearchSpace(String key, ChunkPos pos) {
+        Region region = getRegion(key, pos);
+        return region != null && region.get(SCANNED, pos) && region.get(INSIDE, pos);
+    }
+
+    private boolean isEnabled() {
+        return _mod != null && _mod.getModSettings() != null && _mod.getModSettings().shouldPersistExploredChunks();
+    }
+
+    private Region getRegion(String key, ChunkPos pos) {
+        if (key == null || _mod == null || !_mod.inGame()) return null;
+        Dimension dimension = _mod.getCurrentDimension();
+        HashMap<String, Long2ObjectOpenHashMap<Region>> byKey = _regions.computeIfAbsent(dimension, d -> new HashMap<>());
+        Long2ObjectOpenHashMap<Region> regions = byKey.computeIfAbsent(key, k -> new Long2ObjectOpenHashMap<>());
+        long regionKey = ChunkPos.toLong(pos.getRegionX(), pos.getRegionZ());
+        Region region = regions.get(regionKey);
+        if (region == null) {
+            // Nothing saved (or saving's off) means we start from a blank region. Either way we only hit the disk once.
+            region = load(dimension, key, regionKey);
+            if (region == null) {
+                region = new Region();
+            }
+            regions.put(regionKey, region);
+        }
+        return region;
+    }
+
+    private void save() {
+        if (!isEnabled()) return;
+        for (Map.Entry<Dimension, HashMap<String, Long2ObjectOpenHashMap<Region>>> byDimension : _regions.entrySet()) {
+            for (Map.Entry<String, Long2ObjectOpenHashMap<Region>> byKey : byDimension.getValue().entrySet()) {
+                for (Long2ObjectMap.Entry<Region> entry : byKey.getValue().long2ObjectEntrySet()) {
+                    Region region = entry.getValue();
+                    if (!region.dirty) continue;
+                    if (write(byDimension.getKey(), byKey.getKey(), entry.getLongKey(), region)) {
+                        region.dirty = false;
+                    }
+                }
+            }
+        }
+    }
+
+    private Region load(Dimension dimension, String key, long regionKey) {
+        if (!isEnabled()) return null;
+        File file = _files.getRegionFile(_mod, dimension, key, regionKey);
+        if (file == null) return null;
+        Region region = new Region();
+        return _files.read(file, in -> read(in, region)) ? region : null;
+    }
+
+    private static void read(DataInputStream in, Region region) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not an explored chunk file");
+        byte version = in.readByte();
+        if (version != VERSION && version != 1) throw new IOException("Unknown explored chunk file version " + version);
+        for (int i = 0; i < region.bits.length; ++i) {
+            region.bits[i] = in.readLong();
+        }
+        if (version == 1) {
+            // Rewrite it without the old exhausted bits.
+            region.dirty = true;
+        }
+    }
+
+    private boolean write(Dimension dimension, String key, long regionKey, Region region) {
+        File file = _files.getRegionFile(_mod, dimension, key, regionKey);
+        if (file == null) return false;
+        if (region.isEmpty()) {
+            return _files.delete(file);
+        }
+        return _files.write(file, out -> {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            for (long word : region.bits) {
+                out.writeLong(word);
+            }
+        });
+    }
+
+    private static class Region {
+        public final long[] bits = new long[WORDS_PER_BITMAP * BITMAPS];
+        public boolean dirty = false;
+
+        public boolean get(int bitmap, ChunkPos pos) {
+            int index = getIndex(pos);
+            return (bits[bitmap * WORDS_PER_BITMAP + (index >> 6)] & (1L << index)) != 0;
+        }
+
+        public void set(int bitmap, ChunkPos pos, boolean value) {
+            int index = getIndex(pos);
+            int word = bitmap * WORDS_PER_BITMAP + (index >> 6);
+            long before = bits[word];
+            if (value) {
+                bits[word] |= 1L << index;
+            } else {
+                bits[word] &= ~(1L << index);
+            }
+            if (bits[word] != before) dirty = true;
+        }
+
+        public boolean isEmpty() {
+            for (long word : bits) {
+                if (word != 0) return false;
+            }
+            return true;
+        }
+
+        // Position within the region, 0 to 1023. Java only uses the low 6 bits of a long shift, so the word offset is free.
+        private static int getIndex(ChunkPos pos) {
+            return ((pos.z & 31) << 5) | (pos.x & 31);
+        }
+    }
+}
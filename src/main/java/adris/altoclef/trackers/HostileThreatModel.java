@@ -0,0 +1,146 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.util.csharpisbetter.Timer;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.hit.HitResult;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.RaycastContext;
+
+import java.util.Iterator;
+
+/**
+ * What we know about every mob that might be a threat, kept between ticks and keyed by entity id.
+ *
+ * Line of sight is the expensive part (a raycast or two per mob), so we only redo it once the mob or our player
+ * has moved a bit, or it's been a while since we last looked. With a mob farm next door that's most of them.
+ *
+ * Owned by the EntityTracker, which drops a mob's state as soon as the mob is gone. Access it with the minecraft lock held.
+ */
+public class HostileThreatModel {
+
+    // Moving less than this (either of us) won't really change whether a mob can see us.
+    private static final double LOS_RECHECK_DISTANCE = 0.5;
+    // Blocks get placed/broken, so look again every now and then even if nobody moved.
+    private static final int LOS_MAX_AGE_TICKS = 20;
+
+    private final Int2ObjectOpenHashMap<Threat> _threats = new Int2ObjectOpenHashMap<>();
+
+    private int _tick = 0;
+
+    /**
+     * Whether `entity` can see `player` eye to eye. Same check as Entity.canSee.
+     */
+    public boolean canSee(Entity entity, Entity player) {
+        Threat threat = getThreat(entity);
+        updateSight(threat, entity, player);
+        return threat._canSee;
+    }
+
+    /**
+     * Whether `entity` can see either `player`'s eyes or their body. Same check as LookUtil.seesPlayer.
+     */
+    public boolean seesPlayer(Entity entity, Entity player) {
+        Threat threat = getThreat(entity);
+        updateSight(threat, entity, player);
+        return threat._seesPlayer;
+    }
+
+    /**
+     * Keeps track of how long a mob's been bugging us.
+     *
+     * @param annoying Whether the mob is annoying us right now. If not, its timer starts over.
+     * @return How many seconds the mob has been annoying us in a row, 0 if it's not.
+     */
+    public double updateAnnoyance(Entity entity, boolean annoying) {
+        Threat threat = getThreat(entity);
+        if (!annoying) {
+            threat._annoyingSince = -1;
+            return 0;
+        }
+        double now = Timer.currentTime();
+        if (threat._annoyingSince < 0) {
+            threat._annoyingSince = now;
+        }
+        return now - threat._annoyingSince;
+    }
+
+    public Threat getThreat(Entity entity) {
+        Threat threat = _threats.get(entity.getEntityId());
+        if (threat == null || threat._entity != entity) {
+            // New mob, or the id got handed to somebody else.
+            threat = new Threat(entity);
+            _threats.put(entity.getEntityId(), threat);
+        }
+        return threat;
+    }
+
+    /**
+     * Called once per EntityTracker update. Forgets every mob that isn't around any more.
+     */
+    void onUpdate(Int2ObjectOpenHashMap<Entity> entities) {
+        _tick++;
+        Iterator<Int2ObjectMap.Entry<Threat>> it = _threats.int2ObjectEntrySet().fastIterator();
+        while (it.hasNext()) {
+            Int2ObjectMap.Entry<Threat> entry = it.next();
+            Entity entity = entities.get(entry.getIntKey());
+            if (entity != entry.getValue()._entity || !entity.isAlive()) {
+                it.remove();
+            }
+        }
+    }
+
+    void reset() {
+        _threats.clear();
+    }
+
+    private void updateSight(Threat threat, Entity entity, Entity player) {
+        if (threat._sightTick != -1
+                && _tick - threat._sightTick <= LOS_MAX_AGE_TICKS
+                && entity.squaredDistanceTo(threat._sightFrom) < LOS_RECHECK_DISTANCE * LOS_RECHECK_DISTANCE
+                && player.squaredDistanceTo(threat._sightTo) < LOS_RECHECK_DISTANCE * LOS_RECHECK_DISTANCE) {
+            return;
+        }
+        Vec3d eyes = entity.getCameraPosVec(1f);
+        Vec3d playerEyes = player.getCameraPosVec(1f);
+        threat._canSee = isClear(entity, eyes, playerEyes);
+        // Eyes blocked, how about the rest of them?
+        threat._seesPlayer = threat._canSee || isClear(entity, eyes, playerEyes.add(0, -1, 0));
+        threat._sightTick = _tick;
+        threat._sightFrom = entity.getPos();
+        threat._sightTo = player.getPos();
+    }
+
+    private static boolean isClear(Entity entity, Vec3d start, Vec3d end) {
+        return entity.world.raycast(new RaycastContext(start, end, RaycastContext.ShapeType.COLLIDER, RaycastContext.FluidHandling.NONE, entity)).getType() == HitResult.Type.MISS;
+    }
+
+    public static class Threat {
+        private final Entity _entity;
+
+        private boolean _canSee;
+        private boolean _seesPlayer;
+        // When we last raycast, and where we both were at the time
+        private int _sightTick = -1;
+        private Vec3d _sightFrom;
+        private Vec3d _sightTo;
+
+        private double _annoyingSince = -1;
+
+        public Threat(Entity entity) {
+            _entity = entity;
+        }
+
+        public Entity getEntity() {
+            return _entity;
+        }
+
+        /**
+         * @return Whether the mob was annoying us last we checked (see updateAnnoyance).
+         */
+        public boolean isAnnoying() {
+            return _annoyingSince >= 0;
+        }
+    }
+}
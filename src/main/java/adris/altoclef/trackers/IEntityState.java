@@ -0,0 +1,34 @@
+package adris.altoclef.trackers;
+
+import net.minecraft.entity.Entity;
+
+/**
+ * Everything the EntityTracker reads from the world on an update.
+ *
+ * In game this is the client world (see EntityTracker's constructor). Anywhere else it can be faked, same as
+ * IInventoryState.
+ */
+public interface IEntityState {
+
+    /**
+     * False while we're not in a world. The tracker holds nothing until this goes back to true.
+     */
+    boolean inWorld();
+
+    Iterable<Entity> getEntities();
+
+    /**
+     * Our own player, which the tracker never catalogues.
+     */
+    Entity getPlayer();
+
+    /**
+     * Whether we can hit this entity from where we are.
+     */
+    boolean inRange(Entity entity);
+
+    /**
+     * Whether our config says to ignore this projectile.
+     */
+    boolean shouldAvoidDodgingProjectile(Entity projectile);
+}
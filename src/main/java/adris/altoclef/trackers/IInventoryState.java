@@ -0,0 +1,26 @@
+package adris.altoclef.trackers;
+
+import net.minecraft.item.ItemStack;
+
+/**
+ * Everything the InventoryTracker reads from our player.
+ *
+ * In game this is the client player's inventory (see InventoryTracker's constructor). Anywhere else (tests, scripted
+ * runs on a plain JVM) it can be faked, so item counts and whatever tasks decide from them run without a client.
+ */
+public interface IInventoryState {
+
+    /**
+     * False while we have no player. The tracker holds nothing until this goes back to true.
+     */
+    boolean hasInventory();
+
+    /**
+     * @param inventorySlot From 0 to InventoryTracker.INVENTORY_SIZE - 1.
+     */
+    ItemStack getStack(int inventorySlot);
+
+    ItemStack getCursorStack();
+
+    Iterable<ItemStack> getArmorItems();
+}
@@ -15,11 +15,11 @@ import net.minecraft.block.entity.AbstractFurnaceBlockEntity;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.entity.EquipmentSlot;
-import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.item.*;
 import net.minecraft.screen.*;
 import net.minecraft.screen.slot.SlotActionType;
 import net.minecraft.util.Pair;
+import net.minecraft.util.registry.Registry;
 
 import java.lang.reflect.Field;
 import java.util.*;
@@ -32,9 +32,26 @@ public class InventoryTracker extends Tracker {
 
     private static final Item[] NORMAL_ACCEPTED_FUEL = new Item[] {Items.COAL, Items.CHARCOAL};
 
-    private HashMap<Item, Integer> _itemCounts = new HashMap<>();
-    private HashMap<Item, List<Integer>> _itemSlots = new HashMap<>();
-    private List<Integer> _foodSlots = new ArrayList<>();
+    // We also track the cursor slot, at slot -1. Everything slot indexed below is offset by one so the cursor sits at 0.
+    private static final int TRACKED_SLOT_COUNT = INVENTORY_SIZE + 1;
+    private static final int NO_ITEM = -1;
+
+    // Indexed by the item's raw registry id.
+    private int[] _itemCounts = new int[0];
+    // Bit (slot + 1) is set when the item sits in that slot.
+    private long[] _itemSlots = new long[0];
+    // Same bits, for slots holding food.
+    private long _foodSlots = 0;
+
+    // What each slot held the last time we looked, so we only redo the slots that changed.
+    private final int[] _slotItemIds = new int[TRACKED_SLOT_COUNT];
+    private final int[] _slotCounts = new int[TRACKED_SLOT_COUNT];
+
+    // Scratch copy of _itemCounts for recipe matching.
+    private int[] _recipeCounts = new int[0];
+
+    // Bumped whenever any slot changes.
+    private int _changeVersion = 0;
 
     private static Map<Item, Integer> _fuelTimeMap = null;
 
@@ -42,8 +59,27 @@ public class InventoryTracker extends Tracker {
 
     private int _foodPoints = 0;
 
+    // Where we read our slots from on an update.
+    private final IInventoryState _state;
+
     public InventoryTracker(TrackerManager manager) {
+        this(manager, new PlayerInventoryState());
+    }
+
+    public InventoryTracker(TrackerManager manager, IInventoryState state) {
         super(manager);
+        _state = state;
+        Arrays.fill(_slotItemIds, NO_ITEM);
+    }
+
+    /**
+     * Changes whenever our inventory changes, so you can tell if there's anything new without looking at everything.
+     */
+    public int getChangeVersion() {
+        ensureUpdated();
+        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
+            return _changeVersion;
+        }
     }
 
     public int getEmptySlotCount() {
@@ -61,7 +97,7 @@ public class InventoryTracker extends Tracker {
             if (item instanceof ArmorItem) {
                 if (isArmorEquipped(item)) return true;
             }
-            return _itemCounts.containsKey(item);
+            return getSlotBits(item) != 0;
         }
     }
     public boolean hasItem(Item ...items) {
@@ -79,10 +115,8 @@ public class InventoryTracker extends Tracker {
         ensureUpdated();
         if (!hasItem(item)) return 0;
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            int count = 0;
-            if (_itemCounts.containsKey(item)) {
-                count += _itemCounts.get(item);
-            }
+            int id = Registry.ITEM.getRawId(item);
+            int count = id < _itemCounts.length ? _itemCounts[id] : 0;
             if (item instanceof ArmorItem) {
                 if (isArmorEquipped(item)) {
                     // TODO: Impractical but theoretically speaking,
@@ -152,9 +186,7 @@ public class InventoryTracker extends Tracker {
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
             List<Integer> result = new ArrayList<>();
             for (Item item : items) {
-                if (_itemSlots.containsKey(item)) {
-                    result.addAll(_itemSlots.get(item));
-                }
+                addSlots(getSlotBits(item), result);
             }
             return result;
         }
@@ -196,10 +228,10 @@ public class InventoryTracker extends Tracker {
         ensureUpdated();
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
             double total = 0;
-            for (Item item : _itemCounts.keySet()) {
+            for (Item item : getHeldItems()) {
                 boolean normalGood = (includeNormalFuel && Arrays.asList(NORMAL_ACCEPTED_FUEL).contains(item));
                 if (normalGood || includeThrowawayProtected || !_mod.getConfigState().isProtected(item)) {
-                    total += getFuelAmount(item) * _itemCounts.get(item);
+                    total += getFuelAmount(item) * _itemCounts[Registry.ITEM.getRawId(item)];
                 }
             }
             return total;
@@ -215,7 +247,7 @@ public class InventoryTracker extends Tracker {
         ensureUpdated();
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
             List<Item> fuel = new ArrayList<>();
-            for (Item item : _itemCounts.keySet()) {
+            for (Item item : getHeldItems()) {
                 if (!_mod.getConfigState().isProtected(item)) {
                     if (isFuel(item)) {
                         fuel.add(item);
@@ -242,8 +274,10 @@ public class InventoryTracker extends Tracker {
     public List<ItemStack> getAvailableFoods() {
         ensureUpdated();
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            List<ItemStack> result = new ArrayList<>(_foodSlots.size());
-            for (int slot : _foodSlots) {
+            List<Integer> foodSlots = new ArrayList<>(Long.bitCount(_foodSlots));
+            addSlots(_foodSlots, foodSlots);
+            List<ItemStack> result = new ArrayList<>(foodSlots.size());
+            for (int slot : foodSlots) {
                 ItemStack stack = getItemStackInSlot(Slot.getFromInventory(slot));
                 if (stack != null) result.add(stack);
             }
@@ -253,7 +287,8 @@ public class InventoryTracker extends Tracker {
 
     public boolean hasRecipeMaterialsOrTarget(RecipeTarget...targets) {
         ensureUpdated();
-        HashMap<Integer, Integer> slotUsedCounts = new HashMap<>();
+        // Every target eats from the same pile, so two recipes can't both claim the same sticks.
+        int[] counts = getRecipeCounts();
         for (RecipeTarget target : targets) {
             CraftingRecipe recipe = target.getRecipe();
             int need = 0;
@@ -265,70 +300,64 @@ public class InventoryTracker extends Tracker {
             }
             // need holds how many items we need to CRAFT
             // However, a crafting recipe can output more than 1 of an item.
-            int materialsPerSlotNeeded = (int)Math.ceil((float)need / target.getRecipe().outputCount());
-            for (int i = 0; i < materialsPerSlotNeeded; ++i) {
-                for (int slot = 0; slot < recipe.getSlotCount(); ++slot) {
-                    ItemTarget needs = recipe.getSlot(slot);
-
-                    // Satisfied by default.
-                    if (needs == null || needs.isEmpty()) continue;
-
-                    List<Integer> invSlotsWithItem = getInventorySlotsWithItem(needs.getMatches());
-                    List<Slot> slotsWithItem = new ArrayList<>();
-                    for (int invSlot : invSlotsWithItem) {
-                        slotsWithItem.add(Slot.getFromInventory(invSlot));
-                    }
+            int crafts = (int)Math.ceil((float)need / recipe.outputCount());
+            if (!recipe.getCompiled().take(counts, crafts)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-                    // Other slots may have our crafting supplies.
-                    ScreenHandler screen = _mod.getPlayer().currentScreenHandler;
-                    if (screen instanceof PlayerScreenHandler || screen instanceof CraftingScreenHandler) {
-                        // Check crafting slots
-                        boolean bigCrafting = (screen instanceof CraftingScreenHandler);
-                        boolean bigRecipe = recipe.isBig();
-                        for (int craftSlotIndex = 0; craftSlotIndex < (bigCrafting ? 9 : 4); ++craftSlotIndex) {
-                            Slot craftSlot = bigCrafting ? CraftingTableSlot.getInputSlot(craftSlotIndex, bigRecipe) : PlayerSlot.getCraftInputSlot(craftSlotIndex);
-                            ItemStack stack = getItemStackInSlot(craftSlot);
-                            if (needs.matches(stack.getItem())) {
-                                slotsWithItem.add(craftSlot);
-                            }
-                        }
-                    }
+    /**
+     * @return How many times we can craft `recipe` with what's in our inventory (and crafting grid, if open).
+     */
+    public int getCraftableCount(CraftingRecipe recipe) {
+        ensureUpdated();
+        return recipe.getCompiled().getMaxCraftable(getRecipeCounts());
+    }
 
-                    // Try to satisfy THIS slot.
-                    boolean satisfied = false;
-                    for (Slot checkSlot : slotsWithItem) {
-                        int windowSlot = checkSlot.getWindowSlot();
-                        if (!slotUsedCounts.containsKey(windowSlot)) {
-                            slotUsedCounts.put(windowSlot, 0);
-                        }
-                        int usedFromSlot = slotUsedCounts.get(windowSlot);
-                        ItemStack stack = getItemStackInSlot(checkSlot);
+    /**
+     * Picks which item goes into each craft slot of `recipe`, out of what's in our inventory (and crafting grid, if open).
+     *
+     * @param outItemPerSlot Filled with the item for each craft slot (null for slots left empty). Must be at least as
+     *                       long as the recipe.
+     * @return Whether we can craft it at least once. If not, `outItemPerSlot` is garbage.
+     */
+    public boolean getCraftSlotAssignment(CraftingRecipe recipe, Item[] outItemPerSlot) {
+        ensureUpdated();
+        return recipe.getCompiled().getSlotAssignment(getRecipeCounts(), 1, outItemPerSlot);
+    }
 
-                        if (usedFromSlot < stack.getCount()) {
-                            slotUsedCounts.put(windowSlot, slotUsedCounts.get(windowSlot) + 1);
-                            //Debug.logMessage("Satisfied " + slot + " with " + checkInvSlot);
-                            satisfied = true;
-                            break;
-                        }
-                    }
+    // Our item counts plus whatever's sitting in an open crafting grid. Reuses one array, so don't hold on to it.
+    private int[] getRecipeCounts() {
+        if (_recipeCounts.length != _itemCounts.length) {
+            _recipeCounts = new int[_itemCounts.length];
+        }
+        System.arraycopy(_itemCounts, 0, _recipeCounts, 0, _itemCounts.length);
 
-                    if (!satisfied) {
-                        //Debug.logMessage("FAILED TO SATISFY " + slot + " : needs " + needs);
-                        // We couldn't satisfy this slot in either the inventory or crafting output.
-                        return false;
-                    }
+        ScreenHandler screen = _mod.getPlayer().currentScreenHandler;
+        if (screen instanceof PlayerScreenHandler || screen instanceof CraftingScreenHandler) {
+            boolean bigCrafting = (screen instanceof CraftingScreenHandler);
+            for (int craftSlotIndex = 0; craftSlotIndex < (bigCrafting ? 9 : 4); ++craftSlotIndex) {
+                Slot craftSlot = bigCrafting ? CraftingTableSlot.getInputSlot(craftSlotIndex, true) : PlayerSlot.getCraftInputSlot(craftSlotIndex);
+                ItemStack stack = getItemStackInSlot(craftSlot);
+                if (stack.isEmpty()) continue;
+                int id = Registry.ITEM.getRawId(stack.getItem());
+                if (id >= _recipeCounts.length) {
+                    // Only happens before we've ever held anything.
+                    _recipeCounts = Arrays.copyOf(_recipeCounts, Math.max(id + 1, Registry.ITEM.getIds().size()));
                 }
+                _recipeCounts[id] += stack.getCount();
             }
         }
-        return true;
-        //return getRecipeMapping(Collections.emptyMap(), recipe, count) != null;
+        return _recipeCounts;
     }
 
     public boolean isArmorEquipped(Item item) {
         ensureUpdated();
         if (item instanceof ArmorItem) {
             ArmorItem armor = (ArmorItem) item;
-            for(ItemStack stack : _mod.getPlayer().getArmorItems()) {
+            for(ItemStack stack : _state.getArmorItems()) {
                 if (stack.getItem() == item) return true;
             }
             return false;
@@ -380,9 +409,9 @@ public class InventoryTracker extends Tracker {
             if (_mod.getModSettings().shouldThrowawayUnusedItems()) {
                 // Get the first non-important item. For now there is no measure of value.
                 List<Integer> possibleSlots = new ArrayList<>();
-                for (Item item : this._itemSlots.keySet()) {
+                for (Item item : getHeldItems()) {
                     if (!_mod.getConfigState().isProtected(item) && !_mod.getModSettings().isImportant(item)) {
-                        possibleSlots.addAll(this._itemSlots.get(item));
+                        addSlots(getSlotBits(item), possibleSlots);
                     }
                 }
 
@@ -455,60 +484,6 @@ public class InventoryTracker extends Tracker {
         return MiningRequirement.HAND;
     }
 
-    private HashMap<Integer, Integer> getRecipeMapping(CraftingRecipe recipe) {
-        return getRecipeMapping(Collections.emptyMap(), recipe, 1);
-    }
-
-    // Less garbo version
-    private HashMap<Integer, Integer> getRecipeMapping(Map<Item, Integer> alreadyUsed, CraftingRecipe recipe, int count) {
-        ensureUpdated();
-
-        HashMap<Integer, Integer> result = new HashMap<>();
-
-        HashMap<Item, Integer> usedUp = new HashMap<>(alreadyUsed);
-
-        // Go through each craft slot
-        for (int craftSlot = 0; craftSlot < recipe.getSlotCount(); ++craftSlot) {
-            ItemTarget item = recipe.getSlot(craftSlot);
-            if (item == null || item.isEmpty()) continue;
-
-            // Repeat this collection "count" number of times.
-            for (int i = 0; i < count; ++i) {
-                boolean foundMatch = false;
-                //noinspection SpellCheckingInspection
-                itemsearch:
-                // Check for an item that meets the requirement
-                for (Item match : item.getMatches()) {
-                    // Ensure we have a default used up of zero if not used up yet.
-                    if (!usedUp.containsKey(match)) usedUp.put(match, 0);
-
-                    int toSkip = usedUp.get(match);
-                    for (int invSlot : getInventorySlotsWithItem(match)) {
-                        ItemStack stack = getItemStackInSlot(Slot.getFromInventory(invSlot));
-                        // Skip over items we already used.
-                        // Edge case: We may skip over the entire stack. In that case this stack is used up.
-                        if (toSkip != 0 && toSkip >= stack.getCount()) {
-                            toSkip -= stack.getCount();
-                        } else {
-                            // If we skip over all the items in THIS stack, we will have at least one left over.
-                            // That means we found our guy.
-
-                            result.put(craftSlot, invSlot);
-                            usedUp.put(match, usedUp.get(match) + 1);
-                            foundMatch = true;
-                            break itemsearch;
-                        }
-                    }
-                }
-                if (!foundMatch) {
-                    //Debug.logWarning("Failed to find match for craft slot " + craftSlot);
-                    return null;
-                }
-            }
-        }
-
-        return result;
-    }
 
     public int totalFoodScore() {
         ensureUpdated();
@@ -571,16 +546,69 @@ public class InventoryTracker extends Tracker {
         boolean moveFromCursor = slotIsCursor(from);
 
         ItemStack toStack = getItemStackInSlot(to);
-        if (toStack != null && !toStack.isEmpty()) {
-            if (!toStack.isItemEqual(fromStack)) {
-                //Debug.logMessage("To was occupied, moved it elsewhere.");
-                // We have stuff in our target slot. Move it out somewhere.
-                clickSlot(to, SlotActionType.QUICK_MOVE);
-                // If we're moving from a cursor slot, the cursor slot should already be moved to "to" after clicking.
-                if (moveFromCursor) {
-                    setDirty();
-                    return getItemStackInSlot(from).getCount();
+        boolean toBlocked = toStack != null && !toStack.isEmpty() && !toStack.isItemEqual(fromStack);
+
+        if (!moveFromCursor && amount >= fromStack.getCount()) {
+            // Moving the whole stack.
+            int hotbar = to.isInventory() ? to.getInventorySlot() : -1;
+            if (0 <= hotbar && hotbar < 9 && (toStack == null || toStack.isEmpty())) {
+                // One click: swap it straight into the hotbar
+                clickSlot(from, hotbar, SlotActionType.SWAP);
+                setDirty();
+                return fromStack.getCount();
+            }
+            if (toBlocked) {
+                // Swap places with whatever's in the way, so it ends up in the slot we just emptied
+                // instead of wherever a quick move would throw it.
+                clickSlot(from);
+                clickSlot(to);
+                clickSlot(from);
+                setDirty();
+                return fromStack.getCount();
+            }
+        }
+
+        if (toBlocked) {
+            //Debug.logMessage("To was occupied, moved it elsewhere.");
+            // We have stuff in our target slot. Move it out somewhere.
+            clickSlot(to, SlotActionType.QUICK_MOVE);
+            // If we're moving from a cursor slot, the cursor slot should already be moved to "to" after clicking.
+            if (moveFromCursor) {
+                setDirty();
+                return getItemStackInSlot(from).getCount();
+            }
+            ItemStack stillThere = getItemStackInSlot(to);
+            if (stillThere != null && !stillThere.isEmpty()) {
+                Debug.logWarning("Failed to clear " + to + " (no room?), can't move items there.");
+                return 0;
+            }
+            toStack = stillThere;
+        }
+
+        int toRoom = fromStack.getMaxCount() - ((toStack == null || toStack.isEmpty()) ? 0 : toStack.getCount());
+
+        if (!moveFromCursor && amount < fromStack.getCount()) {
+            // Split the stack in as few clicks as we can.
+            SlotOperationPlanner.Click[] plan = SlotOperationPlanner.planPartialMove(fromStack.getCount(), amount, toRoom, fromStack.getMaxCount());
+            if (plan != null) {
+                for (SlotOperationPlanner.Click click : plan) {
+                    switch (click) {
+                        case FROM_LEFT:
+                            clickSlot(from, 0);
+                            break;
+                        case FROM_RIGHT:
+                            clickSlot(from, 1);
+                            break;
+                        case TO_LEFT:
+                            clickSlot(to, 0);
+                            break;
+                        case TO_RIGHT:
+                            clickSlot(to, 1);
+                            break;
+                    }
                 }
+                setDirty();
+                return amount;
             }
         }
 
@@ -611,13 +639,54 @@ public class InventoryTracker extends Tracker {
                 clickSlot(to, 1);
             }
             // We've picked up our stack, put it back
-            clickSlot(from);
+            if (!moveFromCursor) {
+                clickSlot(from);
+            }
             dropped = amount;
         }
         setDirty();
         return dropped;
     }
 
+    /**
+     * Puts `amountEach` items from one slot into each of `targets` (which should be empty), in as few clicks as we can.
+     *
+     * Picks the stack up once, right clicks each target and puts back whatever's left. Moving to each slot on its
+     * own would pick up and put back the stack every time.
+     *
+     * @return How many of `targets` were filled, starting from the front.
+     */
+    public int distributeItems(Slot from, List<Slot> targets, int amountEach) {
+        ItemStack fromStack = getItemStackInSlot(from);
+        if (fromStack == null || fromStack.isEmpty() || amountEach <= 0 || targets.isEmpty()) return 0;
+        if (targets.size() == 1) {
+            return moveItems(from, targets.get(0), amountEach) > 0 ? 1 : 0;
+        }
+
+        int count = fromStack.getCount();
+        int filled = Math.min(targets.size(), count / amountEach);
+        if (filled == 0) return 0;
+        List<Slot> toFill = targets.subList(0, filled);
+
+        boolean moveFromCursor = slotIsCursor(from);
+        if (!moveFromCursor) {
+            clickSlot(from);
+        }
+
+        for (Slot slot : toFill) {
+            for (int i = 0; i < amountEach; ++i) {
+                clickSlot(slot, 1);
+            }
+        }
+
+        // Put back what's left
+        if (!moveFromCursor && count > filled * amountEach) {
+            clickSlot(from);
+        }
+        setDirty();
+        return filled;
+    }
+
     public void swapItems(Slot slot1, Slot slot2) {
 
         // Pick up slot1
@@ -832,17 +901,11 @@ public class InventoryTracker extends Tracker {
     @Override
     protected void updateState() {
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            _itemCounts.clear();
-            _itemSlots.clear();
-            _foodSlots.clear();
-            _emptySlots = 0;
-            _foodPoints = 0;
-
-            if (MinecraftClient.getInstance().player == null) {
+            if (!_state.hasInventory()) {
                 // No updating needed, we have nothing.
+                clearState();
                 return;
             }
-            PlayerInventory inventory = MinecraftClient.getInstance().player.inventory;
 
             // - 1. idk
             for (int slot = -1; slot < INVENTORY_SIZE; ++slot) {
@@ -850,40 +913,134 @@ public class InventoryTracker extends Tracker {
                 ItemStack stack;
                 if (isCursorStack) {
                     // Add our cursor stack as well to the list.
-                    stack = inventory.getCursorStack();
+                    stack = _state.getCursorStack();
                 } else {
-                    stack = inventory.getStack(slot);
+                    stack = _state.getStack(slot);
                 }
-                Item item = stack.getItem();
-                int count = stack.getCount();
+                int itemId, count;
                 if (stack.isEmpty()) {
                     // If our cursor slot is empty, IGNORE IT as we don't want to treat it as a valid slot.
-                    if (isCursorStack) {
-                        continue;
-                    }
-                    _emptySlots++;
-                    item = Items.AIR;
-                }
-                if (!_itemCounts.containsKey(item)) {
-                    _itemCounts.put(item, 0);
-                }
-                if (!_itemSlots.containsKey(item)) {
-                    _itemSlots.put(item, new ArrayList<>());
-                }
-                if (item.isFood()) {
-                    _foodSlots.add(slot);
-                    assert item.getFoodComponent() != null;
-                    _foodPoints += item.getFoodComponent().getHunger() * count;
+                    itemId = isCursorStack ? NO_ITEM : Registry.ITEM.getRawId(Items.AIR);
+                    count = 0;
+                } else {
+                    itemId = Registry.ITEM.getRawId(stack.getItem());
+                    count = stack.getCount();
                 }
-                _itemCounts.put(item, _itemCounts.get(item) + count);
-                _itemSlots.get(item).add(slot);
+                int index = slot + 1;
+                // Most slots don't change between ticks.
+                if (_slotItemIds[index] == itemId && _slotCounts[index] == count) continue;
+                _changeVersion++;
+                removeSlot(index);
+                addSlot(index, itemId, count);
             }
         }
     }
 
+    private void addSlot(int index, int itemId, int count) {
+        _slotItemIds[index] = itemId;
+        _slotCounts[index] = count;
+        if (itemId == NO_ITEM) return;
+        if (itemId >= _itemCounts.length) {
+            // Registry size is fixed once we're in game, so this only grows once.
+            int newSize = Math.max(itemId + 1, Registry.ITEM.getIds().size());
+            _itemCounts = Arrays.copyOf(_itemCounts, newSize);
+            _itemSlots = Arrays.copyOf(_itemSlots, newSize);
+        }
+        Item item = Registry.ITEM.get(itemId);
+        if (item == Items.AIR) {
+            _emptySlots++;
+        }
+        if (item.isFood()) {
+            _foodSlots |= 1L << index;
+            assert item.getFoodComponent() != null;
+            _foodPoints += item.getFoodComponent().getHunger() * count;
+        }
+        _itemCounts[itemId] += count;
+        _itemSlots[itemId] |= 1L << index;
+    }
+
+    private void removeSlot(int index) {
+        int itemId = _slotItemIds[index];
+        int count = _slotCounts[index];
+        _slotItemIds[index] = NO_ITEM;
+        _slotCounts[index] = 0;
+        if (itemId == NO_ITEM) return;
+        Item item = Registry.ITEM.get(itemId);
+        if (item == Items.AIR) {
+            _emptySlots--;
+        }
+        if (item.isFood()) {
+            _foodSlots &= ~(1L << index);
+            assert item.getFoodComponent() != null;
+            _foodPoints -= item.getFoodComponent().getHunger() * count;
+        }
+        _itemCounts[itemId] -= count;
+        _itemSlots[itemId] &= ~(1L << index);
+    }
+
+    private void clearState() {
+        _changeVersion++;
+        Arrays.fill(_itemCounts, 0);
+        Arrays.fill(_itemSlots, 0);
+        Arrays.fill(_slotItemIds, NO_ITEM);
+        Arrays.fill(_slotCounts, 0);
+        _foodSlots = 0;
+        _emptySlots = 0;
+        _foodPoints = 0;
+    }
+
+    private long getSlotBits(Item item) {
+        int id = Registry.ITEM.getRawId(item);
+        return id < _itemSlots.length ? _itemSlots[id] : 0;
+    }
+
+    // Slot bits -> inventory slots (cursor is -1), lowest first.
+    private static void addSlots(long bits, List<Integer> result) {
+        while (bits != 0) {
+            int index = Long.numberOfTrailingZeros(bits);
+            result.add(index - 1);
+            bits &= bits - 1;
+        }
+    }
+
+    // Every distinct item we're holding, including air if we have empty slots.
+    private List<Item> getHeldItems() {
+        List<Item> result = new ArrayList<>();
+        for (int index = 0; index < TRACKED_SLOT_COUNT; ++index) {
+            int itemId = _slotItemIds[index];
+            if (itemId == NO_ITEM) continue;
+            // Only count each item once, at its first slot.
+            if (Long.numberOfTrailingZeros(_itemSlots[itemId]) != index) continue;
+            result.add(Registry.ITEM.get(itemId));
+        }
+        return result;
+    }
+
     @Override
     protected void reset() {
         // Dirty clears everything
     }
 
+    // The client player's inventory.
+    private static class PlayerInventoryState implements IInventoryState {
+        @Override
+        public boolean hasInventory() {
+            return MinecraftClient.getInstance().player != null;
+        }
+
+        @Override
+        public ItemStack getStack(int inventorySlot) {
+            return MinecraftClient.getInstance().player.inventory.getStack(inventorySlot);
+        }
+
+        @Override
+        public ItemStack getCursorStack() {
+            return MinecraftClient.getInstance().player.inventory.getCursorStack();
+        }
+
+        @Override
+        public Iterable<ItemStack> getArmorItems() {
+            return MinecraftClient.getInstance().player.getArmorItems();
+        }
+    }
 }
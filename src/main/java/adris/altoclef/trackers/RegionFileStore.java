@@ -0,0 +1,134 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.Debug;
+import adris.altoclef.util.Dimension;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.server.integrated.IntegratedServer;
+import net.minecraft.util.math.ChunkPos;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * File handling for stores that save one file per region (see ContainerStore, ExploredChunkTracker).
+ *
+ * Files go under `<store folder>/<server>/<dimension>/[<sub folder>/]r.<x>.<z>.bin`. What goes in them is up to each store.
+ */
+class RegionFileStore {
+
+    private final String _storeFolder;
+    // What we're saving, for warnings.
+    private final String _description;
+
+    // Which folder we're saving under. Grabbed while in game, since by the time we leave the server info is gone.
+    private File _serverFolder = null;
+
+    public RegionFileStore(String storeFolder, String description) {
+        _storeFolder = storeFolder;
+        _description = description;
+    }
+
+    /**
+     * @param subFolder Extra folder under the dimension, or null for none.
+     * @return Where this region is saved, or null if we don't know our server yet (not in game).
+     */
+    public File getRegionFile(AltoClef mod, Dimension dimension, String subFolder, long region) {
+        if (_serverFolder == null) {
+            if (mod == null || !mod.inGame()) return null;
+            _serverFolder = new File(_storeFolder, sanitize(getServerName()));
+        }
+        File folder = new File(_serverFolder, dimension.name().toLowerCase());
+        if (subFolder != null) {
+            folder = new File(folder, sanitize(subFolder));
+        }
+        return new File(folder, "r." + ChunkPos.getPackedX(region) + "." + ChunkPos.getPackedZ(region) + ".bin");
+    }
+
+    /**
+     * Forget where we're saving, for when we leave a server.
+     */
+    public void reset() {
+        _serverFolder = null;
+    }
+
+    /**
+     * @return Whether the file existed and was read without errors.
+     */
+    public boolean read(File file, Reader reader) {
+        if (!file.exists()) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            reader.read(in);
+            return true;
+        } catch (IOException e) {
+            Debug.logWarning("Failed to read " + _description + " " + file.getPath() + ": " + e);
+            return false;
+        }
+    }
+
+    /**
+     * @return Whether the file is now fully written.
+     */
+    public boolean write(File file, Writer writer) {
+        File folder = file.getParentFile();
+        if (!folder.exists() && !folder.mkdirs()) {
+            Debug.logWarning("Failed to create " + _description + " folder " + folder.getAbsolutePath());
+            return false;
+        }
+        // Write to the side and move it over, so a crash mid write doesn't wipe the region.
+        File temp = new File(folder, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            writer.write(out);
+        } catch (IOException e) {
+            Debug.logWarning("Failed to write " + _description + " " + file.getPath() + ": " + e);
+            return false;
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Debug.logWarning("Failed to move " + _description + " into place " + file.getPath() + ": " + e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * For regions with nothing left to remember.
+     *
+     * @return Whether the file is gone now.
+     */
+    public boolean delete(File file) {
+        if (file.exists() && !file.delete()) {
+            Debug.logWarning("Failed to delete empty " + _description + " " + file.getPath());
+            return false;
+        }
+        return true;
+    }
+
+    private static String getServerName() {
+        MinecraftClient client = MinecraftClient.getInstance();
+        ServerInfo server = client.getCurrentServerEntry();
+        if (server != null) {
+            return server.address;
+        }
+        IntegratedServer integrated = client.getServer();
+        if (integrated != null) {
+            return "singleplayer_" + integrated.getSaveProperties().getLevelName();
+        }
+        return "unknown";
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    public interface Reader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    public interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
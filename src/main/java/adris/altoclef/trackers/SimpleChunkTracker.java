@@ -2,10 +2,12 @@ package adris.altoclef.trackers;
 
 import adris.altoclef.AltoClef;
 import adris.altoclef.Debug;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.EmptyChunk;
 import net.minecraft.world.chunk.WorldChunk;
 
@@ -53,25 +55,93 @@ public class SimpleChunkTracker {
         return result;
     }
 
+    /**
+     * Run a test on every block in a chunk until one passes.
+     *
+     * The position given to `onBlock` is reused, call toImmutable() if you want to keep it around.
+     * If you're looking for specific blocks, use `scanChunk(ChunkPos, Predicate<BlockState>, Consumer<BlockPos>)`, it's way faster.
+     */
     public boolean scanChunk(ChunkPos chunk, Predicate<BlockPos> onBlock) {
         if (!isChunkLoaded(chunk)) return false;
         //Debug.logInternal("SCANNED CHUNK " + chunk.toString());
+        BlockPos.Mutable pos = new BlockPos.Mutable();
         for (int xx = chunk.getStartX(); xx <= chunk.getEndX(); ++xx) {
             for (int yy = 0; yy <= 255; ++yy) {
                 for (int zz = chunk.getStartZ(); zz <= chunk.getEndZ(); ++zz) {
-                    if (onBlock.test(new BlockPos(xx, yy, zz))) return true;
+                    if (onBlock.test(pos.set(xx, yy, zz))) return true;
                 }
             }
         }
         return false;
     }
 
+    public void scanChunk(ChunkPos chunk, Consumer<BlockPos> onBlock) {
+        if (!isChunkLoaded(chunk)) return;
+        for (int xx = chunk.getStartX(); xx <= chunk.getEndX(); ++xx) {
+            for (int yy = 0; yy <= 255; ++yy) {
+                for (int zz = chunk.getStartZ(); zz <= chunk.getEndZ(); ++zz) {
+                    onBlock.accept(new BlockPos(xx, yy, zz));
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds every block in a chunk whose state passes `stateMatches`.
+     *
+     * Sections that are empty or whose palette doesn't have a matching state are skipped entirely,
+     * so we only really look at the handful of sections that could have what we want.
+     *
+     * @param stopAtFirst If true, stop after the first match.
+     * @return Whether anything was found.
+     */
+    public boolean scanChunk(ChunkPos chunk, Predicate<BlockState> stateMatches, Consumer<BlockPos> onMatch, boolean stopAtFirst) {
+        if (!isChunkLoaded(chunk)) return false;
+        WorldChunk worldChunk = _mod.getWorld().getChunk(chunk.x, chunk.z);
+        int startX = chunk.getStartX(),
+            startZ = chunk.getStartZ();
+        boolean found = false;
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (ChunkSection section : worldChunk.getSectionArray()) {
+            // Empty sections are all air, and nobody's searching for air.
+            if (ChunkSection.isEmpty(section)) continue;
+            // The palette has every state this section could have, so if nothing in there matches we can skip it.
+            if (!section.hasAny(stateMatches)) continue;
+            int startY = section.getYOffset();
+            for (int y = 0; y < 16; ++y) {
+                for (int z = 0; z < 16; ++z) {
+                    for (int x = 0; x < 16; ++x) {
+                        if (stateMatches.test(section.getBlockState(x, y, z))) {
+                            found = true;
+                            onMatch.accept(pos.set(startX + x, startY + y, startZ + z).toImmutable());
+                            if (stopAtFirst) return true;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public void scanChunk(ChunkPos chunk, Predicate<BlockState> stateMatches, Consumer<BlockPos> onMatch) {
+        scanChunk(chunk, stateMatches, onMatch, false);
+    }
+
+    public boolean chunkContainsAny(ChunkPos chunk, Block ...blocks) {
+        return scanChunk(chunk, state -> blockMatches(state, blocks), pos -> {}, true);
+    }
+
+    private static boolean blockMatches(BlockState state, Block[] blocks) {
+        Block block = state.getBlock();
+        for (Block check : blocks) {
+            if (check == block) return true;
+        }
+        return false;
+    }
+
     public void reset(AltoClef mod) {
         Debug.logInternal("CHUNKS RESET");
         _loaded.clear();
     }
 
-    public void scanChunk(ChunkPos chunk, Consumer<BlockPos> onBlock) {
-        scanChunk(chunk, (block) -> false);
-    }
 }
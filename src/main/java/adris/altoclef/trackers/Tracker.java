@@ -6,7 +6,12 @@ public abstract class Tracker {
 
     protected AltoClef _mod;
 
+    private final TrackerManager _manager;
+
+    private final TrackerTimings _timings = new TrackerTimings();
+
     public Tracker(TrackerManager manager) {
+        _manager = manager;
         manager.addTracker(this);
     }
 
@@ -18,13 +23,62 @@ public abstract class Tracker {
     }
 
     protected void ensureUpdated() {
-        if (_dirty) {
-            updateState();
-            _dirty = false;
+        if (_dirty || getUpdatePolicy() == UpdatePolicy.ON_DEMAND) {
+            _manager.getTickProfiler().push("tracker:", getName());
+            long start = System.nanoTime();
+            try {
+                updateState();
+                _dirty = false;
+            } finally {
+                _manager.getTickProfiler().pop();
+            }
+            long elapsed = System.nanoTime() - start;
+            _timings.record(elapsed);
+            _manager.onTrackerUpdated(this, elapsed);
         }
     }
 
+    /**
+     * When the tracker manager should mark us as needing an update.
+     */
+    public UpdatePolicy getUpdatePolicy() {
+        return UpdatePolicy.EVERY_TICK;
+    }
+
+    /**
+     * Only used by UpdatePolicy.EVERY_N_TICKS
+     */
+    public int getUpdateInterval() {
+        return 1;
+    }
+
+    /**
+     * If true, this tracker may be left stale for a few ticks when we go over our update budget.
+     */
+    public boolean isLowPriority() {
+        return false;
+    }
+
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    public TrackerTimings getTimings() {
+        return _timings;
+    }
+
     protected abstract void updateState();
 
     protected abstract void reset();
+
+    public enum UpdatePolicy {
+        // Marked dirty every tick, rebuilt on first access.
+        EVERY_TICK,
+        // Marked dirty every `getUpdateInterval()` ticks, rebuilt on first access.
+        EVERY_N_TICKS,
+        // Never marked dirty by the manager, only rebuilt after the tracker calls `setDirty` from an event.
+        ON_EVENT,
+        // Rebuilt on every access. The tracker decides for itself whether there's anything to do.
+        ON_DEMAND
+    }
 }
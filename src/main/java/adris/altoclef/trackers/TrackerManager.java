@@ -1,19 +1,46 @@
 package adris.altoclef.trackers;
 
 import adris.altoclef.AltoClef;
+import adris.altoclef.util.TickProfiler;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 
 public class TrackerManager {
 
+    // A low priority tracker is never left stale for longer than this, budget or not.
+    private static final int MAX_DEFERRED_TICKS = 5;
+
     private ArrayList<Tracker> _trackers = new ArrayList<>();
 
     private AltoClef _mod;
 
+    private final TickProfiler _tickProfiler;
+
     private boolean _wasInGame = false;
 
+    private int _ticks = 0;
+
+    // How long each tracker spent updating since the last tick, and how long its last update took.
+    // Used to guess what the next tick will cost.
+    private final HashMap<Tracker, Long> _nanosSinceLastTick = new HashMap<>();
+    private final HashMap<Tracker, Long> _lastUpdateNanos = new HashMap<>();
+    private final HashMap<Tracker, Integer> _deferredTicks = new HashMap<>();
+
     public TrackerManager(AltoClef mod) {
+        this(mod, mod.getTickProfiler());
+    }
+
+    /**
+     * @param mod          Handed to our trackers as is. Can be null if nobody calls tick (like in tests, where trackers
+     *                     read from a fake IInventoryState/IEntityState).
+     * @param tickProfiler Where tracker updates are timed.
+     */
+    public TrackerManager(AltoClef mod, TickProfiler tickProfiler) {
         _mod = mod;
+        _tickProfiler = tickProfiler;
     }
 
     public void tick() {
@@ -27,9 +54,73 @@ public class TrackerManager {
             _mod.getChunkTracker().reset(_mod);
         }
         _wasInGame = inGame;
+        _ticks++;
+
+        long budgetNanos = (long) _mod.getModSettings().getTrackerUpdateBudgetMicros() * 1000;
+        long estimatedNanos = 0;
+        // Trackers we don't schedule will probably cost about the same as they did last tick.
+        for (Tracker tracker : _trackers) {
+            if (!isScheduled(tracker)) {
+                estimatedNanos += getNanos(_nanosSinceLastTick, tracker);
+            }
+        }
+
+        // Our high priority trackers go first, so they're the ones that eat up the budget.
+        for (int pass = 0; pass < 2; ++pass) {
+            boolean lowPriorityPass = pass == 1;
+            for (Tracker tracker : _trackers) {
+                if (tracker.isLowPriority() != lowPriorityPass) continue;
+                if (!isDue(tracker)) continue;
+                long estimate = getNanos(_lastUpdateNanos, tracker);
+                if (lowPriorityPass && budgetNanos > 0 && estimatedNanos + estimate > budgetNanos) {
+                    int deferred = _deferredTicks.getOrDefault(tracker, 0);
+                    if (deferred < MAX_DEFERRED_TICKS) {
+                        // Leave it stale for now.
+                        _deferredTicks.put(tracker, deferred + 1);
+                        tracker.getTimings().recordDeferred();
+                        continue;
+                    }
+                }
+                _deferredTicks.remove(tracker);
+                estimatedNanos += estimate;
+                tracker.setDirty();
+            }
+        }
+
+        synchronized (_nanosSinceLastTick) {
+            _nanosSinceLastTick.clear();
+        }
+    }
+
+    private static boolean isScheduled(Tracker tracker) {
+        return tracker.getUpdatePolicy() == Tracker.UpdatePolicy.EVERY_TICK || tracker.getUpdatePolicy() == Tracker.UpdatePolicy.EVERY_N_TICKS;
+    }
+
+    private boolean isDue(Tracker tracker) {
+        switch (tracker.getUpdatePolicy()) {
+            case EVERY_TICK:
+                return true;
+            case EVERY_N_TICKS:
+                // A deferred tracker is still due until it actually gets to update.
+                return _ticks % Math.max(1, tracker.getUpdateInterval()) == 0 || _deferredTicks.containsKey(tracker);
+            case ON_EVENT:
+            case ON_DEMAND:
+            default:
+                return false;
+        }
+    }
 
-        for(Tracker tracker : _trackers) {
-            tracker.setDirty();
+    private long getNanos(HashMap<Tracker, Long> map, Tracker tracker) {
+        synchronized (_nanosSinceLastTick) {
+            return map.getOrDefault(tracker, 0L);
+        }
+    }
+
+    void onTrackerUpdated(Tracker tracker, long nanos) {
+        // Baritone's threads may update trackers too.
+        synchronized (_nanosSinceLastTick) {
+            _nanosSinceLastTick.put(tracker, _nanosSinceLastTick.getOrDefault(tracker, 0L) + nanos);
+            _lastUpdateNanos.put(tracker, nanos);
         }
     }
 
@@ -37,4 +128,12 @@ public class TrackerManager {
         tracker._mod =_mod;
         _trackers.add(tracker);
     }
+
+    public TickProfiler getTickProfiler() {
+        return _tickProfiler;
+    }
+
+    public List<Tracker> getTrackers() {
+        return Collections.unmodifiableList(_trackers);
+    }
 }
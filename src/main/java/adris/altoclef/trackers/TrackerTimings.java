@@ -0,0 +1,100 @@
+package adris.altoclef.trackers;
+
+/**
+ * Rough histogram of how long a tracker takes to update.
+ *
+ * Buckets are powers of two in microseconds, so bucket 0 is under 1us, bucket 1 is under 2us, and so on.
+ *
+ * Trackers may be updated from baritone's threads, hence the synchronization.
+ */
+public class TrackerTimings {
+
+    private static final int BUCKET_COUNT = 20;
+
+    private final long[] _buckets = new long[BUCKET_COUNT];
+    private long _count;
+    private long _totalNanos;
+    private long _maxNanos;
+    private long _deferredTicks;
+
+    public synchronized void record(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = micros <= 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        _buckets[bucket]++;
+        _count++;
+        _totalNanos += nanos;
+        _maxNanos = Math.max(_maxNanos, nanos);
+    }
+
+    public synchronized void recordDeferred() {
+        _deferredTicks++;
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            _buckets[i] = 0;
+        }
+        _count = 0;
+        _totalNanos = 0;
+        _maxNanos = 0;
+        _deferredTicks = 0;
+    }
+
+    public synchronized long getCount() {
+        return _count;
+    }
+
+    public synchronized long getDeferredTicks() {
+        return _deferredTicks;
+    }
+
+    public synchronized double getTotalMillis() {
+        return _totalNanos / 1000000.0;
+    }
+
+    public synchronized double getAverageMicros() {
+        if (_count == 0) return 0;
+        return (_totalNanos / 1000.0) / _count;
+    }
+
+    public synchronized double getMaxMicros() {
+        return _maxNanos / 1000.0;
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return Upper bound (in microseconds) of the bucket the percentile lands in.
+     */
+    public synchronized long getPercentileMicros(double percentile) {
+        if (_count == 0) return 0;
+        long target = (long) Math.ceil(_count * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            seen += _buckets[i];
+            if (seen >= target) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKET_COUNT - 1);
+    }
+
+    /**
+     * @return Something like "<1us:5 <2us:10 <4us:3", skipping empty buckets.
+     */
+    public synchronized String getHistogramString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            if (_buckets[i] == 0) continue;
+            if (result.length() != 0) result.append(" ");
+            result.append(i == BUCKET_COUNT - 1 ? ">=" : "<").append(formatMicros(i == BUCKET_COUNT - 1 ? 1L << (i - 1) : 1L << i)).append(":").append(_buckets[i]);
+        }
+        return result.toString();
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros >= 1000) {
+            return (micros / 1000) + "ms";
+        }
+        return micros + "us";
+    }
+}
@@ -0,0 +1,142 @@
+package adris.altoclef.util;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * Chunks we still want to visit, cheapest score on top.
+ *
+ * An indexed binary heap over packed chunk positions (ChunkPos.toLong), so looking up, removing and changing the
+ * score of a single chunk don't have to walk the whole frontier. Big searches (a fortress, a dark forest) easily
+ * queue up thousands of chunks.
+ */
+public class ChunkFrontier {
+
+    private long[] _chunks = new long[16];
+    private double[] _scores = new double[16];
+    private int _size = 0;
+
+    // Where each chunk sits in the heap.
+    private final Long2IntOpenHashMap _indices = new Long2IntOpenHashMap();
+
+    public ChunkFrontier() {
+        _indices.defaultReturnValue(-1);
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    public boolean contains(long chunk) {
+        return _indices.containsKey(chunk);
+    }
+
+    /**
+     * Adds a chunk, or changes its score if it's already in.
+     */
+    public void put(long chunk, double score) {
+        int index = _indices.get(chunk);
+        if (index != -1) {
+            double previous = _scores[index];
+            _scores[index] = score;
+            if (score < previous) {
+                siftUp(index);
+            } else {
+                siftDown(index);
+            }
+            return;
+        }
+        if (_size == _chunks.length) {
+            _chunks = Arrays.copyOf(_chunks, _size * 2);
+            _scores = Arrays.copyOf(_scores, _size * 2);
+        }
+        _chunks[_size] = chunk;
+        _scores[_size] = score;
+        _indices.put(chunk, _size);
+        siftUp(_size++);
+    }
+
+    public boolean remove(long chunk) {
+        int index = _indices.remove(chunk);
+        if (index == -1) return false;
+        int last = --_size;
+        if (index != last) {
+            move(last, index);
+            // The chunk we moved in could belong either higher or lower.
+            siftDown(index);
+            siftUp(index);
+        }
+        return true;
+    }
+
+    /**
+     * @return The chunk with the lowest score.
+     */
+    public long peek() {
+        if (_size == 0) throw new NoSuchElementException("Chunk frontier is empty");
+        return _chunks[0];
+    }
+
+    /**
+     * Recalculates every score and rebuilds the heap in one go, which beats changing them one by one.
+     */
+    public void rescoreAll(LongToDoubleFunction getScore) {
+        for (int i = 0; i < _size; ++i) {
+            _scores[i] = getScore.applyAsDouble(_chunks[i]);
+        }
+        for (int i = _size / 2 - 1; i >= 0; --i) {
+            siftDown(i);
+        }
+    }
+
+    public void clear() {
+        _size = 0;
+        _indices.clear();
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (_scores[parent] <= _scores[index]) break;
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = index * 2 + 1;
+            if (left >= _size) break;
+            int smallest = left;
+            int right = left + 1;
+            if (right < _size && _scores[right] < _scores[left]) {
+                smallest = right;
+            }
+            if (_scores[index] <= _scores[smallest]) break;
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long chunk = _chunks[a];
+        double score = _scores[a];
+        move(b, a);
+        _chunks[b] = chunk;
+        _scores[b] = score;
+        _indices.put(chunk, b);
+    }
+
+    private void move(int from, int to) {
+        _chunks[to] = _chunks[from];
+        _scores[to] = _scores[from];
+        _indices.put(_chunks[to], to);
+    }
+}
@@ -0,0 +1,222 @@
+package adris.altoclef.util;
+
+import net.minecraft.item.Item;
+import net.minecraft.util.registry.Registry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A CraftingRecipe flattened into raw item id arrays, so it can be checked against our inventory without
+ * allocating anything.
+ *
+ * Craft slots that want the same thing are grouped (a stone pickaxe is "3 of cobblestone, 2 of stick"), and every
+ * group lists the raw registry ids it accepts. Matching is a single walk over those arrays against a count vector
+ * indexed by raw item id (see InventoryTracker).
+ *
+ * Groups accepting fewer items go first, so a slot that MUST be oak planks gets its planks before a slot that
+ * takes any planks grabs them.
+ *
+ * Get one through CraftingRecipe.getCompiled(), it's built once per recipe.
+ */
+public class CompiledRecipe {
+
+    // Every raw item id the recipe accepts anywhere, each once.
+    private final int[] _itemIds;
+    // Per group, indices into _itemIds it accepts.
+    private final int[][] _groupItems;
+    // Per group, the craft slots it covers. Its length is how many items the group eats per craft.
+    private final int[][] _groupCraftSlots;
+    private final int _craftSlotCount;
+
+    // Scratch space for matching, how many of each _itemIds entry we've taken so far.
+    private final int[] _taken;
+    // Scratch space for getSlotAssignment into items.
+    private final int[] _itemPerSlot;
+
+    CompiledRecipe(CraftingRecipe recipe) {
+        _craftSlotCount = recipe.getSlotCount();
+
+        List<Integer> itemIds = new ArrayList<>();
+        List<int[]> groupKeys = new ArrayList<>();
+        List<List<Integer>> groupSlots = new ArrayList<>();
+        for (int craftSlot = 0; craftSlot < recipe.getSlotCount(); ++craftSlot) {
+            ItemTarget slot = recipe.getSlot(craftSlot);
+            if (slot == null || slot.isEmpty()) continue;
+            int[] key = new int[slot.getMatches().length];
+            for (int i = 0; i < key.length; ++i) {
+                int id = Registry.ITEM.getRawId(slot.getMatches()[i]);
+                int index = itemIds.indexOf(id);
+                if (index == -1) {
+                    index = itemIds.size();
+                    itemIds.add(id);
+                }
+                key[i] = index;
+            }
+            Arrays.sort(key);
+            int group = -1;
+            for (int i = 0; i < groupKeys.size(); ++i) {
+                if (Arrays.equals(groupKeys.get(i), key)) {
+                    group = i;
+                    break;
+                }
+            }
+            if (group == -1) {
+                group = groupKeys.size();
+                groupKeys.add(key);
+                groupSlots.add(new ArrayList<>());
+            }
+            groupSlots.get(group).add(craftSlot);
+        }
+
+        // Most specific groups first.
+        Integer[] order = new Integer[groupKeys.size()];
+        for (int i = 0; i < order.length; ++i) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(groupKeys.get(a).length, groupKeys.get(b).length));
+
+        _itemIds = new int[itemIds.size()];
+        for (int i = 0; i < _itemIds.length; ++i) {
+            _itemIds[i] = itemIds.get(i);
+        }
+        _groupItems = new int[order.length][];
+        _groupCraftSlots = new int[order.length][];
+        for (int i = 0; i < order.length; ++i) {
+            _groupItems[i] = groupKeys.get(order[i]);
+            List<Integer> slots = groupSlots.get(order[i]);
+            _groupCraftSlots[i] = new int[slots.size()];
+            for (int j = 0; j < slots.size(); ++j) {
+                _groupCraftSlots[i][j] = slots.get(j);
+            }
+        }
+        _taken = new int[_itemIds.length];
+        _itemPerSlot = new int[_craftSlotCount];
+    }
+
+    /**
+     * @param counts How many of each item we have, indexed by raw item id. Ids past the end count as zero.
+     * @return Whether we have enough to craft this `crafts` times.
+     */
+    public synchronized boolean canCraft(int[] counts, int crafts) {
+        return crafts <= 0 || allocate(counts, crafts);
+    }
+
+    /**
+     * Same as canCraft, but on success the materials are subtracted from `counts`, so several recipes can be
+     * checked against one shared inventory. `counts` is left alone on failure.
+     */
+    public synchronized boolean take(int[] counts, int crafts) {
+        if (crafts <= 0) return true;
+        if (!allocate(counts, crafts)) return false;
+        for (int i = 0; i < _itemIds.length; ++i) {
+            if (_taken[i] != 0) {
+                counts[_itemIds[i]] -= _taken[i];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param counts How many of each item we have, indexed by raw item id.
+     * @return How many times we can craft this with what we have.
+     */
+    public synchronized int getMaxCraftable(int[] counts) {
+        if (_groupItems.length == 0) return 0;
+        // Each group on its own caps us. That's exact unless groups share items, binary search the rest.
+        int high = Integer.MAX_VALUE;
+        for (int group = 0; group < _groupItems.length; ++group) {
+            long total = 0;
+            for (int index : _groupItems[group]) {
+                total += getCount(counts, _itemIds[index]);
+            }
+            high = (int) Math.min(high, total / _groupCraftSlots[group].length);
+        }
+        int low = 0;
+        while (low < high) {
+            int middle = low + (high - low + 1) / 2;
+            if (allocate(counts, middle)) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Picks which item goes into each craft slot to craft this `crafts` times. Every slot gets a single item,
+     * since that's how the crafting grid works.
+     *
+     * @param counts          How many of each item we have, indexed by raw item id.
+     * @param outItemPerSlot  Filled with the raw item id to put in each craft slot, or -1 for slots left empty.
+     *                        Must be at least as long as the recipe.
+     * @return Whether every slot got an item. If not, `outItemPerSlot` is garbage.
+     */
+    public synchronized boolean getSlotAssignment(int[] counts, int crafts, int[] outItemPerSlot) {
+        Arrays.fill(outItemPerSlot, 0, _craftSlotCount, -1);
+        Arrays.fill(_taken, 0);
+        for (int group = 0; group < _groupItems.length; ++group) {
+            for (int craftSlot : _groupCraftSlots[group]) {
+                boolean found = false;
+                for (int index : _groupItems[group]) {
+                    if (getCount(counts, _itemIds[index]) - _taken[index] >= crafts) {
+                        _taken[index] += crafts;
+                        outItemPerSlot[craftSlot] = _itemIds[index];
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as the raw id version, but fills in items (null for slots left empty).
+     */
+    public synchronized boolean getSlotAssignment(int[] counts, int crafts, Item[] outItemPerSlot) {
+        if (!getSlotAssignment(counts, crafts, _itemPerSlot)) return false;
+        for (int craftSlot = 0; craftSlot < _craftSlotCount; ++craftSlot) {
+            outItemPerSlot[craftSlot] = _itemPerSlot[craftSlot] == -1 ? null : Registry.ITEM.get(_itemPerSlot[craftSlot]);
+        }
+        return true;
+    }
+
+    public int getCraftSlotCount() {
+        return _craftSlotCount;
+    }
+
+    /**
+     * @return Whether `item` goes anywhere in this recipe.
+     */
+    public boolean uses(Item item) {
+        int id = Registry.ITEM.getRawId(item);
+        for (int itemId : _itemIds) {
+            if (itemId == id) return true;
+        }
+        return false;
+    }
+
+    // Greedily hands out items to groups, most specific first. Fills _taken.
+    private boolean allocate(int[] counts, int crafts) {
+        Arrays.fill(_taken, 0);
+        for (int group = 0; group < _groupItems.length; ++group) {
+            long needed = (long) _groupCraftSlots[group].length * crafts;
+            for (int index : _groupItems[group]) {
+                if (needed <= 0) break;
+                int available = getCount(counts, _itemIds[index]) - _taken[index];
+                if (available <= 0) continue;
+                int take = (int) Math.min(available, needed);
+                _taken[index] += take;
+                needed -= take;
+            }
+            if (needed > 0) return false;
+        }
+        return true;
+    }
+
+    private static int getCount(int[] counts, int itemId) {
+        return itemId < counts.length ? counts[itemId] : 0;
+    }
+}
@@ -0,0 +1,123 @@
+package adris.altoclef.util;
+
+import adris.altoclef.TaskCatalogue;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Expands what we want into the whole tree of catalogued resources it takes (raw materials, smelts, crafts),
+ * and works out exactly how many of each we need.
+ *
+ * Shared intermediates (planks, sticks etc.) are merged into one node, so if both the sticks and the table want
+ * planks, we collect all of those planks in one go instead of topping up twice.
+ *
+ * Whatever we already have (see `available`) is used up first, highest level first, so we don't collect materials
+ * for something we're already holding.
+ */
+public class CraftingPlanner {
+
+    // Recipes can't really loop, but don't blow the stack if a catalogue mistake makes one.
+    private static final int MAX_DEPTH = 32;
+
+    public enum StepType {
+        // Collect it however its catalogue task does (mining, mobs, custom tasks)
+        COLLECT,
+        CRAFT,
+        SMELT
+    }
+
+    public static class Step {
+        public final String name;
+        public final StepType type;
+        // How many we need to hold once this step is done
+        public final int count;
+        // How many we still have to make/collect for that
+        public final int missing;
+
+        public Step(String name, StepType type, int count, int missing) {
+            this.name = name;
+            this.type = type;
+            this.count = count;
+            this.missing = missing;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + name + " x " + count + " (missing " + missing + ")";
+        }
+    }
+
+    /**
+     * Plans getting `count` of a catalogued resource, plus some extra requirements on the side.
+     *
+     * @param roots     How many of each catalogued resource we want in the end
+     * @param available How many of a catalogued resource we already have (inventory, known chests...)
+     * @return The steps, dependencies first. Only steps we still need to do anything for are included.
+     */
+    public static List<Step> plan(Map<String, Integer> roots, ToIntFunction<String> available) {
+        // Parents before children, so every node knows its full demand before we expand it.
+        List<String> order = new ArrayList<>();
+        HashSet<String> visited = new HashSet<>();
+        for (String root : roots.keySet()) {
+            visit(root, visited, order, 0);
+        }
+        Collections.reverse(order);
+
+        HashMap<String, Integer> demand = new HashMap<>(roots);
+        List<Step> steps = new ArrayList<>();
+        for (String name : order) {
+            int needed = demand.getOrDefault(name, 0);
+            if (needed <= 0) continue;
+            int missing = Math.max(0, needed - available.applyAsInt(name));
+
+            CraftingRecipe recipe = TaskCatalogue.getRecipe(name);
+            String smeltMaterial = TaskCatalogue.getSmeltMaterial(name);
+            StepType type = recipe != null ? StepType.CRAFT : (smeltMaterial != null ? StepType.SMELT : StepType.COLLECT);
+
+            if (missing > 0) {
+                if (recipe != null) {
+                    int crafts = (missing + recipe.outputCount() - 1) / recipe.outputCount();
+                    for (Map.Entry<String, Integer> ingredient : getIngredients(recipe).entrySet()) {
+                        demand.put(ingredient.getKey(), demand.getOrDefault(ingredient.getKey(), 0) + ingredient.getValue() * crafts);
+                    }
+                } else if (smeltMaterial != null) {
+                    demand.put(smeltMaterial, demand.getOrDefault(smeltMaterial, 0) + missing);
+                }
+            }
+            steps.add(new Step(name, type, needed, missing));
+        }
+        // Children first
+        Collections.reverse(steps);
+        return steps;
+    }
+
+    /**
+     * @return How many of each catalogued ingredient one craft of `recipe` takes. Uncatalogued slots are left out.
+     */
+    public static Map<String, Integer> getIngredients(CraftingRecipe recipe) {
+        LinkedHashMap<String, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < recipe.getSlotCount(); ++i) {
+            ItemTarget slot = recipe.getSlot(i);
+            if (slot == null || slot.isEmpty() || !slot.isCatalogueItem()) continue;
+            result.put(slot.getCatalogueName(), result.getOrDefault(slot.getCatalogueName(), 0) + 1);
+        }
+        return result;
+    }
+
+    private static void visit(String name, Set<String> visited, List<String> order, int depth) {
+        if (depth > MAX_DEPTH || !visited.add(name)) return;
+        CraftingRecipe recipe = TaskCatalogue.getRecipe(name);
+        if (recipe != null) {
+            for (String ingredient : getIngredients(recipe).keySet()) {
+                visit(ingredient, visited, order, depth + 1);
+            }
+        }
+        String smeltMaterial = TaskCatalogue.getSmeltMaterial(name);
+        if (smeltMaterial != null) {
+            visit(smeltMaterial, visited, order, depth + 1);
+        }
+        // Post order: everything we depend on is already in the list.
+        order.add(name);
+    }
+}
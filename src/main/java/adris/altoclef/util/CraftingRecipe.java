@@ -19,6 +19,9 @@ public class CraftingRecipe {
 
     private int _outputCount;
 
+    // Built the first time we match against it, see CompiledRecipe.
+    private CompiledRecipe _compiled;
+
     // Every item in this list MUST match.
     // Used for beds where the wood can be anything
     // but the wool MUST be the same color.
@@ -52,6 +55,13 @@ public class CraftingRecipe {
 
     public int outputCount() {return _outputCount; }
 
+    public CompiledRecipe getCompiled() {
+        if (_compiled == null) {
+            _compiled = new CompiledRecipe(this);
+        }
+        return _compiled;
+    }
+
 
     /*
     public boolean mustMatch(int index) {
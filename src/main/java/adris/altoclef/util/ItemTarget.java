@@ -51,8 +51,8 @@ public class ItemTarget {
     }
 
     public ItemTarget(ItemTarget toCopy) {
-        _itemMatches = new Item[toCopy._itemMatches.length];
-        System.arraycopy(toCopy._itemMatches, 0, _itemMatches,  0, toCopy._itemMatches.length);
+        // Invalid catalogue names leave us with no matches.
+        _itemMatches = toCopy._itemMatches != null ? toCopy._itemMatches.clone() : null;
         _catalogueName = toCopy._catalogueName;
         targetCount = toCopy.targetCount;
         _infinite = toCopy._infinite;
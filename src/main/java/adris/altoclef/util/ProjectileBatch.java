@@ -0,0 +1,58 @@
+package adris.altoclef.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bunch of projectiles laid out as flat arrays (one per property), for running trajectory math over all of them
+ * without touching a single Vec3d. See ProjectileUtil.calculateClosestApproaches.
+ *
+ * Entry `i` of every array belongs to the same projectile. Arrays may be longer than size(), ignore the rest.
+ */
+public class ProjectileBatch {
+
+    public double[] posX = new double[8], posY = new double[8], posZ = new double[8];
+    public double[] velX = new double[8], velY = new double[8], velZ = new double[8];
+    public double[] gravity = new double[8];
+    public double[] drag = new double[8];
+
+    private int _size = 0;
+
+    public int size() {
+        return _size;
+    }
+
+    public void clear() {
+        _size = 0;
+    }
+
+    public void add(CachedProjectile projectile) {
+        if (projectile == null || projectile.position == null || projectile.velocity == null) return;
+        if (_size == posX.length) {
+            int capacity = _size * 2;
+            posX = Arrays.copyOf(posX, capacity);
+            posY = Arrays.copyOf(posY, capacity);
+            posZ = Arrays.copyOf(posZ, capacity);
+            velX = Arrays.copyOf(velX, capacity);
+            velY = Arrays.copyOf(velY, capacity);
+            velZ = Arrays.copyOf(velZ, capacity);
+            gravity = Arrays.copyOf(gravity, capacity);
+            drag = Arrays.copyOf(drag, capacity);
+        }
+        posX[_size] = projectile.position.x;
+        posY[_size] = projectile.position.y;
+        posZ[_size] = projectile.position.z;
+        velX[_size] = projectile.velocity.x;
+        velY[_size] = projectile.velocity.y;
+        velZ[_size] = projectile.velocity.z;
+        gravity[_size] = projectile.gravity;
+        drag[_size] = projectile.drag;
+        ++_size;
+    }
+
+    public void addAll(List<CachedProjectile> projectiles) {
+        for (CachedProjectile projectile : projectiles) {
+            add(projectile);
+        }
+    }
+}
@@ -1,107 +1,230 @@
 package adris.altoclef.util;
 
-import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.entity.projectile.ExplosiveProjectileEntity;
+import net.minecraft.entity.projectile.PersistentProjectileEntity;
 import net.minecraft.entity.projectile.ProjectileEntity;
+import net.minecraft.entity.projectile.TridentEntity;
 import net.minecraft.util.math.MathHelper;
-import net.minecraft.util.math.Vec2f;
-import net.minecraft.util.math.Vec3d;
 
+/**
+ * Where projectiles are headed.
+ *
+ * Minecraft moves a projectile every tick by adding its velocity to its position, then multiplying its velocity by
+ * some drag and pulling it down by gravity. Summed up, after `t` ticks that's
+ *
+ *      position(t) = position + velocity * V(t) - (0, gravity, 0) * G(t)
+ *
+ * with V(t) = (1 - drag^t) / (1 - drag) and G(t) = (t - V(t)) / (1 - drag). These match the game exactly on whole ticks,
+ * and everything here works on that formula directly instead of stepping through ticks.
+ *
+ * Nothing in here allocates, so it's fine to call from Baritone's goal checks.
+ */
 public class ProjectileUtil {
 
     public static final double GRAVITY_ACCEL = 0.05000000074505806D;
+    public static final double DRAG_AIR = 0.99;
+
+    // Don't bother looking further ahead than this. Anything that takes longer to reach us isn't worth dodging yet.
+    public static final double MAX_TICKS = 100;
+
+    // How many times we halve the window around a closest approach with drag. 2^-20 of a tick is plenty.
+    private static final int REFINE_ITERATIONS = 20;
 
     public static boolean hasGravity(ProjectileEntity entity) {
         if (entity instanceof ExplosiveProjectileEntity) return false;
         return !entity.hasNoGravity();
     }
 
-    // If we shoot on a 2d plane, what is the 2d point on that trajectory closest to our player pos?
-    private static Vec3d getClosestPointOnFlatLine(double shootX, double shootZ, double velX, double velZ, double playerX, double playerZ) {
-        double deltaX = playerX - shootX,
-               deltaZ = playerZ - shootZ;
-        // Did da math I am smurt boi who knows basic calculus
-        double t = ( (velX * deltaX) + (velZ * deltaZ) ) / (velX*velX + velZ*velZ);
-
-        double hitX = shootX + velX * t,
-               hitZ = shootZ + velZ * t;
-
-        return new Vec3d(hitX, 0, hitZ);
+    public static double getDrag(ProjectileEntity entity) {
+        // Fireballs keep getting pushed along, close enough to flying straight at the same speed.
+        if (entity instanceof ExplosiveProjectileEntity) return 1;
+        if (entity.isTouchingWater()) {
+            if (entity instanceof TridentEntity) return 0.99;
+            return entity instanceof PersistentProjectileEntity ? 0.6 : 0.8;
+        }
+        return DRAG_AIR;
     }
 
-    public static double getFlatDistanceSqr(double shootX, double shootZ, double velX, double velZ, double playerX, double playerZ) {
-        return getClosestPointOnFlatLine(shootX, shootZ, velX, velZ, playerX, playerZ).squaredDistanceTo(playerX, 0, playerZ);
+    /**
+     * Where a projectile will be along one axis after some (possibly fractional) number of ticks.
+     * Pass 0 gravity for the horizontal axes.
+     */
+    public static double getPositionAfter(double position, double velocity, double gravity, double drag, double ticks) {
+        return position + velocity * getVelocityFactor(drag, ticks) - gravity * getGravityFactor(drag, ticks);
     }
 
-    private static double getArrowHitHeight(double gravity, double horizontalVel, double verticalVel, double initialHeight, double distanceTraveled) {
-        double time = distanceTraveled / horizontalVel;
-        return initialHeight - (verticalVel * time) - 0.5 * (gravity * time * time);
+    /**
+     * How many ticks from now a projectile passes closest to `target`, between 0 and MAX_TICKS.
+     *
+     * Without gravity it flies in a straight line, so that's solved directly. Without drag the squared distance is a
+     * quartic, so we take every root of its (cubic) derivative and pick the best. With both there's no closed form,
+     * so we walk the whole ticks looking for where it stops getting closer and narrow each of those down.
+     */
+    public static double getClosestApproachTime(double posX, double posY, double posZ, double velX, double velY, double velZ,
+                                                double gravity, double drag, double targetX, double targetY, double targetZ) {
+        double deltaX = posX - targetX,
+               deltaY = posY - targetY,
+               deltaZ = posZ - targetZ;
+
+        if (gravity == 0) {
+            // A straight line that slows down. Find how far along the line we want, then when we get there.
+            double speedSqr = velX * velX + velY * velY + velZ * velZ;
+            if (speedSqr == 0) return 0;
+            double along = -(deltaX * velX + deltaY * velY + deltaZ * velZ) / speedSqr;
+            if (along <= 0) return 0;
+            if (drag >= 1) return Math.min(along, MAX_TICKS);
+            // It stops after going 1 / (1 - drag) of its velocity, if we're further along it never gets there.
+            double remaining = 1 - along * (1 - drag);
+            if (remaining <= 0) return MAX_TICKS;
+            return Math.min(Math.log(remaining) / Math.log(drag), MAX_TICKS);
+        }
+
+        double bestTime = 0;
+        double bestDistanceSqr = getDistanceSqr(deltaX, deltaY, deltaZ, velX, velY, velZ, gravity, drag, 0);
+
+        if (drag >= 1) {
+            // position(t) = delta + w*t - h*t^2 (y only), with h = g/2 and w = velocity + (0, h, 0).
+            // Half the derivative of the squared distance is then this cubic.
+            double h = gravity / 2;
+            double wY = velY + h;
+            double a = 2 * h * h;
+            double b = -3 * h * wY;
+            double c = velX * velX + wY * wY + velZ * velZ - 2 * h * deltaY;
+            double d = deltaX * velX + deltaY * wY + deltaZ * velZ;
+            double roots0, roots1 = Double.NaN, roots2 = Double.NaN;
+            // Depressed cubic t^3 + pt + q, with t = x + b/3a
+            double shift = b / (3 * a);
+            double p = (3 * a * c - b * b) / (3 * a * a);
+            double q = (2 * b * b * b - 9 * a * b * c + 27 * a * a * d) / (27 * a * a * a);
+            double discriminant = (q * q) / 4 + (p * p * p) / 27;
+            if (discriminant >= 0) {
+                double root = Math.sqrt(discriminant);
+                roots0 = Math.cbrt(-q / 2 + root) + Math.cbrt(-q / 2 - root) - shift;
+            } else {
+                // Three real roots, trig form.
+                double r = 2 * Math.sqrt(-p / 3);
+                double angle = Math.acos(MathHelper.clamp((3 * q) / (2 * p) * Math.sqrt(-3 / p), -1, 1)) / 3;
+                roots0 = r * Math.cos(angle) - shift;
+                roots1 = r * Math.cos(angle - 2 * Math.PI / 3) - shift;
+                roots2 = r * Math.cos(angle - 4 * Math.PI / 3) - shift;
+            }
+            // The ends count too, since the closest point might be now or past our horizon.
+            for (int i = 0; i < 4; ++i) {
+                double time = i == 0 ? roots0 : (i == 1 ? roots1 : (i == 2 ? roots2 : MAX_TICKS));
+                if (!(time > 0 && time <= MAX_TICKS)) continue;
+                double distanceSqr = getDistanceSqr(deltaX, deltaY, deltaZ, velX, velY, velZ, gravity, drag, time);
+                if (distanceSqr < bestDistanceSqr) {
+                    bestDistanceSqr = distanceSqr;
+                    bestTime = time;
+                }
+            }
+            return bestTime;
+        }
+
+        double logDrag = Math.log(drag);
+        double previousSlope = getSlope(deltaX, deltaY, deltaZ, velX, velY, velZ, gravity, drag, logDrag, 0);
+        int tick = 1;
+        for (; tick <= MAX_TICKS; ++tick) {
+            double slope = getSlope(deltaX, deltaY, deltaZ, velX, velY, velZ, gravity, drag, logDrag, tick);
+            if (previousSlope < 0 && slope >= 0) {
+                // Stopped getting closer somewhere in the last tick
+                double low = tick - 1, high = tick;
+                for (int i = 0; i < REFINE_ITERATIONS; ++i) {
+                    double middle = (low + high) / 2;
+                    if (getSlope(deltaX, deltaY, deltaZ, velX, velY, velZ, gravity, drag, logDrag, middle) < 0) {
+                        low = middle;
+                    } else {
+                        high = middle;
+                    }
+                }
+                double time = (low + high) / 2;
+                double distanceSqr = getDistanceSqr(deltaX, deltaY, deltaZ, velX, velY, velZ, gravity, drag, time);
+                if (distanceSqr < bestDistanceSqr) {
+                    bestDistanceSqr = distanceSqr;
+                    bestTime = time;
+                }
+            }
+            previousSlope = slope;
+
+            // Once it's falling and further below us than the best we've seen, it'll only get further away.
+            double below = -(deltaY + velY * getVelocityFactor(drag, tick) - gravity * getGravityFactor(drag, tick));
+            double fallSpeed = -(velY * getVelocitySlope(drag, logDrag, tick) - gravity * getGravitySlope(drag, logDrag, tick));
+            if (fallSpeed > 0 && below > 0 && below * below > bestDistanceSqr) break;
+        }
+        if (tick > MAX_TICKS && previousSlope < 0) {
+            // Still getting closer when we stopped looking
+            double distanceSqr = getDistanceSqr(deltaX, deltaY, deltaZ, velX, velY, velZ, gravity, drag, MAX_TICKS);
+            if (distanceSqr < bestDistanceSqr) {
+                bestTime = MAX_TICKS;
+            }
+        }
+        return bestTime;
     }
 
     /**
-     * Calculates where we think an arrow will "hit" us, or at least where it will be at its closest.
-     * Does so by figuring out the closest X-Z coordinate of the arrow's trajectory and then using the height
-     * of the arrow when it reaches that point as the result's Y value.
+     * Closest approach of every projectile in a batch to every one of a bunch of target positions.
+     *
+     * The result for projectile `p` and target `t` is written to index `p * targetCount + t` of each out array, which
+     * must be at least `projectiles.size() * targetCount` long.
+     *
+     * @param outTicks When the closest approach happens. May be null if you don't care.
+     * @param outHitX  Where the projectile is at its closest approach
      */
-    public static Vec3d calculateArrowClosestApproach(Vec3d shootOrigin, Vec3d shootVelocity, double yGravity, Vec3d playerOrigin) {
-        Vec3d flatEncounter = getClosestPointOnFlatLine(shootOrigin.x, shootOrigin.z, shootVelocity.x, shootVelocity.z, playerOrigin.x, playerOrigin.z);
-        double encounterDistanceTraveled = (flatEncounter.subtract(shootOrigin.x, flatEncounter.y, shootOrigin.z)).length();
-
-        double horizontalVel = Math.sqrt(shootVelocity.x*shootVelocity.x + shootVelocity.z*shootVelocity.z);
-        double verticalVel = shootVelocity.y;
-        double initialHeight = shootOrigin.y;
+    public static void calculateClosestApproaches(ProjectileBatch projectiles, double[] targetX, double[] targetY, double[] targetZ, int targetCount,
+                                                  double[] outTicks, double[] outHitX, double[] outHitY, double[] outHitZ) {
+        for (int p = 0; p < projectiles.size(); ++p) {
+            double posX = projectiles.posX[p], posY = projectiles.posY[p], posZ = projectiles.posZ[p];
+            double velX = projectiles.velX[p], velY = projectiles.velY[p], velZ = projectiles.velZ[p];
+            double gravity = projectiles.gravity[p], drag = projectiles.drag[p];
+            for (int t = 0; t < targetCount; ++t) {
+                int index = p * targetCount + t;
+                double time = getClosestApproachTime(posX, posY, posZ, velX, velY, velZ, gravity, drag, targetX[t], targetY[t], targetZ[t]);
+                if (outTicks != null) outTicks[index] = time;
+                outHitX[index] = getPositionAfter(posX, velX, 0, drag, time);
+                outHitY[index] = getPositionAfter(posY, velY, gravity, drag, time);
+                outHitZ[index] = getPositionAfter(posZ, velZ, 0, drag, time);
+            }
+        }
+    }
 
-        double hitHeight = getArrowHitHeight(yGravity, horizontalVel, verticalVel, initialHeight, encounterDistanceTraveled);
+    // V(t), how many of its starting velocities a projectile has moved after `ticks`.
+    private static double getVelocityFactor(double drag, double ticks) {
+        if (drag >= 1) return ticks;
+        return (1 - Math.pow(drag, ticks)) / (1 - drag);
+    }
 
-        return new Vec3d(flatEncounter.x, hitHeight, flatEncounter.z);
+    // G(t), how many of its gravities a projectile has been pulled down after `ticks`.
+    private static double getGravityFactor(double drag, double ticks) {
+        if (drag >= 1) return ticks * (ticks - 1) / 2;
+        return (ticks - getVelocityFactor(drag, ticks)) / (1 - drag);
     }
 
-    public static Vec3d calculateArrowClosestApproach(CachedProjectile projectile, Vec3d pos) {
-        return calculateArrowClosestApproach(projectile.position, projectile.velocity, projectile.gravity, pos);
+    // Derivatives of the two above, for drag < 1.
+    private static double getVelocitySlope(double drag, double logDrag, double ticks) {
+        return -logDrag * Math.pow(drag, ticks) / (1 - drag);
     }
-    public static Vec3d calculateArrowClosestApproach(CachedProjectile projectile, ClientPlayerEntity player) {
-        return calculateArrowClosestApproach(projectile, player.getPos());
+    private static double getGravitySlope(double drag, double logDrag, double ticks) {
+        return (1 - getVelocitySlope(drag, logDrag, ticks)) / (1 - drag);
     }
 
-    // Unable to figure out how to extract multiple roots, this is too complicated for engineering major like me.
-    @SuppressWarnings("UnnecessaryLocalVariable")
-    @Deprecated
-    private static double getNearestTimeOfShotProjectile(Vec3d shootOrigin, Vec3d shootVelocity, double yGravity, Vec3d playerOrigin) {
-        // Formatted for equations and ease of writing. This is why I'm not minoring in math.
-        Vec3d D = playerOrigin.subtract(shootOrigin);
-        Vec3d V = shootVelocity;
-        double g = yGravity;
-
-        // Cubic terms
-        double a = (g*g) / 2.0;
-        double b = -(3.0 * g * V.y) / 2.0;
-        double c = V.lengthSquared() + (g * V.y);
-        double d = -1 * V.dotProduct(D);
-
-
-        // Now that we have our cubic equation for SQUARED distance, find the "zero" points.
-        // This will only happen when we reach either a local minimum or a local maximum.
-
-        // Solution stuff, thanks https://math.vanderbilt.edu/schectex/courses/cubic/
-        double p = -b / (3.0*a);
-        double q = (p*p*p) + (((b*c) - (3.0*a*d)) / (6.0*a*a));
-        double r = c / (3.0*a);
-
-        double rootInner = (q*q) + Math.pow(r - p*p, 3);
-
-        // Theoretically there could exist imaginary roots that will cancel themselves out, but that ought to be rare.
-        // We will get an imaginary root somewhere so ignore it.
-        if (rootInner < 0) return -1;
-
-        rootInner = Math.sqrt(rootInner);
-
-
-
-        double outerPreCubeLeft = q + rootInner;
-        double outerPreCubeRight = q - rootInner;
-
-        // THERE SHOULD BE UP TO 3!!! This will only find one and that can be completely wrong.
-        return Math.pow(outerPreCubeLeft, 1.0 / 3.0) + Math.pow(outerPreCubeRight, 1.0 / 3.0) + p;
+    private static double getDistanceSqr(double deltaX, double deltaY, double deltaZ, double velX, double velY, double velZ,
+                                         double gravity, double drag, double ticks) {
+        double v = getVelocityFactor(drag, ticks);
+        double x = deltaX + velX * v,
+               y = deltaY + velY * v - gravity * getGravityFactor(drag, ticks),
+               z = deltaZ + velZ * v;
+        return x * x + y * y + z * z;
     }
 
+    // Half the derivative of the squared distance over time. Negative while the projectile is getting closer.
+    private static double getSlope(double deltaX, double deltaY, double deltaZ, double velX, double velY, double velZ,
+                                   double gravity, double drag, double logDrag, double ticks) {
+        double v = getVelocityFactor(drag, ticks);
+        double x = deltaX + velX * v,
+               y = deltaY + velY * v - gravity * getGravityFactor(drag, ticks),
+               z = deltaZ + velZ * v;
+        double vSlope = getVelocitySlope(drag, logDrag, ticks);
+        double gSlope = getGravitySlope(drag, logDrag, ticks);
+        return x * velX * vSlope + y * (velY * vSlope - gravity * gSlope) + z * velZ * vSlope;
+    }
 }
@@ -0,0 +1,228 @@
+package adris.altoclef.util;
+
+import adris.altoclef.Debug;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Opt-in profiler for the client tick.
+ *
+ * Code wraps whatever it wants measured in `push`/`pop`, which builds up a stack like
+ * "tick;UserTaskChain;BeatMinecraftTask;CollectFoodTask". Each frame's self time is summed up per stack
+ * over a rolling window of ticks, and can be dumped as collapsed stacks ("a;b;c 123" per line, in microseconds)
+ * which flame graph tools (flamegraph.pl, speedscope, etc.) read directly.
+ *
+ * Only the client thread is measured, anything pushed from another thread (like baritone's) is ignored.
+ */
+public class TickProfiler {
+
+    private static final String DUMP_FOLDER = "altoclef_profiles";
+
+    private boolean _enabled = false;
+
+    private int _windowTicks;
+
+    private Thread _tickThread = null;
+
+    // The frames we're currently in.
+    private final ArrayList<Frame> _stack = new ArrayList<>();
+
+    // Self time (nanoseconds) per stack for the tick in progress.
+    private HashMap<String, Long> _currentTick = new HashMap<>();
+    private long _currentTickStart;
+
+    // The last `_windowTicks` ticks, oldest first, plus their running sum.
+    private final ArrayDeque<HashMap<String, Long>> _window = new ArrayDeque<>();
+    private final HashMap<String, Long> _windowTotals = new HashMap<>();
+
+    // Our slowest tick since the last reset, so spikes don't get averaged away.
+    private HashMap<String, Long> _worstTick = null;
+    private long _worstTickNanos = 0;
+
+    public TickProfiler(int windowTicks) {
+        _windowTicks = Math.max(1, windowTicks);
+    }
+
+    public boolean isEnabled() {
+        return _enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (_enabled != enabled) {
+            _enabled = enabled;
+            _stack.clear();
+            _tickThread = null;
+        }
+    }
+
+    public void setWindowTicks(int windowTicks) {
+        _windowTicks = Math.max(1, windowTicks);
+        trimWindow();
+    }
+
+    public void reset() {
+        _stack.clear();
+        _currentTick = new HashMap<>();
+        _window.clear();
+        _windowTotals.clear();
+        _worstTick = null;
+        _worstTickNanos = 0;
+    }
+
+    public void beginTick() {
+        if (!_enabled) return;
+        _tickThread = Thread.currentThread();
+        _stack.clear();
+        _currentTick = new HashMap<>();
+        _currentTickStart = System.nanoTime();
+        push("tick");
+    }
+
+    public void endTick() {
+        if (!_enabled || _tickThread == null) return;
+        // Anything left over (an exception skipped a pop) gets closed here.
+        while (!_stack.isEmpty()) {
+            pop();
+        }
+        long tickNanos = System.nanoTime() - _currentTickStart;
+
+        _window.addLast(_currentTick);
+        add(_windowTotals, _currentTick, 1);
+        trimWindow();
+
+        if (tickNanos > _worstTickNanos) {
+            _worstTickNanos = tickNanos;
+            _worstTick = _currentTick;
+        }
+    }
+
+    public void push(String name) {
+        if (!_enabled || Thread.currentThread() != _tickThread) return;
+        String path = _stack.isEmpty() ? name : _stack.get(_stack.size() - 1).path + ";" + name;
+        _stack.add(new Frame(path, System.nanoTime()));
+    }
+
+    // These only build the frame name if we're actually profiling, since they get called a lot.
+    public void push(String prefix, String name) {
+        if (!_enabled || Thread.currentThread() != _tickThread) return;
+        push(prefix + name);
+    }
+    public void push(Class<?> type) {
+        if (!_enabled || Thread.currentThread() != _tickThread) return;
+        push(getFrameName(type));
+    }
+
+    public void pop() {
+        if (!_enabled || Thread.currentThread() != _tickThread || _stack.isEmpty()) return;
+        Frame frame = _stack.remove(_stack.size() - 1);
+        long elapsed = System.nanoTime() - frame.start;
+        long self = elapsed - frame.childNanos;
+        _currentTick.put(frame.path, _currentTick.getOrDefault(frame.path, 0L) + self);
+        if (!_stack.isEmpty()) {
+            _stack.get(_stack.size() - 1).childNanos += elapsed;
+        }
+    }
+
+    /**
+     * Anonymous classes don't have a simple name, so fall back to the full one.
+     */
+    public static String getFrameName(Class<?> type) {
+        String name = type.getSimpleName();
+        return name.isEmpty() ? type.getName() : name;
+    }
+
+    public int getWindowSize() {
+        return _window.size();
+    }
+
+    /**
+     * @return Self time in milliseconds per frame name over the window (wherever it showed up in the stack), heaviest first.
+     */
+    public List<Map.Entry<String, Double>> getHeaviestFrames(int count) {
+        HashMap<String, Long> byFrame = new HashMap<>();
+        for (Map.Entry<String, Long> entry : _windowTotals.entrySet()) {
+            String path = entry.getKey();
+            String frame = path.substring(path.lastIndexOf(';') + 1);
+            byFrame.put(frame, byFrame.getOrDefault(frame, 0L) + entry.getValue());
+        }
+        List<Map.Entry<String, Double>> result = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : byFrame.entrySet()) {
+            result.add(new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue() / 1000000.0));
+        }
+        result.sort((left, right) -> Double.compare(right.getValue(), left.getValue()));
+        if (result.size() > count) {
+            return result.subList(0, count);
+        }
+        return result;
+    }
+
+    /**
+     * Writes our window (and worst tick) as collapsed stack files.
+     *
+     * @return The window file, or null if we failed.
+     */
+    public File dump() {
+        String stamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+        File folder = new File(DUMP_FOLDER);
+        if (!folder.exists() && !folder.mkdirs()) {
+            Debug.logWarning("Failed to create profile folder " + folder.getAbsolutePath());
+            return null;
+        }
+        File windowFile = new File(folder, "tick_" + stamp + ".collapsed");
+        try {
+            writeCollapsed(windowFile, _windowTotals);
+            if (_worstTick != null) {
+                writeCollapsed(new File(folder, "tick_" + stamp + "_worst.collapsed"), _worstTick);
+            }
+        } catch (IOException e) {
+            Debug.logWarning("Failed to write profile: " + e);
+            return null;
+        }
+        return windowFile;
+    }
+
+    private static void writeCollapsed(File file, Map<String, Long> stacks) throws IOException {
+        List<String> paths = new ArrayList<>(stacks.keySet());
+        Collections.sort(paths);
+        try (FileWriter writer = new FileWriter(file)) {
+            for (String path : paths) {
+                long micros = stacks.get(path) / 1000;
+                // Flame graph tools want whole numbers and don't care for empty frames.
+                if (micros <= 0) continue;
+                writer.write(path.replace(' ', '_') + " " + micros + "\n");
+            }
+        }
+    }
+
+    private void trimWindow() {
+        while (_window.size() > _windowTicks) {
+            add(_windowTotals, _window.removeFirst(), -1);
+        }
+    }
+
+    private static void add(HashMap<String, Long> totals, HashMap<String, Long> tick, int sign) {
+        for (Map.Entry<String, Long> entry : tick.entrySet()) {
+            long value = totals.getOrDefault(entry.getKey(), 0L) + sign * entry.getValue();
+            if (value == 0) {
+                totals.remove(entry.getKey());
+            } else {
+                totals.put(entry.getKey(), value);
+            }
+        }
+    }
+
+    private static class Frame {
+        public final String path;
+        public final long start;
+        public long childNanos = 0;
+
+        public Frame(String path, long start) {
+            this.path = path;
+            this.start = start;
+        }
+    }
+}
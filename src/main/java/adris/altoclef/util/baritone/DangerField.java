@@ -0,0 +1,191 @@
+package adris.altoclef.util.baritone;
+
+import baritone.api.utils.BetterBlockPos;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+
+/**
+ * Spheres of danger (around mobs, creepers, where a projectile is headed...) bucketed into a sparse grid of cells,
+ * so asking "what's dangerous here" only looks at what's actually close by instead of everything we know about.
+ *
+ * Fill it with add() right after creating it, then leave it alone. After that it's safe to read from Baritone's thread.
+ */
+public class DangerField {
+
+    private final int _cellShift;
+    private final boolean _xzOnly;
+
+    // Sources, one entry per array
+    private int _count = 0;
+    private double[] _x = new double[8], _y = new double[8], _z = new double[8];
+    private double[] _radius = new double[8];
+    private double[] _weight = new double[8];
+    private Entity[] _entities = new Entity[8];
+
+    // Cell -> sources whose sphere touches the cell
+    private final Long2ObjectOpenHashMap<IntArrayList> _cells = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * @param typicalRadius How big our spheres usually are, picks the cell size.
+     * @param xzOnly        Ignore height, spheres become infinitely tall cylinders.
+     */
+    public DangerField(double typicalRadius, boolean xzOnly) {
+        // Cells about as wide as a sphere's radius, so a sphere covers a handful of cells and a cell holds few spheres.
+        int shift = 2;
+        while (shift < 5 && (1 << shift) < typicalRadius) {
+            shift++;
+        }
+        _cellShift = shift;
+        _xzOnly = xzOnly;
+    }
+
+    /**
+     * @param weight How bad it is to be here, see getDanger.
+     * @param entity What this sphere is around, if anything. Handed back by getEntity.
+     */
+    public void add(double x, double y, double z, double radius, double weight, Entity entity) {
+        if (_count == _x.length) {
+            int capacity = _count * 2;
+            _x = Arrays.copyOf(_x, capacity);
+            _y = Arrays.copyOf(_y, capacity);
+            _z = Arrays.copyOf(_z, capacity);
+            _radius = Arrays.copyOf(_radius, capacity);
+            _weight = Arrays.copyOf(_weight, capacity);
+            _entities = Arrays.copyOf(_entities, capacity);
+        }
+        int index = _count++;
+        _x[index] = x;
+        _y[index] = y;
+        _z[index] = z;
+        _radius[index] = radius;
+        _weight[index] = weight;
+        _entities[index] = entity;
+
+        int minX = (int) Math.floor(x - radius) >> _cellShift, maxX = (int) Math.floor(x + radius) >> _cellShift;
+        int minZ = (int) Math.floor(z - radius) >> _cellShift, maxZ = (int) Math.floor(z + radius) >> _cellShift;
+        int minY = 0, maxY = 0;
+        if (!_xzOnly) {
+            minY = (int) Math.floor(y - radius) >> _cellShift;
+            maxY = (int) Math.floor(y + radius) >> _cellShift;
+        }
+        for (int cellX = minX; cellX <= maxX; ++cellX) {
+            for (int cellY = minY; cellY <= maxY; ++cellY) {
+                for (int cellZ = minZ; cellZ <= maxZ; ++cellZ) {
+                    IntArrayList sources = _cells.get(getCellKey(cellX, cellY, cellZ));
+                    if (sources == null) {
+                        sources = new IntArrayList(4);
+                        _cells.put(getCellKey(cellX, cellY, cellZ), sources);
+                    }
+                    sources.add(index);
+                }
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return _count == 0;
+    }
+
+    /**
+     * @return Whether this block is inside any of our spheres.
+     */
+    public boolean isInDanger(int x, int y, int z) {
+        IntList sources = getSourcesAt(x, y, z);
+        for (int i = 0; i < sources.size(); ++i) {
+            if (isInRange(sources.getInt(i), x, y, z)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return How dangerous this block is. Every sphere adds its weight at its center, fading out to nothing at its edge.
+     */
+    public double getDanger(int x, int y, int z) {
+        IntList sources = getSourcesAt(x, y, z);
+        double result = 0;
+        for (int i = 0; i < sources.size(); ++i) {
+            int source = sources.getInt(i);
+            double distanceSqr = getDistanceSqr(source, x, y, z);
+            double radius = _radius[source];
+            if (distanceSqr < radius * radius) {
+                result += _weight[source] * (1 - Math.sqrt(distanceSqr) / radius);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Every source that MIGHT cover this block (check with isInRange). Don't modify it.
+     */
+    public IntList getSourcesAt(int x, int y, int z) {
+        IntArrayList sources = _cells.get(getCellKey(x >> _cellShift, _xzOnly ? 0 : y >> _cellShift, z >> _cellShift));
+        return sources != null ? sources : IntLists.EMPTY_LIST;
+    }
+
+    public boolean isInRange(int source, int x, int y, int z) {
+        return getDistanceSqr(source, x, y, z) < _radius[source] * _radius[source];
+    }
+
+    public Entity getEntity(int source) {
+        return _entities[source];
+    }
+
+    // Where a source was when it was added, safe to read from any thread unlike its entity.
+    public double getX(int source) {
+        return _x[source];
+    }
+    public double getY(int source) {
+        return _y[source];
+    }
+    public double getZ(int source) {
+        return _z[source];
+    }
+    public double getWeight(int source) {
+        return _weight[source];
+    }
+
+    /**
+     * Makes Baritone's movement cost through every block of every sphere more expensive, on top of whatever
+     * it already has there. Blocks get multiplied by (1 + coefficient * danger).
+     *
+     * @param favorings Baritone's per block cost multipliers, keyed by BetterBlockPos.longHash
+     */
+    public void applyTo(Long2DoubleOpenHashMap favorings, double coefficient) {
+        for (int source = 0; source < _count; ++source) {
+            double radius = _radius[source];
+            int centerX = (int) Math.floor(_x[source]), centerY = (int) Math.floor(_y[source]), centerZ = (int) Math.floor(_z[source]);
+            int r = (int) Math.ceil(radius);
+            for (int x = centerX - r; x <= centerX + r; ++x) {
+                for (int y = centerY - r; y <= centerY + r; ++y) {
+                    for (int z = centerZ - r; z <= centerZ + r; ++z) {
+                        double distanceSqr = getDistanceSqr(source, x, y, z);
+                        if (distanceSqr >= radius * radius) continue;
+                        double multiplier = 1 + coefficient * _weight[source] * (1 - Math.sqrt(distanceSqr) / radius);
+                        long hash = BetterBlockPos.longHash(x, y, z);
+                        // Same as Baritone's own avoidance, multipliers stack.
+                        favorings.put(hash, favorings.get(hash) * multiplier);
+                    }
+                }
+            }
+        }
+    }
+
+    private double getDistanceSqr(int source, int x, int y, int z) {
+        double dx = _x[source] - x,
+               dz = _z[source] - z;
+        if (_xzOnly) return dx * dx + dz * dz;
+        double dy = _y[source] - y;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static long getCellKey(int cellX, int cellY, int cellZ) {
+        return BlockPos.asLong(cellX, cellY, cellZ);
+    }
+}
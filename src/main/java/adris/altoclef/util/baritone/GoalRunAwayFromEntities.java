@@ -1,15 +1,18 @@
 package adris.altoclef.util.baritone;
 
 import adris.altoclef.AltoClef;
-import baritone.api.pathing.goals.Goal;
-import baritone.api.pathing.goals.GoalBlock;
 import baritone.api.pathing.goals.GoalXZ;
 import baritone.api.pathing.goals.GoalYLevel;
+import it.unimi.dsi.fastutil.ints.IntList;
 import net.minecraft.entity.Entity;
+import net.minecraft.util.math.MathHelper;
 
 import java.util.List;
 
-public abstract class GoalRunAwayFromEntities implements Goal {
+public abstract class GoalRunAwayFromEntities implements IUpdatableGoal {
+
+    // If we have 100 players, this will never calculate.
+    private static final int MAX_ENTITIES_PER_NODE = 10;
 
     private final AltoClef _mod;
     private final double _distance;
@@ -21,64 +24,77 @@ public abstract class GoalRunAwayFromEntities implements Goal {
     // Too low: We will just run straight into the entity to go past it.
     private final double _penaltyFactor;
 
+    // Where our entities are, rebuilt every tick. Baritone reads this from its own thread, so it never touches the
+    // entities themselves, only what we copied out of them here.
+    private volatile DangerField _field;
+
     public GoalRunAwayFromEntities(AltoClef mod, double distance, boolean xzOnly, double penaltyFactor) {
         _mod = mod;
         _distance = distance;
         _xzOnly = xzOnly;
         _penaltyFactor = penaltyFactor;
+        update();
     }
 
+    /**
+     * Grabs where our entities are right now. Call once per tick, from the client thread.
+     */
     @Override
-    public boolean isInGoal(int x, int y, int z) {
+    public void update() {
         List<Entity> entities = getEntities(_mod);
+        DangerField field = new DangerField(_distance, _xzOnly);
         synchronized (BaritoneHelper.MINECRAFT_LOCK) {
             for (Entity entity : entities) {
                 if (entity == null || !entity.isAlive()) continue;
-                double sqDistance;
-                if (_xzOnly) {
-                    sqDistance = entity.getPos().subtract(x, y, z).multiply(1, 0, 1).lengthSquared();
-                } else {
-                    sqDistance = entity.squaredDistanceTo(x, y, z);
-                }
-                if (sqDistance < _distance * _distance) return false;
+                field.add(entity.getX(), entity.getY(), entity.getZ(), _distance, getWeight(entity), entity);
             }
         }
-        return true;
+        _field = field;
+    }
+
+    @Override
+    public boolean isInGoal(int x, int y, int z) {
+        return !_field.isInDanger(x, y, z);
     }
 
     @Override
     public double heuristic(int x, int y, int z) {
         // The lower the cost, the better.
+        DangerField field = _field;
+        // Only the entities we're too close to matter, the rest are already far enough.
+        IntList sources = field.getSourcesAt(x, y, z);
         double costSum = 0;
-        List<Entity> entities = getEntities(_mod);
-        synchronized (BaritoneHelper.MINECRAFT_LOCK) {
-            int max = 10; // If we have 100 players, this will never calculate.
-            int counter = 0;
-            for (Entity entity : entities) {
-                counter++;
-                if (entity == null || !entity.isAlive()) continue;
-                double cost = getCostOfEntity(entity, x, y, z);
-                if (cost != 0) {
-                    // We want the CLOSER entities to have a bigger weight than the further ones.
-                    costSum += 1 / cost;
-                }
-                if (counter >= max) break;
+        int counter = 0;
+        for (int i = 0; i < sources.size() && counter < MAX_ENTITIES_PER_NODE; ++i) {
+            int source = sources.getInt(i);
+            if (!field.isInRange(source, x, y, z)) continue;
+            counter++;
+            double cost = getCostOfEntity(field.getX(source), field.getY(source), field.getZ(source), field.getWeight(source), x, y, z);
+            if (cost != 0) {
+                // We want the CLOSER entities to have a bigger weight than the further ones.
+                costSum += 1 / cost;
             }
-            costSum /= counter;
-            return costSum * _penaltyFactor;
         }
+        if (counter == 0) return 0;
+        costSum /= counter;
+        return costSum * _penaltyFactor;
         //return -1 * BaritoneHelper.calculateGenericHeuristic(x, y, z, _badBoi.getPos().x, _badBoi.getPos().y, _badBoi.getPos().z);
     }
 
     protected abstract List<Entity> getEntities(AltoClef mod);
 
-    // Virtual
-    protected double getCostOfEntity(Entity entity, int x, int y, int z) {
+    // Virtual: anything else getCostOfEntity needs to know about an entity. Read with the minecraft lock held.
+    protected double getWeight(Entity entity) {
+        return 1;
+    }
+
+    // Virtual: runs on Baritone's thread, so only use what we grabbed in update().
+    protected double getCostOfEntity(double entityX, double entityY, double entityZ, double weight, int x, int y, int z) {
         double heuristic = 0;
         if (!_xzOnly) {
-            heuristic += GoalYLevel.calculate(entity.getBlockPos().getY(), y);
+            heuristic += GoalYLevel.calculate(MathHelper.floor(entityY), y);
         }
-        heuristic += GoalXZ.calculate(entity.getBlockPos().getX() - x, entity.getBlockPos().getZ() - z);
+        heuristic += GoalXZ.calculate(MathHelper.floor(entityX) - x, MathHelper.floor(entityZ) - z);
         return heuristic; //entity.squaredDistanceTo(x, y, z);
     }
 }
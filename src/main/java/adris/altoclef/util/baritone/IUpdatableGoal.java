@@ -0,0 +1,16 @@
+package adris.altoclef.util.baritone;
+
+import baritone.api.pathing.goals.Goal;
+
+/**
+ * A goal built from things that move (mobs, projectiles...). Baritone keeps using the same goal object while it
+ * paths, so instead of making a new goal we refresh this one.
+ *
+ * CustomBaritoneGoalTask calls update() on its goal every tick.
+ */
+public interface IUpdatableGoal extends Goal {
+    /**
+     * Grab whatever the goal depends on as it is right now. Called from the client thread.
+     */
+    void update();
+}
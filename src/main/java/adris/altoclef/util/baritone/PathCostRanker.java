@@ -0,0 +1,131 @@
+package adris.altoclef.util.baritone;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.Debug;
+import adris.altoclef.util.csharpisbetter.Timer;
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.PathCalculationResult;
+import baritone.pathing.calc.AStarPathFinder;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Works out the real walking cost to a few candidate targets in the background, so we can go for whatever is
+ * actually quickest to get to instead of whatever is closest in a straight line (like a log on the other side of a cliff).
+ *
+ * Every candidate gets its own A* search on Baritone's executor, so several run at once. Costs are cached for a
+ * little while, and thrown out early if we've moved a fair bit since they were calculated.
+ *
+ * @param <T> Whatever we're ranking (BlockPos, Entity...). Used as a map key.
+ */
+public class PathCostRanker<T> {
+
+    // How long we give each search. Long enough to get around an obstacle, short enough to not hog the executor.
+    private static final long PRIMARY_TIMEOUT_MS = 300;
+    private static final long FAILURE_TIMEOUT_MS = 1000;
+
+    // Once we've moved this far from where a cost was calculated from, it's too far off to trust.
+    private static final double MOVED_INVALIDATE_DISTANCE = 5;
+
+    // Never have more than this many searches going at once, per ranker.
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private final double _ttlSeconds;
+
+    private final Map<T, CachedCost> _costs = new ConcurrentHashMap<>();
+    private final Set<T> _calculating = ConcurrentHashMap.newKeySet();
+
+    public PathCostRanker(double ttlSeconds) {
+        _ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * @param from Where we are now
+     * @return How many ticks it takes to walk to `target`, POSITIVE_INFINITY if there's no path,
+     * or null if we don't know (or our last answer is too old).
+     */
+    public Double getCost(T target, BlockPos from) {
+        CachedCost cached = _costs.get(target);
+        if (cached == null) return null;
+        if (Timer.currentTime() - cached.time > _ttlSeconds || !cached.from.isWithinDistance(from, MOVED_INVALIDATE_DISTANCE)) {
+            _costs.remove(target);
+            return null;
+        }
+        return cached.cost;
+    }
+
+    /**
+     * Starts working out the cost to `target` from where we're standing, unless we're already on it.
+     *
+     * Must be called from the client thread, since setting up a search reads the world.
+     *
+     * @param goal What counts as having reached `target`.
+     */
+    public void request(AltoClef mod, T target, Goal goal) {
+        if (_calculating.contains(target) || _calculating.size() >= MAX_IN_FLIGHT) return;
+        Baritone baritone = mod.getClientBaritone();
+        if (baritone == null) return;
+
+        // Targets come and go (mobs die, drops get picked up), don't hang on to them forever.
+        double now = Timer.currentTime();
+        _costs.values().removeIf(cached -> now - cached.time > _ttlSeconds);
+
+        BetterBlockPos start = baritone.getPlayerContext().playerFeet();
+        CalculationContext ctx = new CalculationContext(baritone, true);
+        Favoring favoring = new Favoring(baritone.getPlayerContext(), null, ctx);
+
+        _calculating.add(target);
+        Baritone.getExecutor().execute(() -> {
+            try {
+                AStarPathFinder finder = new AStarPathFinder(start.x, start.y, start.z, goal, favoring, ctx);
+                double cost = getCost(finder.calculate(PRIMARY_TIMEOUT_MS, FAILURE_TIMEOUT_MS), goal);
+                _costs.put(target, new CachedCost(cost, start, Timer.currentTime()));
+            } catch (Exception e) {
+                // Don't cache anything, a broken search says nothing about whether we can get there. We'll ask again.
+                Debug.logWarning("Path cost ranking failed for " + target + ": " + e.getMessage());
+            } finally {
+                _calculating.remove(target);
+            }
+        });
+    }
+
+    public boolean isCalculating(T target) {
+        return _calculating.contains(target);
+    }
+
+    public void clear() {
+        _costs.clear();
+    }
+
+    private static double getCost(PathCalculationResult result, Goal goal) {
+        if (!result.getPath().isPresent()) return Double.POSITIVE_INFINITY;
+        IPath path = result.getPath().get();
+        double cost = path.ticksRemainingFrom(0);
+        if (result.getType() == PathCalculationResult.Type.SUCCESS_SEGMENT) {
+            // We only got part of the way, guess the rest.
+            BetterBlockPos end = path.getDest();
+            cost += goal.heuristic(end.x, end.y, end.z);
+        }
+        return cost;
+    }
+
+    private static class CachedCost {
+        public final double cost;
+        public final BlockPos from;
+        public final double time;
+
+        public CachedCost(double cost, BlockPos from, double time) {
+            this.cost = cost;
+            this.from = from;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package adris.altoclef.util.baritone;
+
+import adris.altoclef.util.CachedProjectile;
+import adris.altoclef.util.ProjectileBatch;
+import adris.altoclef.util.ProjectileUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Which blocks around us are in the way of incoming projectiles, worked out once per tick instead of once per
+ * Baritone node.
+ *
+ * When the grid is built, every projectile's flight is traced tick by tick (the same way minecraft moves it) in small
+ * steps, and every block close enough to a step gets marked. Baritone then just reads a cell.
+ * Blocks outside of the grid are worked out on the spot with ProjectileUtil's closest approach instead.
+ *
+ * Once built a grid never changes, so Baritone can read it from its own thread while we build the next one.
+ */
+public class ProjectileThreatGrid {
+
+    // How far out from the center we precalculate. Dodging rarely takes us further than this.
+    private static final int RADIUS_HORIZONTAL = 16;
+    private static final int RADIUS_VERTICAL = 8;
+
+    private static final int SIZE_HORIZONTAL = RADIUS_HORIZONTAL * 2 + 1;
+    private static final int SIZE_VERTICAL = RADIUS_VERTICAL * 2 + 1;
+    private static final int CELL_COUNT = SIZE_HORIZONTAL * SIZE_HORIZONTAL * SIZE_VERTICAL;
+
+    // Largest gap between two traced points. Arrows move a few blocks per tick, so we need several per tick.
+    private static final double TRACE_STEP = 0.5;
+
+    // Scratch space for building, how close the projectile we're tracing gets to each cell and which cells it touched.
+    // Grids are only ever built on the client thread.
+    private static final float[] CLOSEST = new float[CELL_COUNT];
+    private static final int[] TOUCHED = new int[CELL_COUNT];
+
+    static {
+        Arrays.fill(CLOSEST, Float.POSITIVE_INFINITY);
+    }
+
+    private final double _distanceHorizontal;
+    private final double _distanceVertical;
+
+    private final int _centerX, _centerY, _centerZ;
+
+    private final ProjectileBatch _projectiles = new ProjectileBatch();
+
+    // Per cell, indexed by getIndex. Null if there's nothing to dodge.
+    private final long[] _danger;
+    private final float[] _penalty;
+
+    /**
+     * @param projectiles        Projectiles to dodge. Read right away, call with the minecraft lock held.
+     * @param distanceHorizontal How far to the side a projectile has to pass to count as a miss
+     * @param distanceVertical   How far above/below a projectile has to pass to count as a miss
+     */
+    public ProjectileThreatGrid(List<CachedProjectile> projectiles, int centerX, int centerY, int centerZ, double distanceHorizontal, double distanceVertical) {
+        _distanceHorizontal = distanceHorizontal;
+        _distanceVertical = distanceVertical;
+        _centerX = centerX;
+        _centerY = centerY;
+        _centerZ = centerZ;
+        _projectiles.addAll(projectiles);
+
+        if (_projectiles.size() == 0) {
+            _danger = null;
+            _penalty = null;
+            return;
+        }
+
+        _danger = new long[(CELL_COUNT + 63) / 64];
+        _penalty = new float[CELL_COUNT];
+        synchronized (ProjectileThreatGrid.class) {
+            for (int i = 0; i < _projectiles.size(); ++i) {
+                int touchedCount = trace(i);
+                // Every projectile that gets close adds how close it gets to the cell, once.
+                for (int t = 0; t < touchedCount; ++t) {
+                    int index = TOUCHED[t];
+                    _danger[index >> 6] |= 1L << index;
+                    _penalty[index] += CLOSEST[index];
+                    CLOSEST[index] = Float.POSITIVE_INFINITY;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether standing at this block puts us in the way of a projectile.
+     */
+    public boolean isDangerous(int x, int y, int z) {
+        if (isEmpty()) return false;
+        int index = getIndex(x - _centerX, y - _centerY, z - _centerZ);
+        if (index != -1) {
+            return (_danger[index >> 6] & (1L << index)) != 0;
+        }
+        for (int i = 0; i < _projectiles.size(); ++i) {
+            if (getCloseHorizontalDistanceSqr(i, x, y, z) >= 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The sum of how far (squared, sideways) we are from every projectile that will get close to this block.
+     * Higher means we're further out of the way.
+     */
+    public double getPenalty(int x, int y, int z) {
+        if (isEmpty()) return 0;
+        int index = getIndex(x - _centerX, y - _centerY, z - _centerZ);
+        if (index != -1) {
+            return _penalty[index];
+        }
+        double result = 0;
+        for (int i = 0; i < _projectiles.size(); ++i) {
+            double distanceSqr = getCloseHorizontalDistanceSqr(i, x, y, z);
+            if (distanceSqr >= 0) {
+                result += distanceSqr;
+            }
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return _projectiles.size() == 0;
+    }
+
+    // Follows projectile `i` through the grid and records how close it gets to each cell. Returns how many cells it touched.
+    private int trace(int i) {
+        double x = _projectiles.posX[i], y = _projectiles.posY[i], z = _projectiles.posZ[i];
+        double velX = _projectiles.velX[i], velY = _projectiles.velY[i], velZ = _projectiles.velZ[i];
+        double gravity = _projectiles.gravity[i], drag = _projectiles.drag[i];
+
+        int touchedCount = mark(x, y, z, 0);
+        for (int tick = 0; tick < ProjectileUtil.MAX_TICKS; ++tick) {
+            double speed = Math.sqrt(velX * velX + velY * velY + velZ * velZ);
+            int steps = Math.max(1, (int) Math.ceil(speed / TRACE_STEP));
+            for (int step = 1; step <= steps; ++step) {
+                double progress = (double) step / steps;
+                touchedCount = mark(x + velX * progress, y + velY * progress, z + velZ * progress, touchedCount);
+            }
+            // Same order as minecraft: move, then drag, then gravity.
+            x += velX;
+            y += velY;
+            z += velZ;
+            velX *= drag;
+            velY = velY * drag - gravity;
+            velZ *= drag;
+
+            // Falling below the grid never to come back
+            if (velY <= 0 && y < _centerY - RADIUS_VERTICAL - _distanceVertical) break;
+            // Heading away from the grid, sideways. Drag doesn't turn anything so it's not coming back either.
+            double offsetX = x - (_centerX + 0.5), offsetZ = z - (_centerZ + 0.5);
+            double outside = RADIUS_HORIZONTAL + _distanceHorizontal;
+            if ((Math.abs(offsetX) > outside || Math.abs(offsetZ) > outside) && offsetX * velX + offsetZ * velZ >= 0) break;
+        }
+        return touchedCount;
+    }
+
+    // Records a point of a projectile's flight against every cell close enough to it.
+    private int mark(double x, double y, double z, int touchedCount) {
+        int minX = Math.max(-RADIUS_HORIZONTAL, (int) Math.floor(x - 0.5 - _distanceHorizontal) - _centerX);
+        int maxX = Math.min(RADIUS_HORIZONTAL, (int) Math.ceil(x - 0.5 + _distanceHorizontal) - _centerX);
+        int minZ = Math.max(-RADIUS_HORIZONTAL, (int) Math.floor(z - 0.5 - _distanceHorizontal) - _centerZ);
+        int maxZ = Math.min(RADIUS_HORIZONTAL, (int) Math.ceil(z - 0.5 + _distanceHorizontal) - _centerZ);
+        int minY = Math.max(-RADIUS_VERTICAL, (int) Math.floor(y - _distanceVertical) - _centerY);
+        int maxY = Math.min(RADIUS_VERTICAL, (int) Math.ceil(y + _distanceVertical) - _centerY);
+        double maxDistanceSqr = _distanceHorizontal * _distanceHorizontal;
+        for (int dx = minX; dx <= maxX; ++dx) {
+            double offsetX = _centerX + dx + 0.5 - x;
+            for (int dz = minZ; dz <= maxZ; ++dz) {
+                double offsetZ = _centerZ + dz + 0.5 - z;
+                double distanceSqr = offsetX * offsetX + offsetZ * offsetZ;
+                if (distanceSqr >= maxDistanceSqr) continue;
+                for (int dy = minY; dy <= maxY; ++dy) {
+                    if (Math.abs(_centerY + dy - y) >= _distanceVertical) continue;
+                    int index = getIndex(dx, dy, dz);
+                    if (CLOSEST[index] == Float.POSITIVE_INFINITY) {
+                        TOUCHED[touchedCount++] = index;
+                    }
+                    CLOSEST[index] = Math.min(CLOSEST[index], (float) distanceSqr);
+                }
+            }
+        }
+        return touchedCount;
+    }
+
+    // How far sideways projectile `i` passes from a block at its closest, or -1 if that's not close enough to matter.
+    private double getCloseHorizontalDistanceSqr(int i, int x, int y, int z) {
+        double targetX = x + 0.5, targetZ = z + 0.5;
+        double drag = _projectiles.drag[i], gravity = _projectiles.gravity[i];
+        double time = ProjectileUtil.getClosestApproachTime(_projectiles.posX[i], _projectiles.posY[i], _projectiles.posZ[i],
+                _projectiles.velX[i], _projectiles.velY[i], _projectiles.velZ[i], gravity, drag, targetX, y, targetZ);
+        double offsetX = ProjectileUtil.getPositionAfter(_projectiles.posX[i], _projectiles.velX[i], 0, drag, time) - targetX;
+        double offsetY = ProjectileUtil.getPositionAfter(_projectiles.posY[i], _projectiles.velY[i], gravity, drag, time) - y;
+        double offsetZ = ProjectileUtil.getPositionAfter(_projectiles.posZ[i], _projectiles.velZ[i], 0, drag, time) - targetZ;
+        double distanceSqr = offsetX * offsetX + offsetZ * offsetZ;
+        if (distanceSqr >= _distanceHorizontal * _distanceHorizontal || Math.abs(offsetY) >= _distanceVertical) return -1;
+        return distanceSqr;
+    }
+
+    private static int getIndex(int dx, int dy, int dz) {
+        if (dx < -RADIUS_HORIZONTAL || dx > RADIUS_HORIZONTAL
+                || dz < -RADIUS_HORIZONTAL || dz > RADIUS_HORIZONTAL
+                || dy < -RADIUS_VERTICAL || dy > RADIUS_VERTICAL) {
+            return -1;
+        }
+        return ((dy + RADIUS_VERTICAL) * SIZE_HORIZONTAL + (dz + RADIUS_HORIZONTAL)) * SIZE_HORIZONTAL + (dx + RADIUS_HORIZONTAL);
+    }
+}
@@ -61,6 +61,13 @@ public abstract class Slot {
         return _windowSlot;
     }
 
+    /**
+     * @return Whether this slot was made from a player inventory index (see getFromInventory).
+     */
+    public boolean isInventory() {
+        return _isInventory;
+    }
+
     public void ensureWindowOpened() {}
 
     protected abstract int inventorySlotToWindowSlot(int inventorySlot);
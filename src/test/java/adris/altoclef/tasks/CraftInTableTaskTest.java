@@ -0,0 +1,215 @@
+package adris.altoclef.tasks;
+
+import adris.altoclef.AltoClef;
+import adris.altoclef.ConfigState;
+import adris.altoclef.Settings;
+import adris.altoclef.tasksystem.ITaskRunnerEnvironment;
+import adris.altoclef.tasksystem.Task;
+import adris.altoclef.tasksystem.TaskRunner;
+import adris.altoclef.tasksystem.chains.SingleTaskChain;
+import adris.altoclef.trackers.BlockTracker;
+import adris.altoclef.trackers.EntityTracker;
+import adris.altoclef.trackers.ScriptedInventory;
+import adris.altoclef.util.CraftingRecipe;
+import adris.altoclef.util.ItemTarget;
+import adris.altoclef.util.TickProfiler;
+import net.minecraft.Bootstrap;
+import net.minecraft.client.network.ClientPlayerEntity;
+import net.minecraft.item.Items;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * CraftInTableTask against a scripted inventory, no client.
+ *
+ * Everything but our inventory is a mock that finds nothing: no tables, chests or drops around, and no screen open.
+ * So ticking only gets as far as the first click in the crafting grid, which needs a real player.
+ * Actually walking to, placing and using the table is left for in game.
+ */
+public class CraftInTableTaskTest {
+
+    private ScriptedInventory _inventory;
+    private AltoClef _mod;
+    private ClientPlayerEntity _player;
+
+    @BeforeClass
+    public static void bootstrap() {
+        Bootstrap.initialize();
+    }
+
+    @Before
+    public void setup() {
+        _inventory = new ScriptedInventory();
+        _mod = mock(AltoClef.class);
+        when(_mod.getInventoryTracker()).thenReturn(_inventory.getTracker());
+        when(_mod.getTickProfiler()).thenReturn(new TickProfiler(1));
+        when(_mod.getConfigState()).thenReturn(mock(ConfigState.class));
+        when(_mod.getModSettings()).thenReturn(mock(Settings.class));
+        when(_mod.getEntityTracker()).thenReturn(mock(EntityTracker.class));
+        when(_mod.getBlockTracker()).thenReturn(mock(BlockTracker.class));
+        _player = mock(ClientPlayerEntity.class);
+        when(_mod.getPlayer()).thenReturn(_player);
+    }
+
+    private static CraftInTableTask craftChests(int count) {
+        ItemTarget p = new ItemTarget(Items.OAK_PLANKS, 1);
+        CraftingRecipe recipe = CraftingRecipe.newShapedRecipe("chest", new ItemTarget[]{p, p, p, p, null, p, p, p, p}, 1);
+        return new CraftInTableTask(Items.CHEST, count, recipe);
+    }
+
+    @Test
+    public void notFinishedWithOnlyMaterials() {
+        _inventory.set(0, Items.OAK_PLANKS, 64).set(1, Items.CRAFTING_TABLE, 1);
+        assertFalse(craftChests(1).isFinished(_mod));
+    }
+
+    @Test
+    public void finishedOnceWeHoldTheOutput() {
+        CraftInTableTask task = craftChests(3);
+        _inventory.set(0, Items.CHEST, 2);
+        assertFalse(task.isFinished(_mod));
+
+        // The last one is still on our cursor after pulling it out of the output slot.
+        _inventory.setCursor(Items.CHEST, 1);
+        assertTrue(task.isFinished(_mod));
+    }
+
+    @Test
+    public void notFinishedAfterUsingUpTheOutput() {
+        CraftInTableTask task = craftChests(1);
+        _inventory.set(4, Items.CHEST, 1);
+        assertTrue(task.isFinished(_mod));
+
+        // Placed it down
+        _inventory.clear(4);
+        assertFalse(task.isFinished(_mod));
+    }
+
+    @Test
+    public void tickedByRunnerUntilWeHoldTheOutput() {
+        _inventory.set(0, Items.OAK_PLANKS, 8);
+        CraftInTableTask task = craftChests(1);
+
+        TaskRunner runner = new TaskRunner(_mod, new InventoryEnvironment(_inventory));
+        CraftChain chain = new CraftChain(runner);
+        chain.setTask(task);
+        runner.enable();
+
+        // No table around and none on us, so we craft one in our inventory first. Stays that way until we get it.
+        for (int tick = 0; tick < 3; ++tick) {
+            runner.tick();
+            assertSame(chain, runner.getCurrentTaskChain());
+            List<Task> tasks = chain.getTasks();
+            assertEquals("Tick " + tick + ": " + tasks, 4, tasks.size());
+            assertSame(task, tasks.get(0));
+            assertTrue(tasks.get(1) instanceof DoCraftInTableTask);
+            assertTrue(tasks.get(2) instanceof CraftInInventoryTask);
+            assertTrue(tasks.get(3) instanceof CraftGenericTask);
+        }
+        assertTrue(task.isActive());
+        // Nothing's open yet, so we close whatever screen we're in before crafting.
+        verify(_player, atLeastOnce()).closeHandledScreen();
+
+        // Crafted it (in game).
+        _inventory.set(1, Items.CHEST, 1);
+        runner.tick();
+        assertTrue(chain.isFinished());
+        assertFalse(chain.isActive());
+        assertTrue(chain.getTasks().isEmpty());
+    }
+
+    @Test
+    public void runnerSkipsTaskWeAlreadySatisfy() {
+        _inventory.set(0, Items.CHEST, 1);
+
+        TaskRunner runner = new TaskRunner(_mod, new InventoryEnvironment(_inventory));
+        CraftChain chain = new CraftChain(runner);
+        CraftInTableTask task = craftChests(1);
+        chain.setTask(task);
+        runner.enable();
+
+        runner.tick();
+        assertTrue(chain.isFinished());
+        assertTrue(chain.getTasks().isEmpty());
+        assertFalse(task.isActive());
+        verifyNoInteractions(_player);
+    }
+
+    // Like UserTaskChain, minus the chat messages and idling.
+    private static class CraftChain extends SingleTaskChain {
+        private boolean _finished = false;
+
+        public CraftChain(TaskRunner runner) {
+            super(runner);
+        }
+
+        public boolean isFinished() {
+            return _finished;
+        }
+
+        @Override
+        protected void onTaskFinish(AltoClef mod) {
+            _finished = true;
+            _mainTask = null;
+        }
+
+        @Override
+        public float getPriority(AltoClef mod) {
+            return 50;
+        }
+
+        @Override
+        public String getName() {
+            return "craft";
+        }
+    }
+
+    // Only our inventory changes, we're always in game and nothing else happens to us.
+    private static class InventoryEnvironment implements ITaskRunnerEnvironment {
+        private final TickProfiler _profiler = new TickProfiler(1);
+        private final ScriptedInventory _inventory;
+
+        public InventoryEnvironment(ScriptedInventory inventory) {
+            _inventory = inventory;
+        }
+
+        @Override
+        public TickProfiler getTickProfiler() {
+            return _profiler;
+        }
+
+        @Override
+        public boolean inGame() {
+            return true;
+        }
+
+        @Override
+        public int getInventoryVersion() {
+            return _inventory.getTracker().getChangeVersion();
+        }
+
+        @Override
+        public int getEntityVersion() {
+            return 0;
+        }
+
+        @Override
+        public int getPlayerState() {
+            return 1;
+        }
+
+        @Override
+        public void onEnable() {
+        }
+
+        @Override
+        public void onDisable() {
+        }
+    }
+}
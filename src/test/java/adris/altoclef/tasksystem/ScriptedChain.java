@@ -0,0 +1,84 @@
+package adris.altoclef.tasksystem;
+
+import adris.altoclef.AltoClef;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * A chain whose priority comes from a script over a ScriptedEnvironment instead of the game.
+ */
+class ScriptedChain extends TaskChain {
+    private final String _name;
+    private final EnumSet<PriorityTrigger> _triggers;
+    private final PriorityScript _priority;
+    private final ScriptedEnvironment _environment;
+
+    public ScriptedChain(TaskRunner runner, String name, EnumSet<PriorityTrigger> triggers, PriorityScript priority) {
+        super(runner);
+        _name = name;
+        _triggers = triggers;
+        _priority = priority;
+        _environment = (ScriptedEnvironment) runner.getEnvironment();
+    }
+
+    /**
+     * Stand-ins for the real chains (priorities and triggers), plus `idleChains` that never want to run.
+     * Chains get a null mod, none of these need it.
+     */
+    public static List<ScriptedChain> createStandIns(TaskRunner runner, int idleChains) {
+        List<ScriptedChain> result = new ArrayList<>();
+        // Like UserTaskChain: always there, always 50.
+        result.add(new ScriptedChain(runner, "user", null, env -> 50));
+        // Like MobDefenseChain: only when a mob gets close.
+        result.add(new ScriptedChain(runner, "mob defense", EnumSet.of(PriorityTrigger.ENTITIES, PriorityTrigger.PLAYER, PriorityTrigger.INVENTORY),
+                env -> env.getEntityVersion() % 8 == 0 ? 70 : 0));
+        // Like WorldSurvivalChain: only when we're in lava.
+        result.add(new ScriptedChain(runner, "world survival", EnumSet.of(PriorityTrigger.PLAYER),
+                env -> (env.getPlayerState() & 1) != 0 ? 100 : 0));
+        // Like FoodChain: when we're hungry and have food.
+        result.add(new ScriptedChain(runner, "food", EnumSet.of(PriorityTrigger.INVENTORY, PriorityTrigger.PLAYER),
+                env -> (env.getPlayerState() & 2) != 0 && env.getInventoryVersion() % 3 != 0 ? 55 : 0));
+        for (int i = 0; i < idleChains; ++i) {
+            result.add(new ScriptedChain(runner, "idle " + i, EnumSet.of(PriorityTrigger.INVENTORY), env -> 0));
+        }
+        return result;
+    }
+
+    @Override
+    protected void onStop(AltoClef mod) {
+    }
+
+    @Override
+    public void onInterrupt(AltoClef mod, TaskChain other) {
+    }
+
+    @Override
+    protected void onTick(AltoClef mod) {
+    }
+
+    @Override
+    public float getPriority(AltoClef mod) {
+        return _priority.getPriority(_environment);
+    }
+
+    @Override
+    protected EnumSet<PriorityTrigger> getPriorityTriggers() {
+        return _triggers != null ? _triggers : super.getPriorityTriggers();
+    }
+
+    @Override
+    public boolean isActive() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return _name;
+    }
+
+    public interface PriorityScript {
+        float getPriority(ScriptedEnvironment environment);
+    }
+}
@@ -0,0 +1,62 @@
+package adris.altoclef.tasksystem;
+
+import adris.altoclef.util.TickProfiler;
+
+/**
+ * A session, one step per tick. Same every run.
+ *
+ * Our inventory changes every second or so, mobs come and go, and every now and then something happens to our player.
+ */
+class ScriptedEnvironment implements ITaskRunnerEnvironment {
+    private final TickProfiler _profiler = new TickProfiler(1);
+
+    private int _tick = 0;
+    private int _inventoryVersion = 0;
+    private int _entityVersion = 0;
+    private int _playerState = 0;
+
+    public void step() {
+        _tick++;
+        // Picking stuff up
+        if (_tick % 17 == 0) _inventoryVersion++;
+        // Mobs wandering in and out of range
+        if (_tick % 5 == 0) _entityVersion++;
+        // Lava every now and then, getting hungry a bit more often
+        if (_tick % 97 == 0) _playerState ^= 1;
+        if (_tick % 41 == 0) _playerState ^= 2;
+    }
+
+    @Override
+    public TickProfiler getTickProfiler() {
+        return _profiler;
+    }
+
+    @Override
+    public boolean inGame() {
+        return true;
+    }
+
+    @Override
+    public int getInventoryVersion() {
+        return _inventoryVersion;
+    }
+
+    @Override
+    public int getEntityVersion() {
+        return _entityVersion;
+    }
+
+    @Override
+    public int getPlayerState() {
+        // Never 0, that's what the runner uses for "not in game".
+        return _playerState | 0x100;
+    }
+
+    @Override
+    public void onEnable() {
+    }
+
+    @Override
+    public void onDisable() {
+    }
+}
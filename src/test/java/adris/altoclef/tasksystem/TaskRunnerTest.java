@@ -0,0 +1,44 @@
+package adris.altoclef.tasksystem;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertSame;
+
+public class TaskRunnerTest {
+
+    private static final int TICKS = 4000;
+
+    // Every tick should run the chain that would win if nobody cached any priorities.
+    private static void assertRunsHighestPriority(int idleChains) {
+        ScriptedEnvironment environment = new ScriptedEnvironment();
+        TaskRunner runner = new TaskRunner(null, environment);
+        List<ScriptedChain> chains = ScriptedChain.createStandIns(runner, idleChains);
+        runner.enable();
+        for (int tick = 0; tick < TICKS; ++tick) {
+            environment.step();
+            runner.tick();
+            ScriptedChain expected = null;
+            float expectedPriority = Float.NEGATIVE_INFINITY;
+            for (ScriptedChain chain : chains) {
+                float priority = chain.getPriority(null);
+                if (priority > expectedPriority) {
+                    expectedPriority = priority;
+                    expected = chain;
+                }
+            }
+            assertSame("Tick " + tick, expected, runner.getCurrentTaskChain());
+        }
+    }
+
+    @Test
+    public void runsHighestPriorityChain() {
+        assertRunsHighestPriority(0);
+    }
+
+    @Test
+    public void runsHighestPriorityChainWithIdleChains() {
+        assertRunsHighestPriority(16);
+    }
+}
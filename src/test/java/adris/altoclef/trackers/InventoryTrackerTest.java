@@ -0,0 +1,82 @@
+package adris.altoclef.trackers;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.item.Items;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class InventoryTrackerTest {
+
+    @BeforeClass
+    public static void bootstrap() {
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void countsItemsAcrossSlotsAndCursor() {
+        ScriptedInventory inventory = new ScriptedInventory()
+                .set(0, Items.OAK_PLANKS, 64)
+                .set(5, Items.OAK_PLANKS, 3)
+                .setCursor(Items.OAK_PLANKS, 2);
+        InventoryTracker tracker = inventory.getTracker();
+        assertEquals(69, tracker.getItemCount(Items.OAK_PLANKS));
+        assertEquals(Arrays.asList(-1, 0, 5), tracker.getInventorySlotsWithItem(Items.OAK_PLANKS));
+        assertEquals(InventoryTracker.INVENTORY_SIZE - 2, tracker.getEmptySlotCount());
+        assertFalse(tracker.hasItem(Items.STICK));
+    }
+
+    @Test
+    public void picksUpChangedSlots() {
+        ScriptedInventory inventory = new ScriptedInventory().set(3, Items.COBBLESTONE, 10);
+        InventoryTracker tracker = inventory.getTracker();
+        assertEquals(10, tracker.getItemCount(Items.COBBLESTONE));
+
+        inventory.set(3, Items.COBBLESTONE, 4).set(7, Items.BREAD, 2);
+        assertEquals(4, tracker.getItemCount(Items.COBBLESTONE));
+        assertEquals(Collections.singletonList(7), tracker.getInventorySlotsWithItem(Items.BREAD));
+        assertEquals(2 * Items.BREAD.getFoodComponent().getHunger(), tracker.totalFoodScore());
+
+        inventory.clear(7);
+        assertFalse(tracker.hasItem(Items.BREAD));
+        assertEquals(0, tracker.totalFoodScore());
+    }
+
+    @Test
+    public void changeVersionOnlyMovesOnChanges() {
+        ScriptedInventory inventory = new ScriptedInventory().set(0, Items.DIRT, 1);
+        InventoryTracker tracker = inventory.getTracker();
+        int version = tracker.getChangeVersion();
+
+        // Marked dirty but nothing changed.
+        tracker.setDirty();
+        assertEquals(version, tracker.getChangeVersion());
+
+        inventory.set(0, Items.DIRT, 2);
+        assertNotEquals(version, tracker.getChangeVersion());
+    }
+
+    @Test
+    public void countsEquippedArmor() {
+        ScriptedInventory inventory = new ScriptedInventory().setArmor(0, Items.IRON_BOOTS);
+        InventoryTracker tracker = inventory.getTracker();
+        assertTrue(tracker.hasItem(Items.IRON_BOOTS));
+        assertEquals(1, tracker.getItemCount(Items.IRON_BOOTS));
+        assertFalse(tracker.hasItem(Items.IRON_HELMET));
+    }
+
+    @Test
+    public void forgetsEverythingWithoutPlayer() {
+        ScriptedInventory inventory = new ScriptedInventory().set(0, Items.DIRT, 1);
+        InventoryTracker tracker = inventory.getTracker();
+        assertTrue(tracker.hasItem(Items.DIRT));
+
+        inventory.setHasInventory(false);
+        assertFalse(tracker.hasItem(Items.DIRT));
+        assertEquals(0, tracker.getEmptySlotCount());
+    }
+}
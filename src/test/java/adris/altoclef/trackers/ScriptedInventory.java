@@ -0,0 +1,84 @@
+package adris.altoclef.trackers;
+
+import adris.altoclef.util.TickProfiler;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An inventory we fill in by hand, and the InventoryTracker reading it.
+ *
+ * Call Bootstrap.initialize() before using this, items need their registry.
+ */
+public class ScriptedInventory implements IInventoryState {
+
+    private final ItemStack[] _stacks = new ItemStack[InventoryTracker.INVENTORY_SIZE];
+    private final List<ItemStack> _armor = new ArrayList<>(Arrays.asList(ItemStack.EMPTY, ItemStack.EMPTY, ItemStack.EMPTY, ItemStack.EMPTY));
+    private ItemStack _cursor = ItemStack.EMPTY;
+    private boolean _hasInventory = true;
+
+    private final InventoryTracker _tracker;
+
+    public ScriptedInventory() {
+        Arrays.fill(_stacks, ItemStack.EMPTY);
+        // No mod, nobody ticks this manager. We mark the tracker dirty ourselves whenever we change something.
+        _tracker = new InventoryTracker(new TrackerManager(null, new TickProfiler(1)), this);
+    }
+
+    public InventoryTracker getTracker() {
+        return _tracker;
+    }
+
+    public ScriptedInventory set(int inventorySlot, Item item, int count) {
+        _stacks[inventorySlot] = new ItemStack(item, count);
+        _tracker.setDirty();
+        return this;
+    }
+
+    public ScriptedInventory clear(int inventorySlot) {
+        _stacks[inventorySlot] = ItemStack.EMPTY;
+        _tracker.setDirty();
+        return this;
+    }
+
+    public ScriptedInventory setCursor(Item item, int count) {
+        _cursor = new ItemStack(item, count);
+        _tracker.setDirty();
+        return this;
+    }
+
+    public ScriptedInventory setArmor(int armorSlot, Item item) {
+        _armor.set(armorSlot, new ItemStack(item, 1));
+        _tracker.setDirty();
+        return this;
+    }
+
+    public ScriptedInventory setHasInventory(boolean hasInventory) {
+        _hasInventory = hasInventory;
+        _tracker.setDirty();
+        return this;
+    }
+
+    @Override
+    public boolean hasInventory() {
+        return _hasInventory;
+    }
+
+    @Override
+    public ItemStack getStack(int inventorySlot) {
+        return _stacks[inventorySlot];
+    }
+
+    @Override
+    public ItemStack getCursorStack() {
+        return _cursor;
+    }
+
+    @Override
+    public Iterable<ItemStack> getArmorItems() {
+        return _armor;
+    }
+}